@@ -2,7 +2,10 @@ package com.penguin.penguincoco.api.functional;
 
 import com.penguin.penguincoco.api.base.BaseApi;
 import com.penguin.penguincoco.manager.JudgeManager;
+import com.penguin.penguincoco.manager.JudgeQueueManager;
 import com.penguin.penguincoco.common.exception.EntityNotFoundException;
+import com.penguin.penguincoco.common.exception.JudgeQueueFullException;
+import com.penguin.penguincoco.common.exception.JudgeRateLimitException;
 import com.penguin.penguincoco.common.message.ApiMessageCode;
 import com.penguin.penguincoco.common.message.Message;
 import io.swagger.annotations.Api;
@@ -20,14 +23,16 @@ import java.util.Map;
 public class JudgeApi extends BaseApi {
 
     private JudgeManager judgeManager;
+    private JudgeQueueManager judgeQueueManager;
 
     @Autowired
-    public JudgeApi(JudgeManager judgeManager) {
+    public JudgeApi(JudgeManager judgeManager, JudgeQueueManager judgeQueueManager) {
         this.judgeManager = judgeManager;
+        this.judgeQueueManager = judgeQueueManager;
     }
 
     @ApiOperation(value = "批改代碼",
-            notes = "取得ProblemId、code、language，並進行批改代碼")
+            notes = "取得ProblemId、code、language，放入批改佇列並回傳submissionId，同一題目排隊中的submission會被取代")
     @PostMapping(value = "/judgeCode")
     private Message judgeCode(@RequestBody Map<String, String> map, HttpSession session) {
         Message message;
@@ -37,11 +42,56 @@ public class JudgeApi extends BaseApi {
         String code = map.get("code");
         String language = map.get("language");
         try {
-            judgeManager.judgeCode(Long.parseLong(problemId), code, language, account);
-            message = new Message(ApiMessageCode.SUCCESS_STATUS, "");
+            String submissionId = judgeQueueManager.submit(Long.parseLong(problemId), code, language, account);
+            Map<String, String> result = new HashMap<>();
+            result.put("submissionId", submissionId);
+            message = new Message(ApiMessageCode.SUCCESS_STATUS, result);
         } catch (EntityNotFoundException e) {
             e.printStackTrace();
             message = new Message(ApiMessageCode.JUDGE_CODE_ERROR, "");
+        } catch (JudgeQueueFullException e) {
+            message = new Message(ApiMessageCode.JUDGE_QUEUE_FULL_ERROR, "");
+        } catch (JudgeRateLimitException e) {
+            message = new Message(ApiMessageCode.JUDGE_RATE_LIMIT_ERROR, "");
+        }
+        return message;
+    }
+
+    @ApiOperation(value = "重新批改代碼",
+            notes = "取得ProblemId、學生account、code、language，以最低優先等級放入批改佇列並回傳submissionId，不消耗該學生的送出次數")
+    @PostMapping(value = "/rejudge")
+    private Message rejudge(@RequestBody Map<String, String> map) {
+        Message message;
+
+        String account = map.get("account");
+        String problemId = map.get("problemId");
+        String code = map.get("code");
+        String language = map.get("language");
+        try {
+            String submissionId = judgeQueueManager.rejudge(Long.parseLong(problemId), code, language, account);
+            Map<String, String> result = new HashMap<>();
+            result.put("submissionId", submissionId);
+            message = new Message(ApiMessageCode.SUCCESS_STATUS, result);
+        } catch (EntityNotFoundException e) {
+            e.printStackTrace();
+            message = new Message(ApiMessageCode.REJUDGE_CODE_ERROR, "");
+        } catch (JudgeQueueFullException e) {
+            message = new Message(ApiMessageCode.JUDGE_QUEUE_FULL_ERROR, "");
+        }
+        return message;
+    }
+
+    @ApiOperation(value = "取得批改狀態",
+            notes = "取得submissionId，來獲取批改狀態(queued/compiling/running/done/error)，完成時一併回傳批改報告")
+    @GetMapping(value = "/submissionStatus")
+    private Message getSubmissionStatus(String submissionId, HttpSession session) {
+        Message message;
+        String account = getUserAccount(session);
+        try {
+            Map<String, Object> result = judgeQueueManager.getSubmissionInfo(submissionId, account);
+            message = new Message(ApiMessageCode.SUCCESS_STATUS, result);
+        } catch (EntityNotFoundException e) {
+            message = new Message(ApiMessageCode.GET_SUBMISSION_STATUS_ERROR, "");
         }
         return message;
     }
@@ -96,4 +146,11 @@ public class JudgeApi extends BaseApi {
         }
         return message;
     }
+
+    @ApiOperation(value = "取得批改統計資訊",
+            notes = "取得編譯快取命中率等批改相關的統計資訊")
+    @GetMapping(value = "/metrics")
+    private Message getJudgeMetrics() {
+        return new Message(ApiMessageCode.SUCCESS_STATUS, judgeManager.getJudgeMetrics());
+    }
 }
@@ -0,0 +1,133 @@
+package com.penguin.penguincoco.api.functional;
+
+import com.penguin.penguincoco.api.base.BaseApi;
+import com.penguin.penguincoco.common.exception.EntityNotFoundException;
+import com.penguin.penguincoco.common.message.ApiMessageCode;
+import com.penguin.penguincoco.common.message.Message;
+import com.penguin.penguincoco.lib.judge.worker.JudgeWorkerClient;
+import com.penguin.penguincoco.manager.JudgeWorkerManager;
+import io.swagger.annotations.Api;
+import io.swagger.annotations.ApiOperation;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.Map;
+
+@Api(value = "JudgeWorkerApi", description = "判題節點的相關Api，以token驗證而非登入")
+@RequestMapping("/api/worker")
+@RestController
+public class JudgeWorkerApi extends BaseApi {
+
+    private JudgeWorkerManager judgeWorkerManager;
+
+    @Autowired
+    public JudgeWorkerApi(JudgeWorkerManager judgeWorkerManager) {
+        this.judgeWorkerManager = judgeWorkerManager;
+    }
+
+    @ApiOperation(value = "註冊判題節點",
+            notes = "取得workerId、capacity，註冊或更新節點容量，重複呼叫作為心跳")
+    @PostMapping(value = "/register")
+    private Message register(@RequestHeader(value = JudgeWorkerClient.TOKEN_HEADER, required = false) String token,
+                             @RequestBody Map<String, Object> map) {
+        if (!judgeWorkerManager.isAuthorized(token)) {
+            return new Message(ApiMessageCode.JUDGE_WORKER_UNAUTHORIZED_ERROR, "");
+        }
+        String workerId = getString(map, "workerId");
+        String capacity = getString(map, "capacity");
+        if (workerId == null || capacity == null) {
+            return new Message(ApiMessageCode.JUDGE_WORKER_BAD_REQUEST_ERROR, "");
+        }
+        Message message;
+        try {
+            judgeWorkerManager.register(workerId, Integer.parseInt(capacity));
+            message = new Message(ApiMessageCode.SUCCESS_STATUS, "");
+        } catch (IllegalArgumentException e) {
+            message = new Message(ApiMessageCode.JUDGE_WORKER_BAD_REQUEST_ERROR, "");
+        }
+        return message;
+    }
+
+    @ApiOperation(value = "拉取批改工作",
+            notes = "取得workerId、waitMillis，最多等待waitMillis，有工作則回傳工作內容，否則回傳空字串")
+    @GetMapping(value = "/poll")
+    private Message poll(@RequestHeader(value = JudgeWorkerClient.TOKEN_HEADER, required = false) String token,
+                         String workerId, long waitMillis) {
+        if (!judgeWorkerManager.isAuthorized(token)) {
+            return new Message(ApiMessageCode.JUDGE_WORKER_UNAUTHORIZED_ERROR, "");
+        }
+        if (workerId == null) {
+            return new Message(ApiMessageCode.JUDGE_WORKER_BAD_REQUEST_ERROR, "");
+        }
+        Message message;
+        try {
+            Map<String, Object> job = judgeWorkerManager.poll(workerId, waitMillis);
+            message = new Message(ApiMessageCode.SUCCESS_STATUS, job == null ? "" : job);
+        } catch (EntityNotFoundException e) {
+            message = new Message(ApiMessageCode.JUDGE_WORKER_NOT_FOUND_ERROR, "");
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            message = new Message(ApiMessageCode.SUCCESS_STATUS, "");
+        }
+        return message;
+    }
+
+    @ApiOperation(value = "回報批改狀態",
+            notes = "取得workerId、jobId、status(COMPILING/RUNNING)")
+    @PostMapping(value = "/status")
+    private Message updateStatus(@RequestHeader(value = JudgeWorkerClient.TOKEN_HEADER, required = false) String token,
+                                 @RequestBody Map<String, Object> map) {
+        if (!judgeWorkerManager.isAuthorized(token)) {
+            return new Message(ApiMessageCode.JUDGE_WORKER_UNAUTHORIZED_ERROR, "");
+        }
+        String workerId = getString(map, "workerId");
+        String jobId = getString(map, "jobId");
+        String status = getString(map, "status");
+        if (workerId == null || jobId == null || status == null) {
+            return new Message(ApiMessageCode.JUDGE_WORKER_BAD_REQUEST_ERROR, "");
+        }
+        Message message;
+        try {
+            judgeWorkerManager.updateStatus(workerId, jobId, status);
+            message = new Message(ApiMessageCode.SUCCESS_STATUS, "");
+        } catch (EntityNotFoundException e) {
+            message = new Message(ApiMessageCode.JUDGE_WORKER_NOT_FOUND_ERROR, "");
+        } catch (IllegalArgumentException e) {
+            message = new Message(ApiMessageCode.JUDGE_WORKER_BAD_REQUEST_ERROR, "");
+        }
+        return message;
+    }
+
+    @ApiOperation(value = "回報批改結果",
+            notes = "取得workerId、jobId與report，節點本身批改失敗時改傳errorMessage")
+    @PostMapping(value = "/result")
+    @SuppressWarnings("unchecked")
+    private Message submitResult(@RequestHeader(value = JudgeWorkerClient.TOKEN_HEADER, required = false) String token,
+                                 @RequestBody Map<String, Object> map) {
+        if (!judgeWorkerManager.isAuthorized(token)) {
+            return new Message(ApiMessageCode.JUDGE_WORKER_UNAUTHORIZED_ERROR, "");
+        }
+        String workerId = getString(map, "workerId");
+        String jobId = getString(map, "jobId");
+        Object report = map.get("report");
+        if (workerId == null || jobId == null || (report != null && !(report instanceof Map))) {
+            return new Message(ApiMessageCode.JUDGE_WORKER_BAD_REQUEST_ERROR, "");
+        }
+        Message message;
+        try {
+            judgeWorkerManager.submitResult(workerId, jobId, (Map<String, Object>) report, getString(map, "errorMessage"));
+            message = new Message(ApiMessageCode.SUCCESS_STATUS, "");
+        } catch (EntityNotFoundException e) {
+            message = new Message(ApiMessageCode.JUDGE_WORKER_NOT_FOUND_ERROR, "");
+        } catch (IllegalArgumentException e) {
+            message = new Message(ApiMessageCode.JUDGE_WORKER_BAD_REQUEST_ERROR, "");
+        }
+        return message;
+    }
+
+    // 節點送來的欄位，缺少時為null
+    private String getString(Map<String, Object> map, String key) {
+        Object value = map.get(key);
+        return value == null ? null : value.toString();
+    }
+}
@@ -4,6 +4,8 @@ package com.penguin.penguincoco.api.functional;
 import com.penguin.penguincoco.api.base.BaseApi;
 import com.penguin.penguincoco.dao.domain.problem.ProblemInfo;
 import com.penguin.penguincoco.dao.domain.problem.TestCase;
+import com.penguin.penguincoco.lib.model.JudgePolicy;
+import com.penguin.penguincoco.lib.model.SimilarityAlgorithmType;
 import com.penguin.penguincoco.manager.CourseManager;
 import com.penguin.penguincoco.manager.JudgeManager;
 import com.penguin.penguincoco.manager.ProblemManager;
@@ -92,6 +94,8 @@ public class ProblemApi extends BaseApi {
         String outputDesc = map.get("outputDesc").toString();
         List<TestCase> testCases = (List<TestCase>) map.get("testCases");
         String deadlineStr = map.get("deadline").toString();
+        String judgePolicy = parseJudgePolicy(map.get("judgePolicy"));
+        String similarityAlgorithm = parseSimilarityAlgorithm(map.get("similarityAlgorithm"));
 
         DateFormat df = new SimpleDateFormat("yyyy-MM-dd");
         Date deadline = df.parse(deadlineStr);
@@ -100,6 +104,8 @@ public class ProblemApi extends BaseApi {
                     tag, description, inputDesc,
                     outputDesc, pattern,
                     testCases, deadline);
+            problemService.updateJudgePolicy(Long.parseLong(result.get("problemId")), judgePolicy);
+            problemService.updateSimilarityAlgorithm(Long.parseLong(result.get("problemId")), similarityAlgorithm);
             message = new Message(ApiMessageCode.SUCCESS_STATUS, result);
         } catch (EntityNotFoundException e) {
             e.printStackTrace();
@@ -126,6 +132,8 @@ public class ProblemApi extends BaseApi {
         String outputDesc = map.get("outputDesc").toString();
         List<TestCase> testCases = (List<TestCase>) map.get("testCases");
         String deadlineStr = map.get("deadline").toString();
+        String judgePolicy = parseJudgePolicy(map.get("judgePolicy"));
+        String similarityAlgorithm = parseSimilarityAlgorithm(map.get("similarityAlgorithm"));
 
         DateFormat df = new SimpleDateFormat("yyyy-MM-dd");
         Date deadline = df.parse(deadlineStr);
@@ -133,6 +141,12 @@ public class ProblemApi extends BaseApi {
             problemService.update(Long.parseLong(problemId), name,
                     type, category, tag, description,
                     inputDesc, outputDesc, pattern, testCases, deadline);
+            if (map.containsKey("judgePolicy")) {
+                problemService.updateJudgePolicy(Long.parseLong(problemId), judgePolicy);
+            }
+            if (map.containsKey("similarityAlgorithm")) {
+                problemService.updateSimilarityAlgorithm(Long.parseLong(problemId), similarityAlgorithm);
+            }
             message = new Message(ApiMessageCode.SUCCESS_STATUS, "");
         } catch (EntityNotFoundException e) {
             e.printStackTrace();
@@ -156,4 +170,28 @@ public class ProblemApi extends BaseApi {
         }
         return message;
     }
+
+    // 批改策略為JudgePolicy的名稱，未提供或無法辨識時為null(執行所有測資)；ALL以外的策略會讓略過的測資以0分計
+    private String parseJudgePolicy(Object judgePolicy) {
+        if (judgePolicy == null) {
+            return null;
+        }
+        try {
+            return JudgePolicy.valueOf(judgePolicy.toString()).name();
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    // 抄襲比對演算法為SimilarityAlgorithmType的名稱，未提供或無法辨識時為null(使用全域設定)
+    private String parseSimilarityAlgorithm(Object similarityAlgorithm) {
+        if (similarityAlgorithm == null) {
+            return null;
+        }
+        try {
+            return SimilarityAlgorithmType.valueOf(similarityAlgorithm.toString()).name();
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
 }
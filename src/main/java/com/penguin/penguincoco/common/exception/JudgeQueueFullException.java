@@ -0,0 +1,8 @@
+package com.penguin.penguincoco.common.exception;
+
+public class JudgeQueueFullException extends Exception {
+
+    public JudgeQueueFullException() {
+        super("Judge Queue Is Full");
+    }
+}
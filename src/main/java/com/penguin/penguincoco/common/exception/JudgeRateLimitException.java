@@ -0,0 +1,8 @@
+package com.penguin.penguincoco.common.exception;
+
+public class JudgeRateLimitException extends Exception {
+
+    public JudgeRateLimitException() {
+        super("Judge Submission Rate Limit Exceeded");
+    }
+}
@@ -40,6 +40,14 @@ public enum ApiMessageCode {
     GET_JUDGED_INFO_ERROR("404", "取得已批改資訊失敗"),
     CHECK_JUDGE_ERROR("404", "檢查此題是否被批改失敗"),
     JUDGE_COPY_ERROR("404", "批改抄襲失敗"),
+    REJUDGE_CODE_ERROR("404", "重新批改代碼失敗"),
+    JUDGE_QUEUE_FULL_ERROR("503", "批改佇列已滿，請稍後再送出"),
+    JUDGE_RATE_LIMIT_ERROR("429", "送出過於頻繁，請稍後再送出"),
+    GET_SUBMISSION_STATUS_ERROR("404", "取得批改狀態失敗"),
+    // JudgeWorkerApi
+    JUDGE_WORKER_UNAUTHORIZED_ERROR("401", "判題節點驗證失敗"),
+    JUDGE_WORKER_NOT_FOUND_ERROR("404", "找不到此判題節點或工作，請重新註冊"),
+    JUDGE_WORKER_BAD_REQUEST_ERROR("400", "判題節點的請求缺少欄位或格式錯誤"),
     // CourseApi
     GET_COURSES_INFO_ERROR("404", "取得課程資訊失敗"),
     GET_STUDENT_DATA_ERROR("404", "取得課程的所有學生成績失敗"),
@@ -0,0 +1,124 @@
+package com.penguin.penguincoco.config;
+
+import com.penguin.penguincoco.lib.judge.CompilationCache;
+import com.penguin.penguincoco.lib.judge.JudgeScheduler;
+import com.penguin.penguincoco.lib.judge.PythonWorkerPool;
+import com.penguin.penguincoco.lib.judge.SandboxFactory;
+import com.penguin.penguincoco.lib.judge.TokenBucketRateLimiter;
+import com.penguin.penguincoco.lib.judge.WorkspaceManager;
+import com.penguin.penguincoco.lib.judge.worker.JudgeWorkerRegistry;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+@Configuration
+public class JudgeConfig {
+
+    // 批改用的執行緒池，佇列有上限，滿了直接拒絕而不是卡住request thread
+    @Bean(destroyMethod = "shutdown")
+    public ThreadPoolExecutor judgeExecutor(@Value("${judge.queue.workers:4}") int workers,
+                                            @Value("${judge.queue.capacity:500}") int capacity) {
+        return new ThreadPoolExecutor(workers, workers, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(capacity),
+                new CustomizableThreadFactory("judge-worker-"),
+                new ThreadPoolExecutor.AbortPolicy());
+    }
+
+    // 決定批改佇列中下一個要執行的submission，考試與即將截止的題目優先，並以aging與學生公平性避免飢餓
+    @Bean
+    public JudgeScheduler judgeScheduler(@Qualifier("judgeExecutor") ThreadPoolExecutor judgeExecutor,
+                                         @Value("${judge.queue.capacity:500}") int capacity,
+                                         @Value("${judge.scheduler.aging-seconds:300}") long agingSeconds,
+                                         @Value("${judge.scheduler.fairness-seconds:60}") long fairnessSeconds) {
+        return new JudgeScheduler(judgeExecutor, capacity, TimeUnit.SECONDS.toMillis(agingSeconds), TimeUnit.SECONDS.toMillis(fairnessSeconds));
+    }
+
+    // 每個帳號送出批改的頻率限制，最多連續送出capacity次，之後每refill-seconds恢復一次
+    @Bean
+    public TokenBucketRateLimiter submissionRateLimiter(@Value("${judge.rate-limit.capacity:5}") int capacity,
+                                                        @Value("${judge.rate-limit.refill-seconds:20}") long refillSeconds) {
+        return new TokenBucketRateLimiter(capacity, TimeUnit.SECONDS.toMillis(refillSeconds));
+    }
+
+    // 資料庫佇列模式下定期認領submission並為批改中的submission續約
+    @Bean(destroyMethod = "shutdownNow")
+    public ScheduledExecutorService judgeQueuePoller() {
+        CustomizableThreadFactory threadFactory = new CustomizableThreadFactory("judge-queue-poller-");
+        threadFactory.setDaemon(true);
+        return Executors.newSingleThreadScheduledExecutor(threadFactory);
+    }
+
+    // 執行測資用的共用執行緒池，所有submission的測資都在這裡啟動與比對，行程執行期間不佔用執行緒
+    @Bean(destroyMethod = "shutdown")
+    public ExecutorService judgeCaseExecutor(@Value("${judge.parallel.max-runs:0}") int maxRuns) {
+        int size = maxRuns > 0 ? maxRuns : Runtime.getRuntime().availableProcessors();
+        return Executors.newFixedThreadPool(size, new CustomizableThreadFactory("judge-case-"));
+    }
+
+    // 全域同時執行的測資數上限，所有submission共用
+    @Bean
+    public Semaphore judgeRunSlots(@Value("${judge.parallel.max-runs:0}") int maxRuns) {
+        return new Semaphore(maxRuns > 0 ? maxRuns : Runtime.getRuntime().availableProcessors());
+    }
+
+    // 抄襲比對用的ForkJoin pool，與批改的執行緒池分開，整題比對時不會佔住批改的執行緒
+    @Bean(destroyMethod = "shutdown")
+    public ForkJoinPool copyDetectionPool(@Value("${judge.copy.parallelism:0}") int parallelism) {
+        return new ForkJoinPool(parallelism > 0 ? parallelism : Runtime.getRuntime().availableProcessors());
+    }
+
+    // 預先啟動的Python fork server，每次執行都在新fork的子行程中進行，省去直譯器啟動與import的時間
+    @Bean(destroyMethod = "close")
+    @ConditionalOnProperty(name = "judge.python.pool.enabled", havingValue = "true")
+    public PythonWorkerPool pythonWorkerPool(@Value("${judge.python.command:python}") String pythonCommand,
+                                             @Value("${judge.python.pool.size:0}") int size) throws IOException {
+        return new PythonWorkerPool(pythonCommand, size > 0 ? size : Runtime.getRuntime().availableProcessors());
+    }
+
+    // 以代碼雜湊為key的編譯快取，依磁碟空間上限做LRU淘汰
+    @Bean
+    @ConditionalOnProperty(name = "judge.compile-cache.enabled", havingValue = "true")
+    public CompilationCache compilationCache(@Value("${judge.compile-cache.dir:judge-cache}") String directory,
+                                             @Value("${judge.compile-cache.max-mb:512}") long maxMegabytes,
+                                             @Value("${judge.compile-cache.normalize:false}") boolean isNormalize) throws IOException {
+        return new CompilationCache(new File(directory), maxMegabytes * 1024 * 1024, isNormalize);
+    }
+
+    // 每個submission獨立的工作目錄，root可設在tmpfs上，使用完畢後在背景刪除
+    @Bean(destroyMethod = "close")
+    public WorkspaceManager workspaceManager(@Value("${judge.workspace.root:judge}") String root,
+                                             @Value("${judge.workspace.quota-mb:64}") long quotaMegabytes) throws IOException {
+        return new WorkspaceManager(new File(root), quotaMegabytes * 1024 * 1024);
+    }
+
+    // 每次執行測資時以cgroup v2(不可用時退回rlimit)限制CPU、記憶體與行程數
+    @Bean
+    @ConditionalOnProperty(name = "judge.sandbox.enabled", havingValue = "true")
+    public SandboxFactory sandboxFactory(@Value("${judge.sandbox.cgroup-root:/sys/fs/cgroup/judge}") String cgroupRoot,
+                                         @Value("${judge.case.memory-limit-mb:256}") long memoryMegabytes,
+                                         @Value("${judge.sandbox.max-processes:128}") int maxProcesses) {
+        return new SandboxFactory(new File(cgroupRoot), memoryMegabytes * 1024 * 1024, maxProcesses);
+    }
+
+    // 判題節點登記表，啟用後批改工作依剩餘容量分派給本機或遠端的判題節點
+    @Bean
+    @ConditionalOnProperty(name = "judge.worker.enabled", havingValue = "true")
+    public JudgeWorkerRegistry judgeWorkerRegistry(@Value("${judge.worker.timeout-seconds:30}") long timeoutSeconds,
+                                                   @Value("${judge.worker.job-timeout-seconds:600}") long jobTimeoutSeconds) {
+        return new JudgeWorkerRegistry(TimeUnit.SECONDS.toMillis(timeoutSeconds), TimeUnit.SECONDS.toMillis(jobTimeoutSeconds));
+    }
+}
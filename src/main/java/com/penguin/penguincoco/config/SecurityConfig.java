@@ -67,12 +67,19 @@ public class SecurityConfig extends WebSecurityConfigurerAdapter {
                 .antMatchers("/api/problem/deleteProblem")
                 .access("hasAnyRole('assistant', 'teacher', 'admin')")
                 .antMatchers("/api/judge/judgeCode").hasRole("student")
+                .antMatchers("/api/judge/submissionStatus").hasRole("student")
                 .antMatchers("/api/judge/judgedInfo")
                 .access("hasAnyRole('admin', 'assistant', 'teacher', 'student')")
                 .antMatchers("/api/judge/checkJudged")
                 .access("hasAnyRole('admin', 'assistant', 'teacher', 'student')")
                 .antMatchers("/api/judge/judgeCopy")
                 .access("hasAnyRole('admin', 'assistant', 'teacher')")
+                .antMatchers("/api/judge/rejudge")
+                .access("hasAnyRole('admin', 'teacher')")
+                .antMatchers("/api/judge/metrics")
+                .access("hasAnyRole('admin', 'teacher')")
+                .antMatchers("/api/worker/**")
+                .permitAll()
                 .antMatchers("/api/teacher/**").hasRole("teacher")
                 .antMatchers("/api/assistant/**").hasRole("assistant")
                 .antMatchers("/api/course/getCourses")
@@ -0,0 +1,39 @@
+package com.penguin.penguincoco.dao.domain.copy;
+
+import com.penguin.penguincoco.dao.domain.base.BaseEntity;
+import com.penguin.penguincoco.dao.domain.problem.Problem;
+import com.vladmihalcea.hibernate.type.array.IntArrayType;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import org.hibernate.annotations.Type;
+import org.hibernate.annotations.TypeDef;
+
+import javax.persistence.*;
+
+// 學生在某題最新代碼的winnowing指紋，抄襲比對時以此建立反向索引，代碼沒變就不必重新計算
+@TypeDef(name = "int-array", typeClass = IntArrayType.class)
+@Entity
+@Table(uniqueConstraints = @UniqueConstraint(columnNames = {"problem_id", "account"}))
+@NoArgsConstructor
+@Getter
+@Setter
+public class CodeFingerprint extends BaseEntity {
+
+    @ManyToOne(cascade = {CascadeType.MERGE, CascadeType.REFRESH}, optional = false)
+    @JoinColumn(name = "problem_id")
+    private Problem problem;
+    private String account;
+    // 代碼與指紋參數的摘要，不同時表示需要重新計算
+    private String signature;
+    @Type(type = "int-array")
+    @Column(columnDefinition = "integer[]")
+    private int[] fingerprints;
+
+    public CodeFingerprint(Problem problem, String account, String signature, int[] fingerprints) {
+        this.problem = problem;
+        this.account = account;
+        this.signature = signature;
+        this.fingerprints = fingerprints;
+    }
+}
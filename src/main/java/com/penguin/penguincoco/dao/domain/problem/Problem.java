@@ -52,6 +52,10 @@ public class Problem extends BaseEntity {
     @Type(type = "string-array")
     @Column(name = "pattern", columnDefinition = "text[]")
     private String[] pattern;
+    // 批改策略(JudgePolicy名稱)，null為執行所有測資
+    private String judgePolicy;
+    // 抄襲比對演算法(SimilarityAlgorithmType名稱)，null為使用全域設定
+    private String similarityAlgorithm;
     @OneToMany(mappedBy = "problem", cascade = CascadeType.ALL, fetch = FetchType.LAZY)
     private List<Copy> copies;
     @OneToMany(mappedBy = "problem", cascade = CascadeType.ALL, fetch = FetchType.LAZY)
@@ -81,4 +85,10 @@ public class Problem extends BaseEntity {
         this.teams = teams;
     }
 
+    // 答對率由答對數、答錯數推導，批改時只需原子地累加兩個計數
+    public double getCorrectRate() {
+        int judgedNum = correctNum + incorrectNum;
+        return judgedNum == 0 ? 0 : (double) correctNum / judgedNum;
+    }
+
 }
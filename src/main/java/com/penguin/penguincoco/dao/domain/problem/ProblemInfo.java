@@ -27,4 +27,6 @@ public class ProblemInfo {
     private double correctRate;
     private String bestStudentAccount;
     private String[] pattern;
+    private String judgePolicy;
+    private String similarityAlgorithm;
 }
@@ -15,5 +15,11 @@ public class TestCase implements Serializable {
 
     private String inputSample;
     private String outputSample;
+    // 範例測資，SAMPLE_FIRST批改策略會先執行
+    private boolean sample;
+
+    public TestCase(String inputSample, String outputSample) {
+        this(inputSample, outputSample, false);
+    }
 
 }
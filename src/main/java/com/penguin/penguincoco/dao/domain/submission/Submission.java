@@ -0,0 +1,62 @@
+package com.penguin.penguincoco.dao.domain.submission;
+
+import com.penguin.penguincoco.dao.domain.base.BaseEntity;
+import com.vladmihalcea.hibernate.type.json.JsonStringType;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import org.hibernate.annotations.Type;
+import org.hibernate.annotations.TypeDef;
+
+import javax.persistence.*;
+import java.util.Date;
+import java.util.Map;
+
+// 同一學生同一題目最多只有一筆排隊中的submission，需建立部分唯一索引：
+// create unique index submission_queued_uk on submission (account, problem_id) where status = 'QUEUED'
+@TypeDef(name = "json", typeClass = JsonStringType.class)
+@Entity
+@NoArgsConstructor
+@Getter
+@Setter
+public class Submission extends BaseEntity {
+
+    @Column(unique = true, nullable = false)
+    private String submissionId;
+    private Long problemId;
+    private String account;
+    @Column(columnDefinition = "text")
+    private String code;
+    private String language;
+    // SubmissionStatus名稱
+    private String status;
+    // JudgePriority的順序，數字越小越優先
+    private int priority;
+    // 已被認領的次數，超過上限就不再重試
+    private int attempts;
+    // 認領此submission的節點
+    private String workerId;
+    @Temporal(TemporalType.TIMESTAMP)
+    private Date submitTime;
+    // 認領後的租約期限，期限內未完成也未續約視為該節點失效，其他節點可重新認領
+    @Temporal(TemporalType.TIMESTAMP)
+    private Date leaseExpireTime;
+    @Temporal(TemporalType.TIMESTAMP)
+    private Date finishTime;
+    @Type(type = "json")
+    @Column(columnDefinition = "json")
+    private Map<String, Object> report;
+    private String errorMessage;
+    private String replacedBy;
+
+    public Submission(String submissionId, Long problemId, String account, String code, String language, String status, int priority) {
+        this.submissionId = submissionId;
+        this.problemId = problemId;
+        this.account = account;
+        this.code = code;
+        this.language = language;
+        this.status = status;
+        this.priority = priority;
+        this.submitTime = new Date();
+    }
+}
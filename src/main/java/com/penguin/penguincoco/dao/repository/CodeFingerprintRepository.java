@@ -0,0 +1,14 @@
+package com.penguin.penguincoco.dao.repository;
+
+import com.penguin.penguincoco.dao.domain.copy.CodeFingerprint;
+import com.penguin.penguincoco.dao.domain.problem.Problem;
+import com.penguin.penguincoco.dao.repository.base.BaseRepository;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+@Repository
+public interface CodeFingerprintRepository extends BaseRepository<CodeFingerprint, Long> {
+
+    List<CodeFingerprint> findByProblem(Problem problem);
+}
@@ -16,6 +16,9 @@ public interface ProblemRepository extends BaseRepository<Problem, Long> {
 
     Optional<Problem> findByName(String name);
 
+    @Query("select p.bestStudentAccount from Problem p where p.id=:problemId")
+    Optional<String> findBestStudentAccountById(@Param("problemId") Long problemId);
+
     void deleteByName(String name);
 
     List<Problem> findByCourse(Course course);
@@ -29,5 +32,17 @@ public interface ProblemRepository extends BaseRepository<Problem, Long> {
     int updateRateByProblemId(@Param("problemId") Long problemId,
                    @Param("rate") double rate);
 
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("update Problem set correctNum=correctNum + :correctDelta, incorrectNum=incorrectNum + :incorrectDelta where id=:problemId")
+    int incrementJudgeNumByProblemId(@Param("problemId") Long problemId,
+                                     @Param("correctDelta") int correctDelta,
+                                     @Param("incorrectDelta") int incorrectDelta);
+
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("update Problem set bestStudentAccount=:account where id=:problemId and bestStudentAccount=:expectedAccount")
+    int compareAndSetBestStudentAccount(@Param("problemId") Long problemId,
+                                        @Param("expectedAccount") String expectedAccount,
+                                        @Param("account") String account);
+
     int countByBestStudentAccountAndCourse(String account, Course course);
 }
@@ -3,11 +3,13 @@ package com.penguin.penguincoco.dao.repository;
 import com.penguin.penguincoco.dao.domain.student.Student;
 import com.penguin.penguincoco.dao.domain.student.StudentInfo;
 import com.penguin.penguincoco.dao.repository.base.BaseRepository;
+import org.springframework.data.jpa.repository.Lock;
 import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import javax.persistence.LockModeType;
 import java.util.List;
 import java.util.Optional;
 
@@ -18,6 +20,10 @@ public interface StudentRepository extends BaseRepository<Student, Long> {
 
     Optional<Student> findByAccount(String account);
 
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("select s from Student s where s.account=:account")
+    Optional<Student> findByAccountForUpdate(@Param("account") String account);
+
     Optional<Student> findByName(String name);
 
     @Modifying(clearAutomatically = true)
@@ -0,0 +1,57 @@
+package com.penguin.penguincoco.dao.repository;
+
+import com.penguin.penguincoco.dao.domain.submission.Submission;
+import com.penguin.penguincoco.dao.repository.base.BaseRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import javax.persistence.LockModeType;
+import java.util.Collection;
+import java.util.Date;
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface SubmissionRepository extends BaseRepository<Submission, Long> {
+
+    Optional<Submission> findBySubmissionId(String submissionId);
+
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("select s from Submission s where s.submissionId=:submissionId")
+    Optional<Submission> findBySubmissionIdForUpdate(@Param("submissionId") String submissionId);
+
+    // 排隊中或租約已過期的submission，已被其他節點鎖住的直接略過
+    @Query(value = "select * from submission where status = 'QUEUED' " +
+            "or (status in ('COMPILING', 'RUNNING') and lease_expire_time < :now) " +
+            "order by priority, id limit :limit for update skip locked", nativeQuery = true)
+    List<Submission> findClaimable(@Param("now") Date now, @Param("limit") int limit);
+
+    @Modifying(clearAutomatically = true)
+    @Query("update Submission set status='REPLACED', replacedBy=:replacedBy, finishTime=:now " +
+            "where account=:account and problemId=:problemId and status='QUEUED'")
+    int replaceQueued(@Param("account") String account,
+                      @Param("problemId") Long problemId,
+                      @Param("replacedBy") String replacedBy,
+                      @Param("now") Date now);
+
+    @Modifying(clearAutomatically = true)
+    @Query("update Submission set leaseExpireTime=:leaseExpireTime " +
+            "where submissionId in :submissionIds and workerId=:workerId and status in ('COMPILING', 'RUNNING')")
+    int extendLease(@Param("submissionIds") Collection<String> submissionIds,
+                    @Param("workerId") String workerId,
+                    @Param("leaseExpireTime") Date leaseExpireTime);
+
+    @Modifying(clearAutomatically = true)
+    @Query("update Submission set status=:status " +
+            "where submissionId=:submissionId and workerId=:workerId and status in ('COMPILING', 'RUNNING')")
+    int updateStatus(@Param("submissionId") String submissionId,
+                     @Param("workerId") String workerId,
+                     @Param("status") String status);
+
+    @Modifying(clearAutomatically = true)
+    @Query("delete from Submission where finishTime < :expiredTime")
+    int deleteByFinishTimeBefore(@Param("expiredTime") Date expiredTime);
+}
@@ -0,0 +1,92 @@
+package com.penguin.penguincoco.lib.judge;
+
+import com.penguin.penguincoco.lib.model.JudgeProblemResult;
+import com.penguin.penguincoco.lib.model.JudgeSymbol;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+// 各題目每個測資的歷史執行數與未通過數，用來決定FAILING_FIRST策略的執行順序
+public class CaseFailureStatistics {
+
+    private Map<Long, CaseCounts> problems = new ConcurrentHashMap<>();
+
+    // 題目的統計已載入且測資數沒有變動
+    public boolean isLoaded(Long problemId, int caseNum) {
+        CaseCounts counts = problems.get(problemId);
+        return counts != null && counts.runs.length() == caseNum;
+    }
+
+    // 以歷史代碼的symbol清單(JudgeSymbol的description)建立統計，測資數不同的紀錄(題目修改前)不採計
+    public void load(Long problemId, int caseNum, List<List<String>> symbolLists) {
+        CaseCounts counts = new CaseCounts(caseNum);
+        for (List<String> symbols : symbolLists) {
+            if (symbols != null && symbols.size() == caseNum) {
+                for (int i = 0; i < caseNum; i++) {
+                    counts.add(i, symbols.get(i));
+                }
+            }
+        }
+        problems.put(problemId, counts);
+    }
+
+    // 每次批改後累加，尚未載入的題目等第一次使用時再從資料庫建立
+    public void record(Long problemId, List<JudgeProblemResult> results) {
+        CaseCounts counts = problems.get(problemId);
+        if (counts == null || counts.runs.length() != results.size()) {
+            return;
+        }
+        for (int i = 0; i < results.size(); i++) {
+            counts.add(i, results.get(i).getSymbol().getDescription());
+        }
+    }
+
+    // 依未通過率(加上平滑避免沒有紀錄的測資排在最後)由高到低排序，相同時維持原本順序
+    // 統計可能同時被其他批改累加，先取得快照再排序，避免比較結果在排序途中改變
+    public List<Integer> getFailingFirstOrder(Long problemId, int caseNum) {
+        List<Integer> order = new ArrayList<>();
+        for (int i = 0; i < caseNum; i++) {
+            order.add(i);
+        }
+        CaseCounts counts = problems.get(problemId);
+        if (counts != null && counts.runs.length() == caseNum) {
+            double[] failureRates = new double[caseNum];
+            for (int i = 0; i < caseNum; i++) {
+                failureRates[i] = counts.getFailureRate(i);
+            }
+            order.sort(Comparator.comparingDouble((Integer index) -> failureRates[index]).reversed());
+        }
+        return order;
+    }
+
+    private static class CaseCounts {
+
+        private AtomicLongArray runs;
+        private AtomicLongArray failures;
+
+        private CaseCounts(int caseNum) {
+            this.runs = new AtomicLongArray(caseNum);
+            this.failures = new AtomicLongArray(caseNum);
+        }
+
+        // 編譯錯誤、略過與系統錯誤的測資不代表該測資的難度，不列入統計
+        private void add(int index, String description) {
+            if (JudgeSymbol.CE.getDescription().equals(description) || JudgeSymbol.SKIP.getDescription().equals(description)
+                    || JudgeSymbol.SE.getDescription().equals(description)) {
+                return;
+            }
+            runs.incrementAndGet(index);
+            if (!JudgeSymbol.AC.getDescription().equals(description)) {
+                failures.incrementAndGet(index);
+            }
+        }
+
+        private double getFailureRate(int index) {
+            return (failures.get(index) + 1.0) / (runs.get(index) + 2.0);
+        }
+    }
+}
@@ -0,0 +1,139 @@
+package com.penguin.penguincoco.lib.judge;
+
+import org.apache.commons.io.FileUtils;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+// 每次執行建立一個cgroup v2子群組，設定cpu.max、memory.max、pids.max，結束後從cgroup統計讀取CPU時間與記憶體峰值
+public class CgroupSandbox extends Sandbox {
+
+    // cpu.max的週期(微秒)，配額與週期相同即限制最多使用一個核心
+    private static final long CPU_PERIOD_MICROS = 100000;
+
+    private File directory;
+    // 讀取統計或結束行程失敗的原因，collect時回報讓該測資判為系統錯誤
+    private volatile String sandboxError;
+
+    public CgroupSandbox(File root, ResourceLimits limits) throws IOException {
+        super(limits);
+        this.directory = new File(root, UUID.randomUUID().toString());
+        FileUtils.forceMkdir(directory);
+        try {
+            write("cpu.max", CPU_PERIOD_MICROS + " " + CPU_PERIOD_MICROS);
+            write("memory.max", String.valueOf(limits.getMemoryBytes()));
+            write("pids.max", String.valueOf(limits.getMaxProcesses()));
+            File swapMax = new File(directory, "memory.swap.max");
+            if (swapMax.exists()) {
+                write("memory.swap.max", "0");
+            }
+        } catch (IOException e) {
+            close();
+            throw e;
+        }
+    }
+
+    // 由shell先將自己加入cgroup再exec原本的指令，確保子行程從第一條指令開始就受限制
+    @Override
+    public List<String> wrap(List<String> command) {
+        List<String> wrapped = new ArrayList<>();
+        wrapped.add("sh");
+        wrapped.add("-c");
+        wrapped.add("echo $$ > \"$0/cgroup.procs\" && exec \"$@\"");
+        wrapped.add(directory.getAbsolutePath());
+        wrapped.addAll(command);
+        return wrapped;
+    }
+
+    @Override
+    public ResourceUsage collect(int exitCode, String error) {
+        double cpuTimeMillis = readStat("cpu.stat", "usage_usec") / 1000.0;
+        long peakMemory = readValue("memory.peak");
+        boolean isOomKilled = readStat("memory.events", "oom_kill") > 0;
+        boolean isProcessLimitHit = readStat("pids.events", "max") > 0;
+        return new ResourceUsage(cpuTimeMillis, peakMemory,
+                cpuTimeMillis > limits.getCpuTimeMillis(),
+                isOomKilled || (exitCode != 0 && peakMemory >= limits.getMemoryBytes()),
+                exitCode != 0 && isProcessLimitHit, sandboxError);
+    }
+
+    @Override
+    public File getCgroupDirectory() {
+        return directory;
+    }
+
+    // cgroup包含所有子孫行程(不論是否已被重新掛到init底下)，可以完整結束整個行程樹
+    @Override
+    public void killAll() {
+        File kill = new File(directory, "cgroup.kill");
+        try {
+            if (kill.exists()) {
+                write("cgroup.kill", "1");
+            }
+            else {
+                for (String pid : FileUtils.readLines(new File(directory, "cgroup.procs"), StandardCharsets.UTF_8)) {
+                    if (!pid.isEmpty()) {
+                        ProcessHandle.of(Long.parseLong(pid.trim())).ifPresent(ProcessHandle::destroyForcibly);
+                    }
+                }
+            }
+        } catch (IOException | NumberFormatException e) {
+            // 無法確定行程都已結束，不能把這次執行當作正常結果
+            recordError("cgroup kill failed: " + e.getMessage());
+        }
+    }
+
+    // 結束cgroup中殘留的行程後移除cgroup
+    @Override
+    public void close() {
+        killAll();
+        // 行程被結束後cgroup需要一點時間才會清空，無法移除時稍候重試
+        for (int i = 0; i < 50 && directory.exists() && !directory.delete(); i++) {
+            try {
+                Thread.sleep(10);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+    }
+
+    // 只保留第一個錯誤，後續的錯誤通常是它造成的
+    private void recordError(String message) {
+        if (sandboxError == null) {
+            sandboxError = message;
+        }
+    }
+
+    private void write(String name, String value) throws IOException {
+        FileUtils.writeStringToFile(new File(directory, name), value, StandardCharsets.UTF_8);
+    }
+
+    private long readValue(String name) {
+        try {
+            File file = new File(directory, name);
+            return file.exists() ? Long.parseLong(FileUtils.readFileToString(file, StandardCharsets.UTF_8).trim()) : -1;
+        } catch (IOException | NumberFormatException e) {
+            return -1;
+        }
+    }
+
+    // 讀取"key value"格式統計檔中的值
+    private long readStat(String name, String key) {
+        try {
+            for (String line : FileUtils.readLines(new File(directory, name), StandardCharsets.UTF_8)) {
+                String[] fields = line.trim().split("\\s+");
+                if (fields.length == 2 && fields[0].equals(key)) {
+                    return Long.parseLong(fields[1]);
+                }
+            }
+        } catch (IOException | NumberFormatException e) {
+            recordError("cgroup stat " + name + " unreadable: " + e.getMessage());
+        }
+        return 0;
+    }
+}
@@ -0,0 +1,223 @@
+package com.penguin.penguincoco.lib.judge;
+
+import com.penguin.penguincoco.lib.model.CodeUtils;
+import com.penguin.penguincoco.lib.model.Language;
+import org.apache.commons.io.FileUtils;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.*;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+public class CompilationCache {
+
+    private static final String RESULT_FILE = ".result";
+    private static final String SUCCESS = "SUCCESS";
+    private static final Pattern STRING_LITERAL = Pattern.compile("\"(\\\\.|[^\"\\\\\\n])*\"|'(\\\\.|[^'\\\\\\n])*'");
+
+    private File root;
+    private long maxBytes;
+    private boolean isNormalize;
+    // 依存取順序排列的快取項目(key -> 佔用位元組)，最久未使用的排在最前面
+    private LinkedHashMap<String, Long> entries = new LinkedHashMap<>(16, 0.75f, true);
+    private long totalBytes;
+    private AtomicLong hitCount = new AtomicLong();
+    private AtomicLong missCount = new AtomicLong();
+
+    public CompilationCache(File root, long maxBytes, boolean isNormalize) throws IOException {
+        this.root = root;
+        this.maxBytes = maxBytes;
+        this.isNormalize = isNormalize;
+        FileUtils.forceMkdir(root);
+        loadEntries();
+    }
+
+    // 查詢快取，命中時將class檔複製到buildDirectory並回傳當時的編譯結果，未命中回傳null
+    public CompileResult load(Language language, String compilerVersion, String code, File buildDirectory) {
+        for (String key : keys(language, compilerVersion, code)) {
+            File entry = new File(root, key);
+            if (!touch(key)) {
+                continue;
+            }
+            try {
+                String result = FileUtils.readFileToString(new File(entry, RESULT_FILE), StandardCharsets.UTF_8);
+                File[] files = entry.listFiles(file -> !file.getName().equals(RESULT_FILE));
+                if (files != null) {
+                    for (File file : files) {
+                        FileUtils.copyFileToDirectory(file, buildDirectory, false);
+                    }
+                }
+                hitCount.incrementAndGet();
+                return SUCCESS.equals(result) ? CompileResult.success() : CompileResult.failure(result);
+            } catch (IOException e) {
+                // 可能剛好被淘汰，視為未命中
+                remove(key);
+            }
+        }
+        missCount.incrementAndGet();
+        return null;
+    }
+
+    // 將編譯結果存入快取；編譯錯誤訊息含有行號，只存在未正規化的key之下
+    public void store(Language language, String compilerVersion, String code, CompileResult result, File buildDirectory) {
+        List<String> keys = keys(language, compilerVersion, code);
+        String key = result.isSuccess() ? keys.get(0) : keys.get(keys.size() - 1);
+        File temp = new File(root, ".tmp-" + UUID.randomUUID());
+        try {
+            FileUtils.forceMkdir(temp);
+            if (result.isSuccess()) {
+                File[] classFiles = buildDirectory.listFiles(file -> file.getName().endsWith(".class"));
+                if (classFiles != null) {
+                    for (File classFile : classFiles) {
+                        FileUtils.copyFileToDirectory(classFile, temp, false);
+                    }
+                }
+            }
+            FileUtils.writeStringToFile(new File(temp, RESULT_FILE),
+                    result.isSuccess() ? SUCCESS : result.getErrorMessage(), StandardCharsets.UTF_8);
+            File entry = new File(root, key);
+            if (entry.exists()) {
+                FileUtils.deleteQuietly(temp);
+                return;
+            }
+            Files.move(temp.toPath(), entry.toPath(), StandardCopyOption.ATOMIC_MOVE);
+            add(key, FileUtils.sizeOfDirectory(entry));
+        } catch (IOException e) {
+            FileUtils.deleteQuietly(temp);
+        }
+    }
+
+    public long getHitCount() {
+        return hitCount.get();
+    }
+
+    public long getMissCount() {
+        return missCount.get();
+    }
+
+    public synchronized long getTotalBytes() {
+        return totalBytes;
+    }
+
+    public synchronized int getEntryCount() {
+        return entries.size();
+    }
+
+    // 依序回傳要查詢的key:正規化後的key(若啟用)在前，原始代碼的key在後
+    private List<String> keys(Language language, String compilerVersion, String code) {
+        String prefix = language.name() + '\u0000' + compilerVersion + '\u0000';
+        String exactKey = sha256Hex(prefix + code);
+        String normalized = normalize(language, code);
+        if (normalized == null) {
+            return Collections.singletonList(exactKey);
+        }
+        return Arrays.asList(sha256Hex(prefix + "normalized\u0000" + normalized), exactKey);
+    }
+
+    // 去除註解並將字串以外的連續空白縮成一個空白
+    // CodeUtils不處理字串內的註解符號，字串中含有註解符號或使用text block時不正規化，以免不同代碼對應到同一個key
+    private String normalize(Language language, String code) {
+        if (!isNormalize || language != Language.JAVA || code.contains("\"\"\"")) {
+            return null;
+        }
+        Matcher matcher = STRING_LITERAL.matcher(code);
+        while (matcher.find()) {
+            if (matcher.group().contains("//") || matcher.group().contains("/*")) {
+                return null;
+            }
+        }
+        String uncommented = CodeUtils.removeJavaComments(code);
+        StringBuilder normalized = new StringBuilder();
+        char quote = 0;
+        boolean isPendingBlank = false;
+        for (int i = 0; i < uncommented.length(); i++) {
+            char c = uncommented.charAt(i);
+            if (quote != 0) {
+                normalized.append(c);
+                if (c == '\\' && i + 1 < uncommented.length()) {
+                    normalized.append(uncommented.charAt(++i));
+                }
+                else if (c == quote) {
+                    quote = 0;
+                }
+            }
+            else if (Character.isWhitespace(c)) {
+                isPendingBlank = normalized.length() > 0;
+            }
+            else {
+                if (isPendingBlank) {
+                    normalized.append(' ');
+                    isPendingBlank = false;
+                }
+                if (c == '"' || c == '\'') {
+                    quote = c;
+                }
+                normalized.append(c);
+            }
+        }
+        return normalized.toString();
+    }
+
+    private String sha256Hex(String text) {
+        try {
+            StringBuilder hex = new StringBuilder();
+            for (byte b : MessageDigest.getInstance("SHA-256").digest(text.getBytes(StandardCharsets.UTF_8))) {
+                hex.append(String.format("%02x", b));
+            }
+            return hex.toString();
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private synchronized boolean touch(String key) {
+        return entries.get(key) != null;
+    }
+
+    private synchronized void add(String key, long bytes) {
+        entries.put(key, bytes);
+        totalBytes += bytes;
+        Iterator<Map.Entry<String, Long>> iterator = entries.entrySet().iterator();
+        while (totalBytes > maxBytes && iterator.hasNext()) {
+            Map.Entry<String, Long> eldest = iterator.next();
+            if (eldest.getKey().equals(key)) {
+                continue;
+            }
+            iterator.remove();
+            totalBytes -= eldest.getValue();
+            FileUtils.deleteQuietly(new File(root, eldest.getKey()));
+        }
+    }
+
+    private synchronized void remove(String key) {
+        Long bytes = entries.remove(key);
+        if (bytes != null) {
+            totalBytes -= bytes;
+        }
+        FileUtils.deleteQuietly(new File(root, key));
+    }
+
+    // 重新啟動時從磁碟載入既有的快取項目，依最後修改時間排序
+    private void loadEntries() {
+        File[] files = root.listFiles();
+        if (files == null) {
+            return;
+        }
+        Arrays.sort(files, Comparator.comparingLong(File::lastModified));
+        for (File file : files) {
+            if (file.getName().startsWith(".tmp-")) {
+                FileUtils.deleteQuietly(file);
+            }
+            else if (file.isDirectory()) {
+                add(file.getName(), FileUtils.sizeOfDirectory(file));
+            }
+        }
+    }
+}
@@ -0,0 +1,28 @@
+package com.penguin.penguincoco.lib.judge;
+
+public class CompileResult {
+
+    private boolean isSuccess;
+    private String errorMessage;
+
+    public CompileResult(boolean isSuccess, String errorMessage) {
+        this.isSuccess = isSuccess;
+        this.errorMessage = errorMessage;
+    }
+
+    public static CompileResult success() {
+        return new CompileResult(true, null);
+    }
+
+    public static CompileResult failure(String errorMessage) {
+        return new CompileResult(false, errorMessage);
+    }
+
+    public boolean isSuccess() {
+        return isSuccess;
+    }
+
+    public String getErrorMessage() {
+        return errorMessage;
+    }
+}
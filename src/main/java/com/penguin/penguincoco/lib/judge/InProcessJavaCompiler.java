@@ -0,0 +1,119 @@
+package com.penguin.penguincoco.lib.judge;
+
+import com.penguin.penguincoco.lib.model.Command;
+
+import javax.tools.*;
+import java.io.File;
+import java.io.IOException;
+import java.net.URI;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+public class InProcessJavaCompiler implements SubmissionCompiler {
+
+    private static final List<String> OPTIONS = Arrays.asList("-proc:none", "-nowarn", "-Xlint:none");
+    private static final InProcessJavaCompiler INSTANCE = new InProcessJavaCompiler();
+
+    private JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+    // JDK平台類別的查詢結果，所有編譯共用，避免每次編譯都重新掃描JDK
+    private Map<String, List<JavaFileObject>> platformCache = new ConcurrentHashMap<>();
+
+    private InProcessJavaCompiler() {
+
+    }
+
+    public static InProcessJavaCompiler getInstance() {
+        return INSTANCE;
+    }
+
+    // 以JRE而非JDK執行時沒有內建編譯器，須退回外部javac
+    public static boolean isAvailable() {
+        return INSTANCE.compiler != null;
+    }
+
+    // 在伺服器JVM內編譯，代碼從記憶體讀取，class檔直接寫入buildDirectory，診斷訊息轉為javac格式
+    @Override
+    public CompileResult compile(Command command, String code, File buildDirectory) throws IOException {
+        DiagnosticCollector<JavaFileObject> diagnostics = new DiagnosticCollector<>();
+        StandardJavaFileManager standardFileManager = compiler.getStandardFileManager(diagnostics, Locale.getDefault(), null);
+        standardFileManager.setLocation(StandardLocation.CLASS_PATH, Collections.emptyList());
+        standardFileManager.setLocation(StandardLocation.CLASS_OUTPUT, Collections.singletonList(buildDirectory));
+
+        try (JavaFileManager fileManager = new PlatformCachingFileManager(standardFileManager)) {
+            JavaFileObject source = new SourceFileObject(command.getFileName(), code);
+            boolean isSuccess = compiler.getTask(null, fileManager, diagnostics, OPTIONS, null,
+                    Collections.singletonList(source)).call();
+            if (isSuccess) {
+                return CompileResult.success();
+            }
+            return CompileResult.failure(formatDiagnostics(command.getFileName(), diagnostics.getDiagnostics()));
+        }
+    }
+
+    @Override
+    public String getVersion(Command command) {
+        return "javax.tools/" + System.getProperty("java.vm.vendor") + "/" + System.getProperty("java.version");
+    }
+
+    private String formatDiagnostics(String fileName, List<Diagnostic<? extends JavaFileObject>> diagnostics) {
+        StringBuilder message = new StringBuilder();
+        int errorCount = 0;
+        for (Diagnostic<? extends JavaFileObject> diagnostic : diagnostics) {
+            if (diagnostic.getKind() != Diagnostic.Kind.ERROR) {
+                continue;
+            }
+            errorCount++;
+            message.append(fileName).append(':').append(diagnostic.getLineNumber())
+                    .append(": error: ").append(diagnostic.getMessage(Locale.getDefault()))
+                    .append(System.lineSeparator());
+        }
+        message.append(errorCount).append(errorCount == 1 ? " error" : " errors");
+        return message.toString();
+    }
+
+    private static class SourceFileObject extends SimpleJavaFileObject {
+
+        private String code;
+
+        SourceFileObject(String fileName, String code) {
+            super(URI.create("string:///" + fileName), Kind.SOURCE);
+            this.code = code;
+        }
+
+        @Override
+        public CharSequence getCharContent(boolean ignoreEncodingErrors) {
+            return code;
+        }
+    }
+
+    // 快取JDK平台類別的list結果，其餘位置(學生代碼、輸出目錄)照常交給StandardJavaFileManager
+    private class PlatformCachingFileManager extends ForwardingJavaFileManager<StandardJavaFileManager> {
+
+        PlatformCachingFileManager(StandardJavaFileManager fileManager) {
+            super(fileManager);
+        }
+
+        @Override
+        public Iterable<JavaFileObject> list(Location location, String packageName,
+                                             Set<JavaFileObject.Kind> kinds, boolean recurse) throws IOException {
+            if (!isPlatformLocation(location)) {
+                return super.list(location, packageName, kinds, recurse);
+            }
+            String key = location.getName() + '|' + packageName + '|' + kinds + '|' + recurse;
+            List<JavaFileObject> cached = platformCache.get(key);
+            if (cached == null) {
+                cached = new ArrayList<>();
+                for (JavaFileObject fileObject : super.list(location, packageName, kinds, recurse)) {
+                    cached.add(fileObject);
+                }
+                platformCache.put(key, cached);
+            }
+            return cached;
+        }
+
+        private boolean isPlatformLocation(Location location) {
+            return location == StandardLocation.PLATFORM_CLASS_PATH
+                    || location.getName().startsWith(StandardLocation.SYSTEM_MODULES.getName());
+        }
+    }
+}
@@ -0,0 +1,109 @@
+package com.penguin.penguincoco.lib.judge;
+
+import java.io.*;
+import java.lang.management.ManagementFactory;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.net.InetAddress;
+import java.net.Socket;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.List;
+
+// 在子JVM中執行，依序批改多個測資，不可依賴JDK以外的類別(會被單獨複製到暫存目錄執行)
+// 參數: <編譯目錄> <測資清單檔> <批改端的loopback連接埠>，清單每行為 "<測資編號>\t<測資目錄>\t<時間上限毫秒>"
+// 啟動後先從標準輸入讀取一行nonce並連線到批改端，連線後先送出nonce，每個測資結束後送出 "<nonce> <OK|RE|TLE> <測資編號> <執行奈秒> [main執行緒CPU奈秒]"
+// 學生代碼執行前連線就已建立且只有這一條，送出的內容學生代碼讀不到；nonce不在參數、環境變數或檔案中，讀不到就無法偽造結果
+// 批改端另外以自己的看門狗限制每個測資的時間，不只依賴這裡回報的TLE
+public class JavaCaseHarness {
+
+    public static final String RESULT_OK = "OK";
+    public static final String RESULT_RE = "RE";
+    public static final String RESULT_TLE = "TLE";
+
+    private static volatile PrintStream currentOut;
+    private static volatile PrintStream currentErr;
+
+    public static void main(String[] args) throws Exception {
+        URL buildUrl = new File(args[0]).toURI().toURL();
+        List<String> manifest = Files.readAllLines(Paths.get(args[1]), StandardCharsets.UTF_8);
+        String nonce = new BufferedReader(new InputStreamReader(System.in, StandardCharsets.US_ASCII)).readLine();
+        Socket connection = new Socket(InetAddress.getLoopbackAddress(), Integer.parseInt(args[2]));
+        PrintStream protocol = new PrintStream(new BufferedOutputStream(connection.getOutputStream()), false, "US-ASCII");
+        protocol.println(nonce);
+        protocol.flush();
+        // 學生代碼呼叫System.exit時，確保已輸出的內容寫入檔案
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+            if (currentOut != null) {
+                currentOut.flush();
+            }
+            if (currentErr != null) {
+                currentErr.flush();
+            }
+        }));
+
+        for (String line : manifest) {
+            if (line.isEmpty()) {
+                continue;
+            }
+            String[] fields = line.split("\t");
+            String index = fields[0];
+            File directory = new File(fields[1]);
+            long timeLimitMillis = Long.parseLong(fields[2]);
+
+            Throwable[] error = new Throwable[1];
+            long[] cpuTime = {-1};
+            long startTime;
+            boolean isFinished;
+            try (InputStream in = new BufferedInputStream(new FileInputStream(new File(directory, ".stdin")));
+                 PrintStream out = new PrintStream(new BufferedOutputStream(new FileOutputStream(new File(directory, ".stdout"))));
+                 PrintStream err = new PrintStream(new BufferedOutputStream(new FileOutputStream(new File(directory, ".stderr"))))) {
+                System.setIn(in);
+                System.setOut(out);
+                System.setErr(err);
+                currentOut = out;
+                currentErr = err;
+                // 每個測資使用新的ClassLoader載入Main，static狀態不會殘留到下一個測資
+                URLClassLoader loader = new URLClassLoader(new URL[]{buildUrl}, ClassLoader.getPlatformClassLoader());
+                Thread thread = new Thread(() -> {
+                    try {
+                        Method mainMethod = loader.loadClass("Main").getMethod("main", String[].class);
+                        mainMethod.invoke(null, (Object) new String[0]);
+                    } catch (InvocationTargetException e) {
+                        error[0] = e.getCause();
+                    } catch (Throwable e) {
+                        error[0] = e;
+                    } finally {
+                        // 執行緒結束後就無法再查詢其CPU時間，必須在執行緒內取得
+                        cpuTime[0] = ManagementFactory.getThreadMXBean().getCurrentThreadCpuTime();
+                    }
+                }, "main");
+                thread.setContextClassLoader(loader);
+                startTime = System.nanoTime();
+                thread.start();
+                thread.join(timeLimitMillis);
+                isFinished = !thread.isAlive();
+                long runTime = System.nanoTime() - startTime;
+                if (error[0] != null) {
+                    err.print("Exception in thread \"main\" ");
+                    error[0].printStackTrace(err);
+                }
+                out.flush();
+                err.flush();
+                if (!isFinished) {
+                    // 無法安全停止仍在執行的學生執行緒，回報TLE後直接結束JVM，剩下的測資由新的JVM接手
+                    protocol.println(nonce + " " + RESULT_TLE + " " + index + " " + runTime);
+                    protocol.flush();
+                    Runtime.getRuntime().halt(0);
+                }
+                protocol.println(nonce + " " + (error[0] == null ? RESULT_OK : RESULT_RE) + " " + index + " " + runTime + " " + cpuTime[0]);
+                protocol.flush();
+                loader.close();
+            }
+        }
+        Runtime.getRuntime().halt(0);
+    }
+}
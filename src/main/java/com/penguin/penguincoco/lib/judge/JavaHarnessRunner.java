@@ -0,0 +1,286 @@
+package com.penguin.penguincoco.lib.judge;
+
+import org.apache.commons.io.FileUtils;
+import org.apache.commons.io.IOUtils;
+
+import java.io.*;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.SocketTimeoutException;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.security.SecureRandom;
+import java.util.*;
+
+public class JavaHarnessRunner {
+
+    private static final String HARNESS_CLASS = JavaCaseHarness.class.getName();
+    // JVM啟動與結束的額外時間(毫秒)，第一個測資的時間上限與整個子JVM的CPU時間上限都要加上
+    private static final long JVM_OVERHEAD_MILLIS = 10000;
+    // harness本身已在時間上限時回報TLE，批改端的時間上限多等這麼久(毫秒)，只在harness失效時才會觸發
+    private static final long HARNESS_MARGIN_MILLIS = 1000;
+    // 結果行的長度上限，超過的行必定不是harness印出的，直接略過
+    private static final int MAX_PROTOCOL_LINE_LENGTH = 256;
+    // 等待harness連線時檢查子JVM是否已結束的間隔(毫秒)
+    private static final int ACCEPT_POLL_MILLIS = 100;
+    private static final SecureRandom RANDOM = new SecureRandom();
+    private static File harnessClassPath;
+
+    private String buildPath;
+    private long timeLimitMillis;
+    private Charset charset;
+    // 每個測資的工作目錄用量上限(bytes)，也作為子JVM寫出的單一檔案大小上限，0表示不限制
+    private long quotaBytes;
+    // 不為null時每個子JVM各自在一個sandbox中執行
+    private SandboxFactory sandboxFactory;
+
+    public JavaHarnessRunner(String buildPath, long timeLimitMillis, Charset charset, long quotaBytes,
+                             SandboxFactory sandboxFactory) {
+        this.buildPath = buildPath;
+        this.timeLimitMillis = timeLimitMillis;
+        this.charset = charset;
+        this.quotaBytes = quotaBytes;
+        this.sandboxFactory = sandboxFactory;
+    }
+
+    // 在同一個子JVM中依序執行多個測資(輸入需已寫入各測資目錄的.stdin)
+    // 子JVM因TLE或學生呼叫System.exit而提前結束時，剩下的測資由新的子JVM接手
+    public Map<Integer, ProcessResult> run(Map<Integer, File> caseDirectories) throws IOException, InterruptedException {
+        Map<Integer, ProcessResult> results = new HashMap<>();
+        List<Integer> remaining = new ArrayList<>(caseDirectories.keySet());
+        while (!remaining.isEmpty()) {
+            // CPU時間上限以整個子JVM計算，每個測資的時間上限由批改端的看門狗負責
+            Sandbox sandbox = sandboxFactory == null ? null
+                    : sandboxFactory.create(timeLimitMillis * remaining.size() + JVM_OVERHEAD_MILLIS);
+            try {
+                runHarness(caseDirectories, remaining, results, sandbox);
+            } finally {
+                if (sandbox != null) {
+                    sandbox.close();
+                }
+            }
+        }
+        return results;
+    }
+
+    // 結果行經由批改端在loopback上開的連線傳回:pipe可以從/proc/self/fd重新開啟讀取，連線則只有harness送出、批改端接收，
+    // 學生代碼讀不到nonce也讀不到結果行。依測資順序只接受目前測資的結果行，同一個測資出現第二行代表有偽造，該測資判為RE
+    private void runHarness(Map<Integer, File> caseDirectories, List<Integer> remaining,
+                            Map<Integer, ProcessResult> results, Sandbox sandbox) throws IOException, InterruptedException {
+        File workDirectory = caseDirectories.get(remaining.get(0)).getParentFile();
+        File manifest = new File(workDirectory, ".manifest-" + remaining.get(0));
+        File harnessError = new File(workDirectory, ".harness-" + remaining.get(0));
+        StringBuilder manifestContent = new StringBuilder();
+        for (Integer index : remaining) {
+            manifestContent.append(index).append('\t')
+                    .append(caseDirectories.get(index).getAbsolutePath()).append('\t')
+                    .append(timeLimitMillis).append('\n');
+        }
+        FileUtils.writeStringToFile(manifest, manifestContent.toString(), StandardCharsets.UTF_8);
+
+        boolean isFinished;
+        boolean isTimeoutReported = false;
+        Set<Integer> reported = new HashSet<>();
+        long sharedBytes = sizeOfSharedFiles(workDirectory, caseDirectories.values());
+        String nonce = createNonce();
+        long caseStartTime = System.nanoTime();
+        Process process;
+        try (ServerSocket server = new ServerSocket(0, 1, InetAddress.getLoopbackAddress())) {
+            // 禁止attach，學生代碼無法以jcmd等工具從子JVM的heap取得nonce
+            List<String> command = Arrays.asList("java", "-XX:+DisableAttachMechanism",
+                    "-cp", getHarnessClassPath().getAbsolutePath(), HARNESS_CLASS,
+                    buildPath, manifest.getAbsolutePath(), String.valueOf(server.getLocalPort()));
+            List<String> limited = ProcessRunner.limitFileSize(sandbox == null ? command : sandbox.wrap(command), quotaBytes);
+            process = new ProcessBuilder(ProcessSupervisor.inNewSession(limited))
+                    .directory(workDirectory)
+                    .redirectOutput(ProcessBuilder.Redirect.DISCARD)
+                    .redirectError(harnessError)
+                    .start();
+            try (ProcessSupervisor.Supervision supervision = ProcessSupervisor.getInstance()
+                    .supervise(process, JVM_OVERHEAD_MILLIS + timeLimitMillis + HARNESS_MARGIN_MILLIS, sandbox)) {
+                try (OutputStream stdin = process.getOutputStream()) {
+                    stdin.write((nonce + "\n").getBytes(StandardCharsets.US_ASCII));
+                }
+                try (Socket connection = accept(server, process, nonce)) {
+                    InputStream protocol = connection == null ? null : new BufferedInputStream(connection.getInputStream());
+                    String line;
+                    while (protocol != null && (line = readProtocolLine(protocol)) != null) {
+                        String[] fields = line.split(" ");
+                        if (fields.length < 4 || !nonce.equals(fields[0]) || !isNumeric(fields, 2)) {
+                            continue;
+                        }
+                        Integer index = Integer.valueOf(fields[2]);
+                        if (reported.contains(index)) {
+                            results.put(index, new ProcessResult(1, "", "harness protocol violation", results.get(index).getRunTime(), false));
+                            continue;
+                        }
+                        if (remaining.isEmpty() || !remaining.get(0).equals(index)) {
+                            continue;
+                        }
+                        long now = System.nanoTime();
+                        // 回報的執行時間不會超過批改端量到的時間
+                        double runTime = Math.min(Long.parseLong(fields[3]), now - caseStartTime) / 1_000_000.0;
+                        caseStartTime = now;
+                        boolean isTimeout = JavaCaseHarness.RESULT_TLE.equals(fields[1]);
+                        int exitCode = JavaCaseHarness.RESULT_RE.equals(fields[1]) ? 1 : 0;
+                        long currentSharedBytes = sizeOfSharedFiles(workDirectory, caseDirectories.values());
+                        ProcessResult result = isOverQuota(currentSharedBytes - sharedBytes, caseDirectories.get(index))
+                                ? new ProcessResult(1, "", "workspace quota exceeded", runTime, false)
+                                : readResult(caseDirectories.get(index), exitCode, runTime, isTimeout, "");
+                        sharedBytes = currentSharedBytes;
+                        if (fields.length > 4 && Long.parseLong(fields[4]) >= 0) {
+                            result.setCpuTime(Long.parseLong(fields[4]) / 1_000_000.0);
+                        }
+                        if (sandbox != null && exitCode != 0 && result.getError().contains("java.lang.OutOfMemoryError")) {
+                            result.setUsage(new ResourceUsage(-1, -1, false, true, false));
+                        }
+                        results.put(index, result);
+                        remaining.remove(index);
+                        reported.add(index);
+                        isTimeoutReported |= isTimeout;
+                        // 每個測資由批改端各自計時，harness沒有在時間內回報時由看門狗結束子JVM
+                        supervision.resetDeadline(timeLimitMillis + HARNESS_MARGIN_MILLIS);
+                    }
+                }
+                supervision.await();
+                isFinished = !supervision.isTimeout();
+            }
+        }
+        double elapsed = (System.nanoTime() - caseStartTime) / 1_000_000.0;
+
+        // 子JVM在測資執行中結束(System.exit、JVM錯誤、sandbox限制或看門狗逾時)，該測資以子JVM的結束狀態為準
+        int exitCode = isFinished ? process.exitValue() : -1;
+        String jvmError = ProcessRunner.readPrefix(harnessError, charset, ProcessRunner.READ_LIMIT);
+        ResourceUsage usage = sandbox == null ? null : sandbox.collect(exitCode, jvmError);
+        if (!remaining.isEmpty() && (!isFinished || !isTimeoutReported)) {
+            Integer index = remaining.remove(0);
+            long currentSharedBytes = sizeOfSharedFiles(workDirectory, caseDirectories.values());
+            ProcessResult result = isFinished && isOverQuota(currentSharedBytes - sharedBytes, caseDirectories.get(index))
+                    ? new ProcessResult(1, "", "workspace quota exceeded", elapsed, false)
+                    : readResult(caseDirectories.get(index), exitCode, elapsed, !isFinished, jvmError);
+            result.setUsage(usage);
+            results.put(index, result);
+            reported.add(index);
+        }
+        // sandbox無法結束或量測時，在其中執行的測資都不可信
+        if (usage != null && usage.getSandboxError() != null) {
+            reported.forEach(index -> results.get(index).setUsage(usage));
+        }
+    }
+
+    // 子JVM的工作目錄由這批測資共用，測資執行期間共用部分增加的大小加上該測資目錄的大小即為該測資的用量；
+    // 與獨立行程模式相同，寫到上限而被截斷(剛好等於上限)也視為超過
+    private boolean isOverQuota(long sharedGrowthBytes, File caseDirectory) {
+        return quotaBytes > 0 && Math.max(sharedGrowthBytes, 0) + FileUtils.sizeOfDirectory(caseDirectory) >= quotaBytes;
+    }
+
+    // 工作目錄中編譯目錄與各測資目錄以外的檔案，即學生代碼以相對路徑寫出的檔案；量測途中被刪除的檔案不計
+    private long sizeOfSharedFiles(File workDirectory, Collection<File> caseDirectories) {
+        File[] files = workDirectory.listFiles();
+        if (files == null) {
+            return 0;
+        }
+        File buildDirectory = new File(buildPath).getAbsoluteFile();
+        long size = 0;
+        for (File file : files) {
+            if (file.getAbsoluteFile().equals(buildDirectory)
+                    || caseDirectories.stream().anyMatch(directory -> directory.getAbsoluteFile().equals(file.getAbsoluteFile()))) {
+                continue;
+            }
+            try {
+                size += file.isDirectory() ? FileUtils.sizeOfDirectory(file) : file.length();
+            } catch (IllegalArgumentException e) {
+                // 已被刪除
+            }
+        }
+        return size;
+    }
+
+    // 等待harness連線，第一行必須是nonce，其他連線直接關閉；子JVM在連線前就結束(啟動失敗或被看門狗結束)時回傳null
+    private static Socket accept(ServerSocket server, Process process, String nonce) throws IOException {
+        server.setSoTimeout(ACCEPT_POLL_MILLIS);
+        while (process.isAlive()) {
+            Socket connection;
+            try {
+                connection = server.accept();
+            } catch (SocketTimeoutException e) {
+                continue;
+            }
+            connection.setSoTimeout((int) JVM_OVERHEAD_MILLIS);
+            try {
+                // 不經過緩衝讀取，nonce之後的結果行留給呼叫端
+                String line = readProtocolLine(connection.getInputStream());
+                if (nonce.equals(line)) {
+                    connection.setSoTimeout(0);
+                    return connection;
+                }
+            } catch (SocketTimeoutException e) {
+                // 連線後沒有送出nonce
+            }
+            connection.close();
+        }
+        return null;
+    }
+
+    // 測資編號與奈秒數欄位不是數字時整行略過
+    private static boolean isNumeric(String[] fields, int from) {
+        for (int i = from; i < fields.length; i++) {
+            if (!fields[i].matches("-?\\d{1,18}")) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    // 讀取一行結果行，過長的行只保留開頭(必定不符合格式)；讀到結尾回傳null
+    private static String readProtocolLine(InputStream inputStream) throws IOException {
+        StringBuilder line = new StringBuilder();
+        int c;
+        while ((c = inputStream.read()) != -1) {
+            if (c == '\n') {
+                return line.toString();
+            }
+            if (line.length() < MAX_PROTOCOL_LINE_LENGTH) {
+                line.append((char) c);
+            }
+        }
+        return line.length() > 0 ? line.toString() : null;
+    }
+
+    // 每個子JVM各自的nonce，只經由標準輸入交給harness
+    private static String createNonce() {
+        byte[] bytes = new byte[16];
+        RANDOM.nextBytes(bytes);
+        StringBuilder builder = new StringBuilder();
+        for (byte b : bytes) {
+            builder.append(String.format("%02x", b));
+        }
+        return builder.toString();
+    }
+
+    private ProcessResult readResult(File directory, int exitCode, double runTime, boolean isTimeout, String jvmError) throws IOException {
+        File stdout = new File(directory, ".stdout");
+        File stderr = new File(directory, ".stderr");
+        String output = ProcessRunner.readPrefix(stdout, charset, ProcessRunner.READ_LIMIT);
+        String error = ProcessRunner.readPrefix(stderr, charset, ProcessRunner.READ_LIMIT);
+        return new ProcessResult(exitCode, output, error + jvmError, runTime, isTimeout);
+    }
+
+    // 將JavaCaseHarness的class檔複製到暫存目錄，打包成Spring Boot jar後也能以-cp單獨啟動
+    private static synchronized File getHarnessClassPath() throws IOException {
+        if (harnessClassPath == null) {
+            File directory = Files.createTempDirectory("penguin-harness").toFile();
+            String resource = HARNESS_CLASS.replace('.', '/') + ".class";
+            try (InputStream in = JavaHarnessRunner.class.getClassLoader().getResourceAsStream(resource)) {
+                if (in == null) {
+                    throw new IOException("harness class not found: " + resource);
+                }
+                FileUtils.writeByteArrayToFile(new File(directory, resource), IOUtils.toByteArray(in));
+            }
+            harnessClassPath = directory;
+        }
+        return harnessClassPath;
+    }
+}
@@ -0,0 +1,160 @@
+package com.penguin.penguincoco.lib.judge;
+
+import com.penguin.penguincoco.lib.model.JudgePolicy;
+
+import java.util.List;
+import java.util.concurrent.Semaphore;
+
+public class JudgeOptions {
+
+    // 批改策略:全部執行、遇到未通過即停止或先執行範例測資
+    private JudgePolicy judgePolicy = JudgePolicy.ALL;
+    // FAILING_FIRST策略的測資執行順序，null則依原本順序
+    private List<Integer> caseOrder;
+    // 單一submission同時執行的測資數
+    private int parallelism = 1;
+    // 每個測資的執行時間上限(毫秒)
+    private long timeLimitMillis = 3000;
+    // 編譯的時間上限(毫秒)
+    private long compileTimeLimitMillis = 30000;
+    // Java是否在伺服器JVM內編譯，false則啟動外部javac行程
+    private boolean inProcessCompile = true;
+    // Java是否以單一子JVM依序執行多個測資(每個測資使用新的ClassLoader)
+    private boolean sharedJvm = false;
+    // 預先啟動的Python fork server，null則每個測資各自啟動python
+    private PythonWorkerPool pythonWorkerPool;
+    // 編譯快取，null則每次都重新編譯
+    private CompilationCache compilationCache;
+    // 每個測資的輸出上限(bytes)，超過即判為OLE，0表示不限制
+    private long outputLimitBytes = 64L * 1024 * 1024;
+    // 是否量測每個測資的user+sys CPU時間
+    private boolean cpuTime = false;
+    // 全部通過時為了最佳代碼排名重複執行的次數(含第一次)，1表示不重複
+    private int measureRepeats = 1;
+    // 建立每次執行的資源限制環境，null則只有時間上限
+    private SandboxFactory sandboxFactory;
+    // 每個測資工作目錄的空間上限(bytes)，0表示不檢查
+    private long workspaceQuotaBytes = 0;
+    // 所有submission共用的執行名額，即全域同時執行的測資數上限，null則不限制
+    private Semaphore runSlots;
+
+    public int getParallelism() {
+        return parallelism;
+    }
+
+    public void setParallelism(int parallelism) {
+        this.parallelism = Math.max(1, parallelism);
+    }
+
+    public long getTimeLimitMillis() {
+        return timeLimitMillis;
+    }
+
+    public void setTimeLimitMillis(long timeLimitMillis) {
+        this.timeLimitMillis = timeLimitMillis;
+    }
+
+    public long getCompileTimeLimitMillis() {
+        return compileTimeLimitMillis;
+    }
+
+    public void setCompileTimeLimitMillis(long compileTimeLimitMillis) {
+        this.compileTimeLimitMillis = compileTimeLimitMillis;
+    }
+
+    public boolean isInProcessCompile() {
+        return inProcessCompile;
+    }
+
+    public void setInProcessCompile(boolean inProcessCompile) {
+        this.inProcessCompile = inProcessCompile;
+    }
+
+    public boolean isSharedJvm() {
+        return sharedJvm;
+    }
+
+    public void setSharedJvm(boolean sharedJvm) {
+        this.sharedJvm = sharedJvm;
+    }
+
+    public PythonWorkerPool getPythonWorkerPool() {
+        return pythonWorkerPool;
+    }
+
+    public void setPythonWorkerPool(PythonWorkerPool pythonWorkerPool) {
+        this.pythonWorkerPool = pythonWorkerPool;
+    }
+
+    public CompilationCache getCompilationCache() {
+        return compilationCache;
+    }
+
+    public void setCompilationCache(CompilationCache compilationCache) {
+        this.compilationCache = compilationCache;
+    }
+
+    public long getWorkspaceQuotaBytes() {
+        return workspaceQuotaBytes;
+    }
+
+    public void setWorkspaceQuotaBytes(long workspaceQuotaBytes) {
+        this.workspaceQuotaBytes = workspaceQuotaBytes;
+    }
+
+    public long getOutputLimitBytes() {
+        return outputLimitBytes;
+    }
+
+    public void setOutputLimitBytes(long outputLimitBytes) {
+        this.outputLimitBytes = outputLimitBytes;
+    }
+
+    public SandboxFactory getSandboxFactory() {
+        return sandboxFactory;
+    }
+
+    public void setSandboxFactory(SandboxFactory sandboxFactory) {
+        this.sandboxFactory = sandboxFactory;
+    }
+
+    public boolean isCpuTime() {
+        return cpuTime;
+    }
+
+    public void setCpuTime(boolean cpuTime) {
+        this.cpuTime = cpuTime;
+    }
+
+    public int getMeasureRepeats() {
+        return measureRepeats;
+    }
+
+    public void setMeasureRepeats(int measureRepeats) {
+        this.measureRepeats = Math.max(1, measureRepeats);
+    }
+
+    public JudgePolicy getJudgePolicy() {
+        return judgePolicy;
+    }
+
+    public void setJudgePolicy(JudgePolicy judgePolicy) {
+        this.judgePolicy = judgePolicy == null ? JudgePolicy.ALL : judgePolicy;
+    }
+
+    public List<Integer> getCaseOrder() {
+        return caseOrder;
+    }
+
+    public void setCaseOrder(List<Integer> caseOrder) {
+        this.caseOrder = caseOrder;
+    }
+
+    public Semaphore getRunSlots() {
+        return runSlots;
+    }
+
+    public void setRunSlots(Semaphore runSlots) {
+        this.runSlots = runSlots;
+    }
+}
@@ -0,0 +1,11 @@
+package com.penguin.penguincoco.lib.judge;
+
+import com.penguin.penguincoco.lib.model.SubmissionStatus;
+
+public interface JudgeProgressListener {
+
+    JudgeProgressListener NONE = status -> { };
+
+    // 批改進入下一個階段時通知(編譯中、執行中)
+    void onStatusChanged(SubmissionStatus status);
+}
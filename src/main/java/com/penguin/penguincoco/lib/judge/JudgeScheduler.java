@@ -0,0 +1,201 @@
+package com.penguin.penguincoco.lib.judge;
+
+import com.penguin.penguincoco.lib.model.JudgePriority;
+
+import java.util.*;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+
+// 批改佇列的排程器，依優先等級、等待時間(aging)與學生公平性決定下一個要批改的submission
+public class JudgeScheduler {
+
+    private Executor executor;
+    private int capacity;
+    // 等待這麼久即提升一個優先等級
+    private long agingMillis;
+    // 送出時同一學生每有一個執行中或排隊中的submission，就視為晚到這麼久
+    private long fairnessMillis;
+    private final Object lock = new Object();
+    private List<Task> pendingTasks = new ArrayList<>();
+    private Map<String, Integer> runningCounts = new HashMap<>();
+    private Map<JudgePriority, PriorityMetrics> priorityMetrics = new EnumMap<>(JudgePriority.class);
+    private long agingOverrideCount;
+    private long fairnessOverrideCount;
+    private long rejectedCount;
+
+    public JudgeScheduler(Executor executor, int capacity, long agingMillis, long fairnessMillis) {
+        this.executor = executor;
+        this.capacity = capacity;
+        this.agingMillis = agingMillis;
+        this.fairnessMillis = fairnessMillis;
+        for (JudgePriority priority : JudgePriority.values()) {
+            priorityMetrics.put(priority, new PriorityMetrics());
+        }
+    }
+
+    // 放入待批改清單；executor的每個工作不綁定特定submission，而是在開始執行時才挑出目前最優先的一個
+    public void submit(String account, JudgePriority priority, Runnable runnable) {
+        Task task;
+        synchronized (lock) {
+            if (pendingTasks.size() >= capacity) {
+                rejectedCount++;
+                throw new RejectedExecutionException("judge queue is full");
+            }
+            long backlog = runningCounts.getOrDefault(account, 0)
+                    + pendingTasks.stream().filter(pendingTask -> pendingTask.account.equals(account)).count();
+            task = new Task(account, priority, runnable, backlog * fairnessMillis);
+            pendingTasks.add(task);
+            priorityMetrics.get(priority).submitted++;
+        }
+        try {
+            executor.execute(this::runNext);
+        } catch (RejectedExecutionException e) {
+            synchronized (lock) {
+                pendingTasks.remove(task);
+                rejectedCount++;
+            }
+            throw e;
+        }
+    }
+
+    // 以新的工作取代仍在排隊中的工作並保留原本的排隊位置，已開始執行則回傳false
+    public boolean replace(Runnable pendingRunnable, JudgePriority priority, Runnable runnable) {
+        synchronized (lock) {
+            for (Task task : pendingTasks) {
+                if (task.runnable == pendingRunnable) {
+                    priorityMetrics.get(task.priority).replaced++;
+                    task.priority = priority;
+                    task.runnable = runnable;
+                    return true;
+                }
+            }
+            return false;
+        }
+    }
+
+    private void runNext() {
+        Task task;
+        synchronized (lock) {
+            task = pollBest();
+            if (task == null) {
+                return;
+            }
+            runningCounts.merge(task.account, 1, Integer::sum);
+        }
+        try {
+            task.runnable.run();
+        } finally {
+            synchronized (lock) {
+                runningCounts.computeIfPresent(task.account, (account, count) -> count > 1 ? count - 1 : null);
+            }
+        }
+    }
+
+    // 分數越低越優先：等級間隔agingMillis，減去已等待時間，再加上送出時同一學生已佔用的份額
+    private Task pollBest() {
+        if (pendingTasks.isEmpty()) {
+            return null;
+        }
+        long now = System.currentTimeMillis();
+        Task best = null;
+        long bestScore = Long.MAX_VALUE;
+        Task bestWithoutFairness = null;
+        long bestScoreWithoutFairness = Long.MAX_VALUE;
+        Task highest = null;
+        for (Task task : pendingTasks) {
+            long score = task.priority.ordinal() * agingMillis - (now - task.enqueueTime);
+            long fairScore = score + task.fairnessOffset;
+            if (fairScore < bestScore) {
+                best = task;
+                bestScore = fairScore;
+            }
+            if (score < bestScoreWithoutFairness) {
+                bestWithoutFairness = task;
+                bestScoreWithoutFairness = score;
+            }
+            if (highest == null || task.priority.ordinal() < highest.priority.ordinal()) {
+                highest = task;
+            }
+        }
+        pendingTasks.remove(best);
+
+        if (best != bestWithoutFairness) {
+            fairnessOverrideCount++;
+        }
+        if (best.priority.ordinal() > highest.priority.ordinal()) {
+            agingOverrideCount++;
+        }
+        PriorityMetrics metrics = priorityMetrics.get(best.priority);
+        long waitMillis = now - best.enqueueTime;
+        metrics.dispatched++;
+        metrics.totalWaitMillis += waitMillis;
+        metrics.maxWaitMillis = Math.max(metrics.maxWaitMillis, waitMillis);
+        return best;
+    }
+
+    public int getPendingCount() {
+        synchronized (lock) {
+            return pendingTasks.size();
+        }
+    }
+
+    // 排隊中與執行中的工作數
+    public int getActiveCount() {
+        synchronized (lock) {
+            return pendingTasks.size() + runningCounts.values().stream().mapToInt(Integer::intValue).sum();
+        }
+    }
+
+    // 各優先等級的排隊數、已派發數與等待時間，以及因aging或公平性而改變順序的次數
+    public Map<String, Object> getMetrics() {
+        Map<String, Object> result = new HashMap<>();
+        synchronized (lock) {
+            Map<JudgePriority, Integer> queuedCounts = new EnumMap<>(JudgePriority.class);
+            for (Task task : pendingTasks) {
+                queuedCounts.merge(task.priority, 1, Integer::sum);
+            }
+            for (Map.Entry<JudgePriority, PriorityMetrics> entry : priorityMetrics.entrySet()) {
+                PriorityMetrics metrics = entry.getValue();
+                Map<String, Object> priorityResult = new HashMap<>();
+                priorityResult.put("queued", queuedCounts.getOrDefault(entry.getKey(), 0));
+                priorityResult.put("submitted", metrics.submitted);
+                priorityResult.put("dispatched", metrics.dispatched);
+                priorityResult.put("replaced", metrics.replaced);
+                priorityResult.put("averageWaitMillis", metrics.dispatched == 0 ? 0 : metrics.totalWaitMillis / metrics.dispatched);
+                priorityResult.put("maxWaitMillis", metrics.maxWaitMillis);
+                result.put(entry.getKey().name().toLowerCase(), priorityResult);
+            }
+            result.put("running", runningCounts.values().stream().mapToInt(Integer::intValue).sum());
+            result.put("agingOverrides", agingOverrideCount);
+            result.put("fairnessOverrides", fairnessOverrideCount);
+            result.put("rejected", rejectedCount);
+        }
+        return result;
+    }
+
+    private static class Task {
+
+        private String account;
+        private JudgePriority priority;
+        private Runnable runnable;
+        private long fairnessOffset;
+        private long enqueueTime;
+
+        private Task(String account, JudgePriority priority, Runnable runnable, long fairnessOffset) {
+            this.account = account;
+            this.priority = priority;
+            this.runnable = runnable;
+            this.fairnessOffset = fairnessOffset;
+            this.enqueueTime = System.currentTimeMillis();
+        }
+    }
+
+    private static class PriorityMetrics {
+
+        private long submitted;
+        private long dispatched;
+        private long replaced;
+        private long totalWaitMillis;
+        private long maxWaitMillis;
+    }
+}
@@ -0,0 +1,477 @@
+package com.penguin.penguincoco.lib.judge;
+
+import com.penguin.penguincoco.lib.model.*;
+import org.apache.commons.io.FileUtils;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.Charset;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+public class PipelineJudger {
+
+    private Language language;
+    private JudgeData judgeData;
+    private JudgeOptions options;
+    private ExecutorService caseExecutor;
+    private JudgeProgressListener listener;
+    private SubmissionCompiler compiler;
+    private Charset charset;
+    private String buildPath;
+    private boolean isSharedJvm;
+    private boolean isPythonPool;
+
+    // caseExecutor為所有submission共用的執行緒池，負責啟動行程與比對輸出；全域同時執行的測資數由options的runSlots限制
+    public PipelineJudger(Language language, JudgeData judgeData, JudgeOptions options,
+                          ExecutorService caseExecutor, JudgeProgressListener listener) {
+        this.language = language;
+        this.judgeData = judgeData;
+        this.options = options;
+        this.caseExecutor = caseExecutor;
+        this.listener = listener;
+        if (judgeData.getCommand() == null) {
+            judgeData.setCommand(language == Language.JAVA ? new JavaCommand() : new PythonCommand());
+        }
+        this.charset = Charset.forName(judgeData.getCommand().getEncoding());
+        if (language == Language.JAVA && options.isInProcessCompile() && InProcessJavaCompiler.isAvailable()) {
+            this.compiler = InProcessJavaCompiler.getInstance();
+        }
+        else {
+            this.compiler = new ProcessCompiler(charset, options.getCompileTimeLimitMillis());
+        }
+        // 檔案讀寫的題目依賴各測資的工作目錄，只有標準輸入輸出的題目能共用一個JVM
+        this.isSharedJvm = language == Language.JAVA && options.isSharedJvm()
+                && judgeData.getBehavior() == JudgeBehavior.ReadAndPrint;
+        this.isPythonPool = language == Language.PYTHON && options.getPythonWorkerPool() != null;
+    }
+
+    // 先編譯一次，再將每個測資分配到共用執行緒池平行執行，結果依照原本測資順序回傳
+    public JudgeReport performJudge() {
+        int caseNum = judgeData.getProblemCases().size();
+        JudgeReport report = new JudgeReport();
+        String compileErrorMessage = compile();
+        if (compileErrorMessage != null) {
+            List<JudgeProblemResult> results = new ArrayList<>();
+            for (int i = 0; i < caseNum; i++) {
+                results.add(new JudgeProblemResult(0, "", 0, JudgeSymbol.CE, compileErrorMessage));
+            }
+            report.setCompileSuccess(false);
+            report.setCompileErrorMessage(compileErrorMessage);
+            report.setResults(results);
+            return report;
+        }
+
+        listener.onStatusChanged(SubmissionStatus.RUNNING);
+        List<JudgeProblemResult> results = judgeCases(caseNum);
+        // 全部通過的代碼會參與最佳代碼排名，再重複執行數次並取各測資時間的中位數，降低主機忙碌程度造成的誤差
+        if (options.getMeasureRepeats() > 1 && isAllAccepted(results)) {
+            List<List<JudgeProblemResult>> runs = new ArrayList<>();
+            runs.add(results);
+            for (int i = 1; i < options.getMeasureRepeats(); i++) {
+                runs.add(toResultList(runCases(allIndices(caseNum), false), caseNum, false));
+            }
+            for (int i = 0; i < caseNum; i++) {
+                applyMedianTime(results.get(i), runs, i);
+            }
+        }
+        report.setCompileSuccess(true);
+        report.setResults(results);
+        return report;
+    }
+
+    // 依照題目的批改策略執行測資，因前面測資未通過而沒有執行的測資標記為SKIP
+    private List<JudgeProblemResult> judgeCases(int caseNum) {
+        switch (options.getJudgePolicy()) {
+            case FIRST_FAILURE: {
+                Map<Integer, JudgeProblemResult> resultMap = runCases(allIndices(caseNum), true);
+                return toResultList(resultMap, caseNum, !isAllAccepted(resultMap.values()));
+            }
+            case FAILING_FIRST: {
+                List<Integer> order = options.getCaseOrder() != null ? options.getCaseOrder() : allIndices(caseNum);
+                Map<Integer, JudgeProblemResult> resultMap = runCases(order, true);
+                return toResultList(resultMap, caseNum, !isAllAccepted(resultMap.values()));
+            }
+            case SAMPLE_FIRST: {
+                List<Integer> samples = new ArrayList<>();
+                List<Integer> others = new ArrayList<>();
+                for (int i = 0; i < caseNum; i++) {
+                    (judgeData.getProblemCases().get(i).isSample() ? samples : others).add(i);
+                }
+                // 沒有標記範例測資時以第一個測資當作範例
+                if (samples.isEmpty() && !others.isEmpty()) {
+                    samples.add(others.remove(0));
+                }
+                Map<Integer, JudgeProblemResult> resultMap = runCases(samples, false);
+                boolean isSampleFailed = !isAllAccepted(resultMap.values());
+                if (!isSampleFailed) {
+                    resultMap.putAll(runCases(others, false));
+                }
+                return toResultList(resultMap, caseNum, isSampleFailed);
+            }
+            default:
+                return toResultList(runCases(allIndices(caseNum), false), caseNum, false);
+        }
+    }
+
+    // 將指定的測資分批丟到共用執行緒池執行；isStopOnFailure時依序送出，出現未通過的測資後不再執行尚未開始的批次
+    // 獨立行程在執行期間不佔用執行緒，同時執行的批次數由本submission的平行數與全域的runSlots限制
+    private Map<Integer, JudgeProblemResult> runCases(List<Integer> indices, boolean isStopOnFailure) {
+        Semaphore permits = new Semaphore(options.getParallelism());
+        Semaphore runSlots = options.getRunSlots();
+        AtomicBoolean isFailed = new AtomicBoolean(false);
+        Map<Future<Map<Integer, JudgeProblemResult>>, List<Integer>> futures = new LinkedHashMap<>();
+        try {
+            for (List<Integer> batch : planBatches(indices, isStopOnFailure)) {
+                permits.acquire();
+                if (isStopOnFailure && isFailed.get()) {
+                    permits.release();
+                    break;
+                }
+                if (runSlots != null) {
+                    try {
+                        runSlots.acquire();
+                    } catch (InterruptedException e) {
+                        permits.release();
+                        throw e;
+                    }
+                }
+                Runnable release = () -> {
+                    permits.release();
+                    if (runSlots != null) {
+                        runSlots.release();
+                    }
+                };
+                CompletableFuture<Map<Integer, JudgeProblemResult>> future;
+                try {
+                    future = CompletableFuture.supplyAsync(() -> isStopOnFailure && isFailed.get()
+                            ? CompletableFuture.completedFuture(Collections.<Integer, JudgeProblemResult>emptyMap())
+                            : judgeBatch(batch), caseExecutor).thenCompose(batchFuture -> batchFuture);
+                } catch (RejectedExecutionException e) {
+                    release.run();
+                    throw e;
+                }
+                // 先標記未通過再釋放名額，下一個批次送出前就能看到
+                futures.put(future.whenComplete((batchResults, throwable) -> {
+                    if (batchResults == null || !isAllAccepted(batchResults.values())) {
+                        isFailed.set(true);
+                    }
+                    release.run();
+                }), batch);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+
+        Map<Integer, JudgeProblemResult> resultMap = new HashMap<>();
+        for (Map.Entry<Future<Map<Integer, JudgeProblemResult>>, List<Integer>> entry : futures.entrySet()) {
+            resultMap.putAll(waitFor(entry.getKey(), entry.getValue()));
+        }
+        return resultMap;
+    }
+
+    // 結果依照原本測資順序排列，沒有結果的測資在提前停止時為SKIP，否則表示批改被中斷
+    private List<JudgeProblemResult> toResultList(Map<Integer, JudgeProblemResult> resultMap, int caseNum, boolean isStopped) {
+        List<JudgeProblemResult> results = new ArrayList<>();
+        for (int i = 0; i < caseNum; i++) {
+            JudgeProblemResult result = resultMap.get(i);
+            if (result == null) {
+                result = isStopped ? new JudgeProblemResult(0, "", 0, JudgeSymbol.SKIP, "") : systemError("judge interrupted");
+            }
+            results.add(result);
+        }
+        return results;
+    }
+
+    private List<Integer> allIndices(int caseNum) {
+        List<Integer> indices = new ArrayList<>();
+        for (int i = 0; i < caseNum; i++) {
+            indices.add(i);
+        }
+        return indices;
+    }
+
+    private boolean isAllAccepted(Collection<JudgeProblemResult> results) {
+        return results.stream().allMatch(result -> result.getSymbol() == JudgeSymbol.AC);
+    }
+
+    // 只採計重複執行中仍然通過的結果
+    private void applyMedianTime(JudgeProblemResult result, List<List<JudgeProblemResult>> runs, int index) {
+        List<Double> runTimes = new ArrayList<>();
+        List<Double> cpuTimes = new ArrayList<>();
+        for (List<JudgeProblemResult> run : runs) {
+            JudgeProblemResult runResult = run.get(index);
+            if (runResult.getSymbol() == JudgeSymbol.AC) {
+                runTimes.add(runResult.getRunTime());
+                if (runResult.getCpuTime() >= 0) {
+                    cpuTimes.add(runResult.getCpuTime());
+                }
+            }
+        }
+        result.setRunTime(median(runTimes));
+        result.setCpuTime(cpuTimes.size() == runTimes.size() ? median(cpuTimes) : -1);
+    }
+
+    private double median(List<Double> values) {
+        Collections.sort(values);
+        int middle = values.size() / 2;
+        return values.size() % 2 == 1 ? values.get(middle) : (values.get(middle - 1) + values.get(middle)) / 2;
+    }
+
+    // 每個批次是共用執行緒池中的一個工作；獨立行程模式一個測資一批，共用JVM模式依平行數平均分配測資
+    // 遇到未通過即停止時，共用JVM模式改為依序切成較小的連續批次，後面的批次才有機會被略過
+    private List<List<Integer>> planBatches(List<Integer> indices, boolean isStopOnFailure) {
+        List<List<Integer>> batches = new ArrayList<>();
+        if (isSharedJvm && isStopOnFailure) {
+            int batchSize = Math.max(1, (indices.size() + 2 * options.getParallelism() - 1) / (2 * options.getParallelism()));
+            for (int i = 0; i < indices.size(); i += batchSize) {
+                batches.add(new ArrayList<>(indices.subList(i, Math.min(i + batchSize, indices.size()))));
+            }
+            return batches;
+        }
+        int batchNum = isSharedJvm ? Math.min(options.getParallelism(), indices.size()) : indices.size();
+        for (int i = 0; i < batchNum; i++) {
+            batches.add(new ArrayList<>());
+        }
+        for (int i = 0; i < indices.size(); i++) {
+            batches.get(i % batchNum).add(indices.get(i));
+        }
+        return batches;
+    }
+
+    // 批次內的測資依序執行，前一個測資結束後才啟動下一個
+    private CompletableFuture<Map<Integer, JudgeProblemResult>> judgeBatch(List<Integer> batch) {
+        if (isSharedJvm) {
+            return CompletableFuture.completedFuture(judgeWithHarness(batch));
+        }
+        Map<Integer, JudgeProblemResult> results = new HashMap<>();
+        CompletableFuture<Void> chain = CompletableFuture.completedFuture(null);
+        for (Integer index : batch) {
+            chain = chain.thenCompose(previous -> judgeCase(index)).thenAccept(result -> results.put(index, result));
+        }
+        return chain.thenApply(done -> results);
+    }
+
+    // 將代碼寫入共用編譯目錄並編譯一次，編譯結果設為唯讀供所有測資共用；編譯失敗回傳錯誤訊息
+    private String compile() {
+        Command command = judgeData.getCommand();
+        File buildDirectory = new File(judgeData.getBuildPath());
+        buildPath = buildDirectory.getAbsolutePath();
+        try {
+            FileUtils.deleteQuietly(buildDirectory);
+            FileUtils.forceMkdir(buildDirectory);
+            FileUtils.writeStringToFile(new File(buildDirectory, command.getFileName()), judgeData.getOriCode(), charset);
+            if (command.getCompileCommand() != null) {
+                listener.onStatusChanged(SubmissionStatus.COMPILING);
+                CompileResult compileResult = compileWithCache(command, buildDirectory);
+                if (!compileResult.isSuccess()) {
+                    return compileResult.getErrorMessage();
+                }
+            }
+            File[] buildFiles = buildDirectory.listFiles();
+            if (buildFiles != null) {
+                for (File buildFile : buildFiles) {
+                    buildFile.setWritable(false, false);
+                }
+            }
+            return null;
+        } catch (IOException e) {
+            return e.getMessage();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return "judge interrupted";
+        }
+    }
+
+    // 相同代碼(與編譯器版本)命中快取時直接沿用class檔或編譯錯誤，不再呼叫編譯器
+    private CompileResult compileWithCache(Command command, File buildDirectory) throws IOException, InterruptedException {
+        CompilationCache cache = options.getCompilationCache();
+        if (cache == null) {
+            return compiler.compile(command, judgeData.getOriCode(), buildDirectory);
+        }
+        String version = compiler.getVersion(command);
+        CompileResult compileResult = cache.load(language, version, judgeData.getOriCode(), buildDirectory);
+        if (compileResult == null) {
+            compileResult = compiler.compile(command, judgeData.getOriCode(), buildDirectory);
+            cache.store(language, version, judgeData.getOriCode(), compileResult, buildDirectory);
+        }
+        return compileResult;
+    }
+
+    // 批次執行失敗時，該批次的測資都記為SE並保留原因，只有真正被中斷時才留空
+    private Map<Integer, JudgeProblemResult> waitFor(Future<Map<Integer, JudgeProblemResult>> future, List<Integer> batch) {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            while (cause instanceof CompletionException && cause.getCause() != null) {
+                cause = cause.getCause();
+            }
+            Map<Integer, JudgeProblemResult> results = new HashMap<>();
+            for (Integer index : batch) {
+                results.put(index, systemError(cause == null ? e.getMessage() : cause.getMessage()));
+            }
+            return results;
+        }
+        return Collections.emptyMap();
+    }
+
+    // 批改單一測資:寫入輸入檔、執行共用編譯目錄中的程式、比對輸出
+    // 獨立行程由ProcessSupervisor在結束時通知，之後的比對在caseExecutor上接續
+    private CompletableFuture<JudgeProblemResult> judgeCase(int index) {
+        Command command = judgeData.getCommand();
+        ProblemCase problemCase = judgeData.getProblemCases().get(index);
+        File directory = new File(judgeData.getCodeFilePath()[index]);
+        JudgeBehavior behavior = judgeData.getBehavior();
+        boolean isReadFile = behavior == JudgeBehavior.ReadFileAndPrint || behavior == JudgeBehavior.ReadFileAndWriteFile;
+        boolean isWriteFile = behavior == JudgeBehavior.ReadAndWriteFile || behavior == JudgeBehavior.ReadFileAndWriteFile;
+        StreamingOutputComparator comparator = new StreamingOutputComparator(problemCase.getOutput(), options.getOutputLimitBytes());
+        Sandbox sandbox = null;
+        CompletableFuture<ProcessResult> run;
+        try {
+            FileUtils.forceMkdir(directory);
+
+            String input = problemCase.getInputStr();
+            if (isReadFile) {
+                FileUtils.writeStringToFile(new File(judgeData.getReadFilePath()[index]), input, charset);
+                input = "";
+            }
+
+            sandbox = createSandbox();
+            if (isPythonPool) {
+                ProcessResult runResult = options.getPythonWorkerPool().run(new File(buildPath, command.getFileName()), directory,
+                        input, options.getTimeLimitMillis(), charset, sandbox, options.getWorkspaceQuotaBytes());
+                if (!isWriteFile) {
+                    comparator.consume(new File(directory, ".stdout"), charset);
+                }
+                run = CompletableFuture.completedFuture(runResult);
+            }
+            else if (isWriteFile) {
+                run = ProcessRunner.runAsync(command.getExecuteCommand(buildPath), directory, input,
+                        options.getTimeLimitMillis(), charset, sandbox, options.getWorkspaceQuotaBytes(), caseExecutor);
+            }
+            else {
+                run = ProcessRunner.runAsync(command.getExecuteCommand(buildPath), directory, input,
+                        options.getTimeLimitMillis(), charset, comparator, sandbox, options.getWorkspaceQuotaBytes(), caseExecutor);
+            }
+        } catch (IOException e) {
+            closeSandbox(sandbox);
+            return CompletableFuture.completedFuture(systemError(e.getMessage()));
+        } catch (InterruptedException e) {
+            closeSandbox(sandbox);
+            Thread.currentThread().interrupt();
+            return CompletableFuture.completedFuture(systemError("judge interrupted"));
+        }
+
+        Sandbox runSandbox = sandbox;
+        return run.handle((runResult, throwable) -> {
+            closeSandbox(runSandbox);
+            if (throwable != null) {
+                Throwable cause = throwable instanceof CompletionException && throwable.getCause() != null ? throwable.getCause() : throwable;
+                return systemError(cause.getMessage());
+            }
+            try {
+                if (isWriteFile) {
+                    comparator.consume(new File(judgeData.getWriteFilePath()[index]), charset);
+                }
+                if (!comparator.isOutputLimitExceeded() && isOverQuota(directory)) {
+                    return new JudgeProblemResult(0, "", runResult.getRunTime(), JudgeSymbol.RE, "workspace quota exceeded");
+                }
+                return toProblemResult(runResult, comparator);
+            } catch (IOException e) {
+                return systemError(e.getMessage());
+            }
+        });
+    }
+
+    private void closeSandbox(Sandbox sandbox) {
+        if (sandbox != null) {
+            sandbox.close();
+        }
+    }
+
+    // 在同一個子JVM中依序執行一批測資，每個測資使用新的ClassLoader載入Main
+    private Map<Integer, JudgeProblemResult> judgeWithHarness(List<Integer> batch) {
+        Map<Integer, JudgeProblemResult> results = new HashMap<>();
+        try {
+            Map<Integer, File> caseDirectories = new LinkedHashMap<>();
+            for (Integer index : batch) {
+                File directory = new File(judgeData.getCodeFilePath()[index]);
+                FileUtils.forceMkdir(directory);
+                FileUtils.writeStringToFile(new File(directory, ".stdin"),
+                        judgeData.getProblemCases().get(index).getInputStr(), charset);
+                caseDirectories.put(index, directory);
+            }
+            JavaHarnessRunner runner = new JavaHarnessRunner(buildPath, options.getTimeLimitMillis(), charset,
+                    options.getWorkspaceQuotaBytes(), options.getSandboxFactory());
+            Map<Integer, ProcessResult> runResults = runner.run(caseDirectories);
+            for (Integer index : batch) {
+                StreamingOutputComparator comparator = new StreamingOutputComparator(
+                        judgeData.getProblemCases().get(index).getOutput(), options.getOutputLimitBytes());
+                comparator.consume(new File(caseDirectories.get(index), ".stdout"), charset);
+                results.put(index, toProblemResult(runResults.get(index), comparator));
+            }
+        } catch (IOException e) {
+            batch.forEach(index -> results.put(index, systemError(e.getMessage())));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        return results;
+    }
+
+    // 每個測資各自一個sandbox，不需要限制也不需要量測CPU時間時回傳null(try-with-resources允許null)
+    private Sandbox createSandbox() throws IOException {
+        SandboxFactory sandboxFactory = options.getSandboxFactory();
+        if (sandboxFactory != null) {
+            return sandboxFactory.create(options.getTimeLimitMillis());
+        }
+        // fork server本身就會回報CPU時間，其他情況需要包一層shell才量得到
+        return options.isCpuTime() && !isPythonPool ? SandboxFactory.createMeasureOnly() : null;
+    }
+
+    // 執行期間單一檔案由RLIMIT_FSIZE限制；寫到上限而被截斷(剛好等於上限)或多個檔案合計超過上限都視為超過
+    private boolean isOverQuota(File directory) {
+        return options.getWorkspaceQuotaBytes() > 0 && FileUtils.sizeOfDirectory(directory) >= options.getWorkspaceQuotaBytes();
+    }
+
+    private JudgeProblemResult toProblemResult(ProcessResult runResult, StreamingOutputComparator comparator) {
+        JudgeProblemResult result = judgeResult(runResult, comparator);
+        result.setCpuTime(runResult.getCpuTime());
+        return result;
+    }
+
+    // 超過輸出上限優先於其他結果，其次為sandbox回報的記憶體與CPU時間超限；被comparator提前結束的行程其結束碼沒有意義，直接判為WA
+    private JudgeProblemResult judgeResult(ProcessResult runResult, StreamingOutputComparator comparator) {
+        String output = comparator.getDisplayOutput();
+        if (comparator.isOutputLimitExceeded()) {
+            return new JudgeProblemResult(0, output, runResult.getRunTime(), JudgeSymbol.OLE, "");
+        }
+        ResourceUsage usage = runResult.getUsage();
+        if (usage != null && usage.getSandboxError() != null) {
+            return systemError(usage.getSandboxError());
+        }
+        if (usage != null && usage.isMemoryLimitExceeded()) {
+            return new JudgeProblemResult(0, output, runResult.getRunTime(), JudgeSymbol.MLE, "");
+        }
+        if (runResult.isTimeout() || (usage != null && usage.isCpuTimeLimitExceeded())) {
+            return new JudgeProblemResult(0, output, runResult.getRunTime(), JudgeSymbol.TLE, "");
+        }
+        if (usage != null && usage.isProcessLimitExceeded()) {
+            return new JudgeProblemResult(0, output, runResult.getRunTime(), JudgeSymbol.RE, "process limit exceeded");
+        }
+        if (!runResult.isAborted() && runResult.getExitCode() != 0) {
+            return new JudgeProblemResult(0, output, runResult.getRunTime(), JudgeSymbol.RE, runResult.getError());
+        }
+        if (comparator.isAccepted()) {
+            return new JudgeProblemResult(100, output, runResult.getRunTime(), JudgeSymbol.AC, "");
+        }
+        return new JudgeProblemResult(0, output, runResult.getRunTime(), JudgeSymbol.WA, "");
+    }
+
+    private JudgeProblemResult systemError(String message) {
+        return new JudgeProblemResult(0, "", 0, JudgeSymbol.SE, message);
+    }
+}
@@ -0,0 +1,55 @@
+package com.penguin.penguincoco.lib.judge;
+
+import com.penguin.penguincoco.lib.model.Command;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.Charset;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+public class ProcessCompiler implements SubmissionCompiler {
+
+    private static Map<String, String> versions = new ConcurrentHashMap<>();
+
+    private Charset charset;
+    private long timeLimitMillis;
+
+    public ProcessCompiler(Charset charset, long timeLimitMillis) {
+        this.charset = charset;
+        this.timeLimitMillis = timeLimitMillis;
+    }
+
+    // 啟動外部編譯器行程(例如javac)，代碼檔需已寫入buildDirectory
+    @Override
+    public CompileResult compile(Command command, String code, File buildDirectory) throws IOException, InterruptedException {
+        ProcessResult result = ProcessRunner.run(command.getCompileCommand(), buildDirectory, "", timeLimitMillis, charset);
+        if (result.isTimeout()) {
+            return CompileResult.failure("compile timeout");
+        }
+        if (result.getExitCode() != 0) {
+            return CompileResult.failure(result.getError());
+        }
+        return CompileResult.success();
+    }
+
+    // 執行一次"<編譯器> -version"並記住結果
+    @Override
+    public String getVersion(Command command) {
+        String compilerName = command.getCompileCommand().get(0);
+        return versions.computeIfAbsent(compilerName, name -> {
+            try {
+                Process process = new ProcessBuilder(Arrays.asList(name, "-version")).redirectErrorStream(true).start();
+                String version = new String(process.getInputStream().readAllBytes(), charset).trim();
+                process.waitFor();
+                return name + "/" + version;
+            } catch (IOException e) {
+                return name;
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return name;
+            }
+        });
+    }
+}
@@ -0,0 +1,70 @@
+package com.penguin.penguincoco.lib.judge;
+
+public class ProcessResult {
+
+    private int exitCode;
+    private String output;
+    private String error;
+    // 執行時間(毫秒)
+    private double runTime;
+    private boolean timeout;
+    // 比對途中已確定WA或超過輸出上限而被提前結束
+    private boolean aborted;
+    // user+sys CPU時間(毫秒)，無法量測時為-1
+    private double cpuTime = -1;
+    // 在sandbox中執行時的資源用量，沒有sandbox時為null
+    private ResourceUsage usage;
+
+    public ProcessResult(int exitCode, String output, String error, double runTime, boolean timeout) {
+        this(exitCode, output, error, runTime, timeout, false);
+    }
+
+    public ProcessResult(int exitCode, String output, String error, double runTime, boolean timeout, boolean aborted) {
+        this.exitCode = exitCode;
+        this.output = output;
+        this.error = error;
+        this.runTime = runTime;
+        this.timeout = timeout;
+        this.aborted = aborted;
+    }
+
+    public int getExitCode() {
+        return exitCode;
+    }
+
+    public String getOutput() {
+        return output;
+    }
+
+    public String getError() {
+        return error;
+    }
+
+    public double getRunTime() {
+        return runTime;
+    }
+
+    public boolean isTimeout() {
+        return timeout;
+    }
+
+    public boolean isAborted() {
+        return aborted;
+    }
+
+    public ResourceUsage getUsage() {
+        return usage;
+    }
+
+    public void setUsage(ResourceUsage usage) {
+        this.usage = usage;
+    }
+
+    public double getCpuTime() {
+        return cpuTime;
+    }
+
+    public void setCpuTime(double cpuTime) {
+        this.cpuTime = cpuTime;
+    }
+}
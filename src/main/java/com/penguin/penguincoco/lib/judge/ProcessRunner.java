@@ -0,0 +1,153 @@
+package com.penguin.penguincoco.lib.judge;
+
+import org.apache.commons.io.FileUtils;
+import org.apache.commons.io.IOUtils;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+
+public class ProcessRunner {
+
+    private static final String STDIN_FILE = ".stdin";
+    private static final String STDOUT_FILE = ".stdout";
+    private static final String STDERR_FILE = ".stderr";
+    // 讀回輸出檔案時保留的最大字元數，避免大量輸出佔滿記憶體
+    public static final int READ_LIMIT = 64 * 1024;
+    private static final String PRLIMIT_COMMAND = ProcessSupervisor.findCommand("prlimit");
+
+    public static ProcessResult run(List<String> command, File directory, String input,
+                                    long timeLimitMillis, Charset charset) throws IOException, InterruptedException {
+        return run(command, directory, input, timeLimitMillis, charset, (Sandbox) null);
+    }
+
+    // 在指定目錄下執行指令並等待結束，標準輸入輸出都導向檔案，避免pipe塞滿造成子行程卡住；sandbox不為null時在其資源限制下執行
+    public static ProcessResult run(List<String> command, File directory, String input, long timeLimitMillis,
+                                    Charset charset, Sandbox sandbox) throws IOException, InterruptedException {
+        Process process = start(command, directory, input, charset, sandbox, 0, true);
+        ProcessSupervisor.Supervision supervision = ProcessSupervisor.getInstance().supervise(process, timeLimitMillis, sandbox);
+        try {
+            supervision.await();
+        } finally {
+            supervision.close();
+        }
+        return readResult(process, supervision, directory, charset, sandbox);
+    }
+
+    // 與run相同但不等待，行程結束後在executor上讀回輸出；執行期間不佔用任何執行緒
+    // maxFileBytes大於0時以RLIMIT_FSIZE限制單一檔案大小，寫到上限時寫入失敗(EFBIG)或收到SIGXFSZ
+    public static CompletableFuture<ProcessResult> runAsync(List<String> command, File directory, String input, long timeLimitMillis,
+                                                            Charset charset, Sandbox sandbox, long maxFileBytes,
+                                                            Executor executor) throws IOException {
+        Process process = start(command, directory, input, charset, sandbox, maxFileBytes, true);
+        ProcessSupervisor.Supervision supervision = ProcessSupervisor.getInstance().supervise(process, timeLimitMillis, sandbox);
+        return supervision.onExit().thenApplyAsync(exited -> {
+            supervision.close();
+            try {
+                return readResult(process, supervision, directory, charset, sandbox);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }, executor);
+    }
+
+    // 標準輸出直接以pipe交給comparator邊讀邊比對，確定WA或超過輸出上限時立即結束整個行程樹；時間上限由ProcessSupervisor強制執行
+    // 呼叫端的執行緒只負責讀取比對輸出，讀完後不等待行程結束，結束後在executor上組成結果
+    public static CompletableFuture<ProcessResult> runAsync(List<String> command, File directory, String input, long timeLimitMillis,
+                                                            Charset charset, StreamingOutputComparator comparator, Sandbox sandbox,
+                                                            long maxFileBytes, Executor executor) throws IOException {
+        Process process = start(command, directory, input, charset, sandbox, maxFileBytes, false);
+        ProcessSupervisor.Supervision supervision = ProcessSupervisor.getInstance().supervise(process, timeLimitMillis, sandbox);
+        boolean isAborted;
+        try (InputStream stdout = process.getInputStream()) {
+            isAborted = !comparator.consume(stdout, charset) && !supervision.isTimeout();
+        } catch (IOException e) {
+            // 子行程被強制結束時pipe可能在讀取中被關閉
+            isAborted = false;
+        }
+        if (isAborted) {
+            supervision.kill();
+        }
+        boolean isKilled = isAborted;
+        return supervision.onExit().thenApplyAsync(exited -> {
+            supervision.close();
+            try {
+                String error = readPrefix(new File(directory, STDERR_FILE), charset, READ_LIMIT);
+                boolean isTimeout = supervision.isTimeout();
+                ProcessResult result = new ProcessResult(isTimeout ? -1 : process.exitValue(), comparator.getDisplayOutput(),
+                        error, supervision.getRunTime(), isTimeout, isKilled);
+                collectUsage(result, error, sandbox);
+                return result;
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }, executor);
+    }
+
+    // 由內而外：sandbox的限制、RLIMIT_FSIZE、新的session
+    private static Process start(List<String> command, File directory, String input, Charset charset,
+                                 Sandbox sandbox, long maxFileBytes, boolean isOutputToFile) throws IOException {
+        File stdin = new File(directory, STDIN_FILE);
+        FileUtils.writeStringToFile(stdin, input == null ? "" : input, charset);
+        List<String> limited = limitFileSize(sandbox == null ? command : sandbox.wrap(command), maxFileBytes);
+        ProcessBuilder builder = new ProcessBuilder(ProcessSupervisor.inNewSession(limited))
+                .directory(directory)
+                .redirectInput(stdin)
+                .redirectError(new File(directory, STDERR_FILE));
+        if (isOutputToFile) {
+            builder.redirectOutput(new File(directory, STDOUT_FILE));
+        }
+        return builder.start();
+    }
+
+    private static ProcessResult readResult(Process process, ProcessSupervisor.Supervision supervision, File directory,
+                                            Charset charset, Sandbox sandbox) throws IOException {
+        boolean finished = !supervision.isTimeout();
+        String output = readPrefix(new File(directory, STDOUT_FILE), charset, READ_LIMIT);
+        String error = readPrefix(new File(directory, STDERR_FILE), charset, READ_LIMIT);
+        ProcessResult result = new ProcessResult(finished ? process.exitValue() : -1, output, error, supervision.getRunTime(), !finished);
+        collectUsage(result, error, sandbox);
+        return result;
+    }
+
+    private static void collectUsage(ProcessResult result, String error, Sandbox sandbox) {
+        if (sandbox != null) {
+            result.setUsage(sandbox.collect(result.getExitCode(), error));
+            result.setCpuTime(result.getUsage().getCpuTimeMillis());
+        }
+    }
+
+    // 以prlimit設定RLIMIT_FSIZE，單一檔案寫到上限時寫入失敗(EFBIG)或收到SIGXFSZ，執行期間就無法寫滿磁碟；找不到prlimit時不設定
+    public static List<String> limitFileSize(List<String> command, long maxFileBytes) {
+        if (PRLIMIT_COMMAND == null || maxFileBytes <= 0) {
+            return command;
+        }
+        List<String> wrapped = new ArrayList<>();
+        wrapped.add(PRLIMIT_COMMAND);
+        wrapped.add("--fsize=" + maxFileBytes);
+        wrapped.add("--");
+        wrapped.addAll(command);
+        return wrapped;
+    }
+
+    // 只讀取檔案開頭的部分內容
+    public static String readPrefix(File file, Charset charset, int maxChars) throws IOException {
+        if (!file.exists()) {
+            return "";
+        }
+        try (Reader reader = new InputStreamReader(new FileInputStream(file), charset)) {
+            char[] buffer = new char[(int) Math.min(maxChars, Math.max(file.length(), 1))];
+            int length = IOUtils.read(reader, buffer);
+            return new String(buffer, 0, length);
+        }
+    }
+}
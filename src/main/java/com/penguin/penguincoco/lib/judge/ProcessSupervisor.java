@@ -0,0 +1,210 @@
+package com.penguin.penguincoco.lib.judge;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+// 以單一看門狗執行緒監督所有執行中的行程:時間到時結束整個行程樹，並定期記錄子孫行程；
+// 每個行程在自己的session與process group中執行，結束時以kill -- -pgid(或sandbox的cgroup.kill)連同已被重新掛到init底下的孤兒行程一起結束。
+// 行程結束由ProcessHandle.onExit通知，收尾在reaper執行緒進行，呼叫端以onExit()接續，不需要每個行程一個等待執行緒；
+// 結束process group需要啟動kill指令，一律交給reaper執行緒，看門狗的時間上限不會被排在後面
+public class ProcessSupervisor {
+
+    private static final ProcessSupervisor INSTANCE = new ProcessSupervisor();
+    // 記錄子孫行程的間隔(毫秒)，descendants()需要掃描/proc，不宜太頻繁
+    private static final long SNAPSHOT_INTERVAL_MILLIS = 100;
+    private static final String SETSID_COMMAND = findCommand("setsid");
+    private static final String KILL_COMMAND = findCommand("kill");
+    private static final int REAPER_THREADS = 2;
+
+    private ScheduledExecutorService watchdog = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "judge-process-watchdog");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private ExecutorService reaper = Executors.newFixedThreadPool(REAPER_THREADS, runnable -> {
+        Thread thread = new Thread(runnable, "judge-process-reaper");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private Set<Supervision> supervisions = ConcurrentHashMap.newKeySet();
+
+    private ProcessSupervisor() {
+        watchdog.scheduleWithFixedDelay(() -> supervisions.forEach(Supervision::track),
+                SNAPSHOT_INTERVAL_MILLIS, SNAPSHOT_INTERVAL_MILLIS, TimeUnit.MILLISECONDS);
+    }
+
+    public static ProcessSupervisor getInstance() {
+        return INSTANCE;
+    }
+
+    // 開始監督剛啟動的行程，超過timeLimitMillis即結束整個行程樹並標記為逾時；sandbox不為null時也結束其cgroup中的所有行程
+    // 呼叫端讀完輸出後必須close，在那之前時間上限都有效(主行程結束但孤兒行程仍佔住輸出pipe時也會被結束)
+    public Supervision supervise(Process process, long timeLimitMillis, Sandbox sandbox) {
+        Supervision supervision = new Supervision(process, sandbox, watchdog, reaper);
+        supervisions.add(supervision);
+        supervision.resetDeadline(timeLimitMillis);
+        process.onExit()
+                .thenRun(() -> supervision.exitTime = System.nanoTime())
+                .thenRunAsync(() -> {
+                    supervisions.remove(supervision);
+                    // 主行程結束後仍存活的子孫行程(例如背景執行的子行程)一併結束，結束後才通知呼叫端
+                    supervision.killDescendants();
+                    supervision.killProcessGroup();
+                    supervision.exited.complete(null);
+                }, reaper);
+        return supervision;
+    }
+
+    // 以setsid讓行程在新的session中執行，session id與process group id即為該行程的pid；
+    // 即使子孫行程已被重新掛到init底下(例如"(cmd &)")，只要沒有再呼叫setsid或setpgid仍在同一個process group
+    public static List<String> inNewSession(List<String> command) {
+        if (SETSID_COMMAND == null) {
+            return command;
+        }
+        List<String> wrapped = new ArrayList<>();
+        wrapped.add(SETSID_COMMAND);
+        wrapped.addAll(command);
+        return wrapped;
+    }
+
+    static String findCommand(String name) {
+        for (String directory : Arrays.asList("/usr/bin", "/bin")) {
+            File file = new File(directory, name);
+            if (file.canExecute()) {
+                return file.getPath();
+            }
+        }
+        return null;
+    }
+
+    // 以SIGKILL結束整個process group，group中已沒有行程時kill會失敗，直接忽略
+    private static void killProcessGroup(long processGroupId) {
+        if (SETSID_COMMAND == null || KILL_COMMAND == null) {
+            return;
+        }
+        try {
+            Process kill = new ProcessBuilder(KILL_COMMAND, "-KILL", "--", "-" + processGroupId)
+                    .redirectOutput(ProcessBuilder.Redirect.DISCARD)
+                    .redirectError(ProcessBuilder.Redirect.DISCARD)
+                    .start();
+            if (!kill.waitFor(1, TimeUnit.SECONDS)) {
+                kill.destroyForcibly();
+            }
+        } catch (IOException e) {
+            e.printStackTrace();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    public int getSupervisedCount() {
+        return supervisions.size();
+    }
+
+    public static class Supervision implements AutoCloseable {
+
+        private Process process;
+        private Sandbox sandbox;
+        private ScheduledExecutorService watchdog;
+        private ExecutorService reaper;
+        private ScheduledFuture<?> deadline;
+        private Set<ProcessHandle> descendants = ConcurrentHashMap.newKeySet();
+        private CompletableFuture<Void> exited = new CompletableFuture<>();
+        private long startTime = System.nanoTime();
+        private volatile long exitTime;
+        private volatile boolean timeout;
+
+        private Supervision(Process process, Sandbox sandbox, ScheduledExecutorService watchdog, ExecutorService reaper) {
+            this.process = process;
+            this.sandbox = sandbox;
+            this.watchdog = watchdog;
+            this.reaper = reaper;
+        }
+
+        private void track() {
+            process.descendants().forEach(descendants::add);
+        }
+
+        // 從現在起重新計算時間上限，同一個行程依序執行多個測資時每個測資各自計時
+        public synchronized void resetDeadline(long timeLimitMillis) {
+            if (deadline != null) {
+                deadline.cancel(false);
+            }
+            deadline = watchdog.schedule(() -> kill(true), timeLimitMillis, TimeUnit.MILLISECONDS);
+        }
+
+        // 比對結果已確定(WA、OLE)時由呼叫端提前結束
+        public void kill() {
+            kill(false);
+        }
+
+        private void kill(boolean isTimeout) {
+            if (isTimeout) {
+                timeout = true;
+            }
+            if (process.isAlive()) {
+                track();
+            }
+            killDescendants();
+            process.destroyForcibly();
+            reaper.execute(this::killProcessGroup);
+        }
+
+        // 已記錄的子孫行程直接結束；cgroup包含所有子孫行程(即使呼叫了setsid)
+        private void killDescendants() {
+            descendants.removeIf(handle -> !handle.isAlive());
+            descendants.forEach(ProcessHandle::destroyForcibly);
+            if (sandbox != null && sandbox.getCgroupDirectory() != null) {
+                sandbox.killAll();
+            }
+        }
+
+        // 沒有cgroup時以process group結束未被記錄到的孤兒行程，需要啟動kill指令，只在reaper執行緒呼叫
+        private void killProcessGroup() {
+            if (sandbox == null || sandbox.getCgroupDirectory() == null) {
+                ProcessSupervisor.killProcessGroup(process.pid());
+            }
+        }
+
+        // 行程結束且殘留的子孫行程都已結束時完成，在reaper執行緒上完成，後續工作應指定自己的executor
+        public CompletableFuture<Void> onExit() {
+            return exited;
+        }
+
+        // 等待行程結束(包含被看門狗結束)，只用於編譯等每次批改一次的行程
+        public void await() throws InterruptedException {
+            try {
+                exited.get();
+            } catch (ExecutionException e) {
+                throw new IllegalStateException(e.getCause());
+            }
+        }
+
+        // 時間上限到時主行程仍在執行，或輸出pipe仍被子孫行程佔住而尚未讀完
+        public boolean isTimeout() {
+            return timeout;
+        }
+
+        @Override
+        public synchronized void close() {
+            deadline.cancel(false);
+        }
+
+        // 從啟動到結束的時間(毫秒)
+        public double getRunTime() {
+            return ((exitTime == 0 ? System.nanoTime() : exitTime) - startTime) / 1_000_000.0;
+        }
+    }
+}
@@ -0,0 +1,157 @@
+package com.penguin.penguincoco.lib.judge;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.apache.commons.io.FileUtils;
+
+import java.io.*;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.*;
+import java.util.concurrent.*;
+
+public class PythonWorkerPool implements Closeable {
+
+    private static final String SCRIPT_RESOURCE = "judge/python_forkserver.py";
+    // fork server本身的回應寬限時間(毫秒)，超過則視為fork server故障
+    private static final long REPLY_GRACE_MILLIS = 5000;
+
+    private ObjectMapper objectMapper = new ObjectMapper();
+    private ScheduledExecutorService watchdogExecutor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "python-pool-watchdog");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private BlockingQueue<ForkServer> idleServers;
+    private File script;
+    private String pythonCommand;
+    private volatile boolean isClosed;
+
+    // 預先啟動size個fork server，每個server一次處理一個執行請求
+    public PythonWorkerPool(String pythonCommand, int size) throws IOException {
+        this.pythonCommand = pythonCommand;
+        this.script = extractScript();
+        this.idleServers = new ArrayBlockingQueue<>(size);
+        for (int i = 0; i < size; i++) {
+            idleServers.add(new ForkServer());
+        }
+    }
+
+    // 由fork server以新fork的子行程執行file，標準輸入輸出透過測資目錄中的檔案傳遞；sandbox不為null時子行程在執行代碼前先套用其限制
+    // maxFileBytes大於0時子行程設定RLIMIT_FSIZE，單一檔案無法寫超過此大小
+    public ProcessResult run(File file, File directory, String input, long timeLimitMillis,
+                             Charset charset, Sandbox sandbox, long maxFileBytes) throws IOException, InterruptedException {
+        File stdin = new File(directory, ".stdin");
+        File stdout = new File(directory, ".stdout");
+        File stderr = new File(directory, ".stderr");
+        FileUtils.writeStringToFile(stdin, input == null ? "" : input, charset);
+
+        Map<String, Object> request = new HashMap<>();
+        request.put("file", file.getAbsolutePath());
+        request.put("cwd", directory.getAbsolutePath());
+        request.put("stdin", stdin.getAbsolutePath());
+        request.put("stdout", stdout.getAbsolutePath());
+        request.put("stderr", stderr.getAbsolutePath());
+        request.put("timeout", timeLimitMillis);
+        request.put("encoding", charset.name());
+        if (maxFileBytes > 0) {
+            request.put("fsize", maxFileBytes);
+        }
+        if (sandbox != null && sandbox.getCgroupDirectory() != null) {
+            request.put("cgroup", sandbox.getCgroupDirectory().getAbsolutePath());
+        }
+        else if (sandbox != null) {
+            Map<String, Object> limits = new HashMap<>();
+            limits.put("cpu", Math.max(1, (sandbox.getLimits().getCpuTimeMillis() + 999) / 1000));
+            limits.put("memory", sandbox.getLimits().getMemoryBytes());
+            request.put("limits", limits);
+        }
+
+        ForkServer server = idleServers.take();
+        JsonNode reply;
+        try {
+            reply = server.send(objectMapper.writeValueAsString(request), timeLimitMillis + REPLY_GRACE_MILLIS);
+        } catch (IOException e) {
+            server.destroy();
+            server = isClosed ? null : new ForkServer();
+            throw e;
+        } finally {
+            if (server != null) {
+                idleServers.add(server);
+            }
+        }
+        if (reply.has("error")) {
+            throw new IOException(reply.get("error").asText());
+        }
+        String output = ProcessRunner.readPrefix(stdout, charset, ProcessRunner.READ_LIMIT);
+        String error = ProcessRunner.readPrefix(stderr, charset, ProcessRunner.READ_LIMIT);
+        ProcessResult result = new ProcessResult(reply.get("exit").asInt(), output, error,
+                reply.get("time").asDouble(), reply.get("timeout").asBoolean());
+        if (sandbox != null) {
+            result.setUsage(sandbox.collect(result.getExitCode(), error));
+        }
+        // cgroup的統計包含子行程再產生的行程，沒有cgroup時使用fork server以wait4取得的CPU時間
+        boolean isCgroupCpuTime = result.getUsage() != null && result.getUsage().getCpuTimeMillis() >= 0;
+        result.setCpuTime(isCgroupCpuTime ? result.getUsage().getCpuTimeMillis() : reply.path("cpu").asDouble(-1));
+        return result;
+    }
+
+    @Override
+    public void close() {
+        isClosed = true;
+        List<ForkServer> servers = new ArrayList<>();
+        idleServers.drainTo(servers);
+        servers.forEach(ForkServer::destroy);
+        watchdogExecutor.shutdownNow();
+    }
+
+    private File extractScript() throws IOException {
+        File file = Files.createTempFile("penguin-forkserver", ".py").toFile();
+        file.deleteOnExit();
+        try (InputStream in = PythonWorkerPool.class.getClassLoader().getResourceAsStream(SCRIPT_RESOURCE)) {
+            if (in == null) {
+                throw new IOException("fork server script not found: " + SCRIPT_RESOURCE);
+            }
+            FileUtils.copyInputStreamToFile(in, file);
+        }
+        return file;
+    }
+
+    private class ForkServer {
+
+        private Process process;
+        private BufferedWriter writer;
+        private BufferedReader reader;
+
+        ForkServer() throws IOException {
+            process = new ProcessBuilder(pythonCommand, "-u", script.getAbsolutePath())
+                    .redirectError(ProcessBuilder.Redirect.INHERIT)
+                    .start();
+            writer = new BufferedWriter(new OutputStreamWriter(process.getOutputStream(), StandardCharsets.UTF_8));
+            reader = new BufferedReader(new InputStreamReader(process.getInputStream(), StandardCharsets.UTF_8));
+        }
+
+        // 送出請求並等待回應，逾時則強制結束fork server避免批改執行緒永久卡住
+        JsonNode send(String request, long timeoutMillis) throws IOException {
+            writer.write(request);
+            writer.newLine();
+            writer.flush();
+            ScheduledFuture<?> watchdog = watchdogExecutor.schedule(this::destroy, timeoutMillis, TimeUnit.MILLISECONDS);
+            String line;
+            try {
+                line = reader.readLine();
+            } finally {
+                watchdog.cancel(false);
+            }
+            if (line == null) {
+                throw new IOException("python fork server exited");
+            }
+            return objectMapper.readTree(line);
+        }
+
+        void destroy() {
+            process.destroyForcibly();
+        }
+    }
+}
@@ -0,0 +1,29 @@
+package com.penguin.penguincoco.lib.judge;
+
+public class ResourceLimits {
+
+    // CPU時間上限(毫秒)
+    private long cpuTimeMillis;
+    // 記憶體上限(bytes)
+    private long memoryBytes;
+    // 同時存在的行程(含執行緒)數上限
+    private int maxProcesses;
+
+    public ResourceLimits(long cpuTimeMillis, long memoryBytes, int maxProcesses) {
+        this.cpuTimeMillis = cpuTimeMillis;
+        this.memoryBytes = memoryBytes;
+        this.maxProcesses = maxProcesses;
+    }
+
+    public long getCpuTimeMillis() {
+        return cpuTimeMillis;
+    }
+
+    public long getMemoryBytes() {
+        return memoryBytes;
+    }
+
+    public int getMaxProcesses() {
+        return maxProcesses;
+    }
+}
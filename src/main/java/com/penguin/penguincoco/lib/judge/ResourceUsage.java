@@ -0,0 +1,53 @@
+package com.penguin.penguincoco.lib.judge;
+
+public class ResourceUsage {
+
+    // CPU時間(毫秒)，無法量測時為-1
+    private double cpuTimeMillis;
+    // 記憶體用量峰值(bytes)，無法量測時為-1
+    private long peakMemoryBytes;
+    private boolean cpuTimeLimitExceeded;
+    private boolean memoryLimitExceeded;
+    private boolean processLimitExceeded;
+    // sandbox本身失敗(無法讀取統計或結束行程)的原因，此時用量與判定都不可信，null表示正常
+    private String sandboxError;
+
+    public ResourceUsage(double cpuTimeMillis, long peakMemoryBytes, boolean cpuTimeLimitExceeded,
+                         boolean memoryLimitExceeded, boolean processLimitExceeded) {
+        this(cpuTimeMillis, peakMemoryBytes, cpuTimeLimitExceeded, memoryLimitExceeded, processLimitExceeded, null);
+    }
+
+    public ResourceUsage(double cpuTimeMillis, long peakMemoryBytes, boolean cpuTimeLimitExceeded,
+                         boolean memoryLimitExceeded, boolean processLimitExceeded, String sandboxError) {
+        this.cpuTimeMillis = cpuTimeMillis;
+        this.peakMemoryBytes = peakMemoryBytes;
+        this.cpuTimeLimitExceeded = cpuTimeLimitExceeded;
+        this.memoryLimitExceeded = memoryLimitExceeded;
+        this.processLimitExceeded = processLimitExceeded;
+        this.sandboxError = sandboxError;
+    }
+
+    public double getCpuTimeMillis() {
+        return cpuTimeMillis;
+    }
+
+    public long getPeakMemoryBytes() {
+        return peakMemoryBytes;
+    }
+
+    public boolean isCpuTimeLimitExceeded() {
+        return cpuTimeLimitExceeded;
+    }
+
+    public boolean isMemoryLimitExceeded() {
+        return memoryLimitExceeded;
+    }
+
+    public boolean isProcessLimitExceeded() {
+        return processLimitExceeded;
+    }
+
+    public String getSandboxError() {
+        return sandboxError;
+    }
+}
@@ -0,0 +1,89 @@
+package com.penguin.penguincoco.lib.judge;
+
+import org.apache.commons.io.FileUtils;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+// 沒有cgroup v2時的退路，以shell的ulimit設定CPU時間與記憶體上限(0表示不限制)；無法量測記憶體峰值，只能從錯誤訊息判斷MLE
+// CPU時間由shell的times指令取得子行程的user+sys時間(精度為10毫秒)
+// 不限制行程數：RLIMIT_NPROC以uid計算，會把批改伺服器本身的執行緒與同時執行的其他測資都算進去，無法作為單次執行的上限；需要時請使用cgroup
+public class RlimitSandbox extends Sandbox {
+
+    // 超過RLIMIT_CPU時核心送出SIGXCPU，Process.exitValue為128+訊號編號
+    private static final int SIGXCPU_EXIT_CODE = 128 + 24;
+    private static final Pattern TIMES_PATTERN = Pattern.compile("(\\d+)m([\\d.]+)s");
+
+    private File timesFile;
+
+    public RlimitSandbox(ResourceLimits limits) throws IOException {
+        super(limits);
+        this.timesFile = File.createTempFile("judge-times-", ".txt");
+    }
+
+    // JVM保留的虛擬記憶體遠大於實際用量，無法以ulimit -v限制，改加上-Xmx限制heap
+    // 指令不以exec取代shell，才能在子行程結束後由shell印出其CPU時間
+    @Override
+    public List<String> wrap(List<String> command) {
+        long memoryKilobytes = limits.getMemoryBytes() / 1024;
+        boolean isJava = !command.isEmpty() && command.get(0).endsWith("java");
+        StringBuilder script = new StringBuilder();
+        if (limits.getCpuTimeMillis() > 0) {
+            script.append("ulimit -t ").append((limits.getCpuTimeMillis() + 999) / 1000).append(" && ");
+        }
+        if (!isJava && memoryKilobytes > 0) {
+            script.append("ulimit -v ").append(memoryKilobytes).append(" && ");
+        }
+        script.append("\"$@\"; status=$?; times > \"$0\"; exit $status");
+
+        List<String> wrapped = new ArrayList<>();
+        wrapped.add("sh");
+        wrapped.add("-c");
+        wrapped.add(script.toString());
+        wrapped.add(timesFile.getAbsolutePath());
+        if (isJava && memoryKilobytes > 0) {
+            wrapped.add(command.get(0));
+            wrapped.add("-Xmx" + memoryKilobytes + "k");
+            wrapped.addAll(command.subList(1, command.size()));
+        }
+        else {
+            wrapped.addAll(command);
+        }
+        return wrapped;
+    }
+
+    @Override
+    public ResourceUsage collect(int exitCode, String error) {
+        boolean isMemoryError = exitCode != 0 && error != null
+                && (error.contains("java.lang.OutOfMemoryError") || error.contains("MemoryError"));
+        return new ResourceUsage(readChildrenCpuTime(), -1, exitCode == SIGXCPU_EXIT_CODE, isMemoryError, false);
+    }
+
+    @Override
+    public void close() {
+        FileUtils.deleteQuietly(timesFile);
+    }
+
+    // times輸出兩行，第二行為子行程的user與sys時間，例如"0m1.23s 0m0.01s"
+    private double readChildrenCpuTime() {
+        try {
+            List<String> lines = FileUtils.readLines(timesFile, StandardCharsets.UTF_8);
+            if (lines.size() < 2) {
+                return -1;
+            }
+            double cpuTimeMillis = 0;
+            Matcher matcher = TIMES_PATTERN.matcher(lines.get(1));
+            while (matcher.find()) {
+                cpuTimeMillis += (Long.parseLong(matcher.group(1)) * 60 + Double.parseDouble(matcher.group(2))) * 1000;
+            }
+            return cpuTimeMillis;
+        } catch (IOException | NumberFormatException e) {
+            return -1;
+        }
+    }
+}
@@ -0,0 +1,38 @@
+package com.penguin.penguincoco.lib.judge;
+
+import java.io.Closeable;
+import java.io.File;
+import java.util.List;
+
+// 一次執行的資源限制環境，使用完畢必須close
+public abstract class Sandbox implements Closeable {
+
+    protected ResourceLimits limits;
+
+    protected Sandbox(ResourceLimits limits) {
+        this.limits = limits;
+    }
+
+    // 將執行指令包裝成在限制下執行的指令
+    public abstract List<String> wrap(List<String> command);
+
+    // 行程結束後取得資源用量並判斷是否超過限制
+    public abstract ResourceUsage collect(int exitCode, String error);
+
+    // cgroup模式下子行程要加入的cgroup目錄，rlimit模式為null
+    public File getCgroupDirectory() {
+        return null;
+    }
+
+    // 結束此sandbox中所有的行程，無法追蹤行程時不做任何事
+    public void killAll() {
+    }
+
+    public ResourceLimits getLimits() {
+        return limits;
+    }
+
+    @Override
+    public void close() {
+    }
+}
@@ -0,0 +1,72 @@
+package com.penguin.penguincoco.lib.judge;
+
+import org.apache.commons.io.FileUtils;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.List;
+
+public class SandboxFactory {
+
+    private static final List<String> CONTROLLERS = Arrays.asList("cpu", "memory", "pids");
+
+    private File cgroupRoot;
+    private long memoryBytes;
+    private int maxProcesses;
+    private boolean isCgroupAvailable;
+
+    // cgroupRoot為cgroup v2階層中專給批改使用的群組(例如/sys/fs/cgroup/judge)，無法建立或啟用controller時改用rlimit
+    public SandboxFactory(File cgroupRoot, long memoryBytes, int maxProcesses) {
+        this.cgroupRoot = cgroupRoot;
+        this.memoryBytes = memoryBytes;
+        this.maxProcesses = maxProcesses;
+        this.isCgroupAvailable = initCgroupRoot();
+    }
+
+    // 建立一次執行用的sandbox，CPU時間上限與該測資的時間上限相同
+    public Sandbox create(long cpuTimeMillis) throws IOException {
+        ResourceLimits limits = new ResourceLimits(cpuTimeMillis, memoryBytes, maxProcesses);
+        if (isCgroupAvailable) {
+            return new CgroupSandbox(cgroupRoot, limits);
+        }
+        return new RlimitSandbox(limits);
+    }
+
+    // 不設任何限制，只量測CPU時間
+    public static Sandbox createMeasureOnly() throws IOException {
+        return new RlimitSandbox(new ResourceLimits(0, 0, 0));
+    }
+
+    public boolean isCgroupAvailable() {
+        return isCgroupAvailable;
+    }
+
+    // 在上層群組與cgroupRoot的subtree_control啟用cpu、memory、pids，子群組才能設定這些限制
+    private boolean initCgroupRoot() {
+        File parent = cgroupRoot.getParentFile();
+        if (parent == null || !new File(parent, "cgroup.controllers").exists()) {
+            return false;
+        }
+        try {
+            enableControllers(parent);
+            FileUtils.forceMkdir(cgroupRoot);
+            enableControllers(cgroupRoot);
+            String enabled = FileUtils.readFileToString(new File(cgroupRoot, "cgroup.subtree_control"), StandardCharsets.UTF_8);
+            return Arrays.asList(enabled.trim().split("\\s+")).containsAll(CONTROLLERS);
+        } catch (IOException e) {
+            return false;
+        }
+    }
+
+    private void enableControllers(File group) throws IOException {
+        File subtreeControl = new File(group, "cgroup.subtree_control");
+        String enabled = FileUtils.readFileToString(subtreeControl, StandardCharsets.UTF_8);
+        for (String controller : CONTROLLERS) {
+            if (!Arrays.asList(enabled.trim().split("\\s+")).contains(controller)) {
+                FileUtils.writeStringToFile(subtreeControl, "+" + controller, StandardCharsets.UTF_8);
+            }
+        }
+    }
+}
@@ -0,0 +1,180 @@
+package com.penguin.penguincoco.lib.judge;
+
+import org.apache.commons.io.input.CountingInputStream;
+import org.apache.commons.lang3.StringUtils;
+
+import java.io.*;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.List;
+
+public class StreamingOutputComparator {
+
+    // 保留給前端顯示的輸出長度(字元)
+    public static final int DISPLAY_LIMIT = 4096;
+    private static final int BUFFER_SIZE = 8192;
+
+    private List<String> expectedLines = new ArrayList<>();
+    private long outputLimitBytes;
+    private StringBuilder display = new StringBuilder();
+    private StringBuilder pendingBlank = new StringBuilder();
+    private boolean isPendingBlankOverflow = false;
+    private boolean isLastCarriageReturn = false;
+    private int lineIndex = 0;
+    private int column = 0;
+    private boolean isWrongAnswer = false;
+    private boolean isOutputLimitExceeded = false;
+    private boolean isFinished = false;
+
+    // 比對規則:忽略換行符號差異、行尾空白與結尾空行
+    public StreamingOutputComparator(String expected, long outputLimitBytes) {
+        this.outputLimitBytes = outputLimitBytes;
+        if (expected != null) {
+            for (String line : expected.replace("\r\n", "\n").replace('\r', '\n').split("\n")) {
+                expectedLines.add(StringUtils.stripEnd(line, null));
+            }
+        }
+        while (!expectedLines.isEmpty() && expectedLines.get(expectedLines.size() - 1).isEmpty()) {
+            expectedLines.remove(expectedLines.size() - 1);
+        }
+    }
+
+    // 以有上限的緩衝區逐段讀取輸出並比對，一旦確定WA或超過輸出上限就停止讀取並回傳false，讀到結尾則回傳true
+    public boolean consume(InputStream inputStream, Charset charset) throws IOException {
+        CountingInputStream counting = new CountingInputStream(inputStream);
+        Reader reader = new InputStreamReader(counting, charset);
+        char[] buffer = new char[BUFFER_SIZE];
+        int length;
+        while ((length = reader.read(buffer)) != -1) {
+            if (outputLimitBytes > 0 && counting.getByteCount() > outputLimitBytes) {
+                isOutputLimitExceeded = true;
+                return false;
+            }
+            if (!feed(buffer, length)) {
+                return false;
+            }
+        }
+        finish();
+        return true;
+    }
+
+    // 比對程式寫出的檔案，檔案不存在視為沒有輸出
+    public void consume(File file, Charset charset) throws IOException {
+        if (!file.exists()) {
+            finish();
+            return;
+        }
+        if (outputLimitBytes > 0 && file.length() > outputLimitBytes) {
+            isOutputLimitExceeded = true;
+            return;
+        }
+        try (InputStream inputStream = new FileInputStream(file)) {
+            consume(inputStream, charset);
+        }
+    }
+
+    private boolean feed(char[] buffer, int length) {
+        int displayLength = Math.min(length, DISPLAY_LIMIT - display.length());
+        if (displayLength > 0) {
+            display.append(buffer, 0, displayLength);
+        }
+        for (int i = 0; i < length; i++) {
+            char c = buffer[i];
+            if (c == '\n' && isLastCarriageReturn) {
+                isLastCarriageReturn = false;
+                continue;
+            }
+            isLastCarriageReturn = c == '\r';
+            if (c == '\n' || c == '\r') {
+                endLine();
+            }
+            else if (Character.isWhitespace(c)) {
+                appendBlank(c);
+            }
+            else {
+                matchPendingBlank();
+                matchChar(c);
+            }
+            if (isWrongAnswer) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    // 空白可能是行尾空白(忽略)或行中空白，先暫存到遇到下一個非空白字元才比對；超過本行剩餘長度時必定是行尾空白否則就是WA
+    private void appendBlank(char c) {
+        if (isPendingBlankOverflow) {
+            return;
+        }
+        pendingBlank.append(c);
+        if (column + pendingBlank.length() > currentExpectedLine().length()) {
+            isPendingBlankOverflow = true;
+            pendingBlank.setLength(0);
+        }
+    }
+
+    private void matchPendingBlank() {
+        if (isPendingBlankOverflow) {
+            isWrongAnswer = true;
+            return;
+        }
+        for (int i = 0; i < pendingBlank.length() && !isWrongAnswer; i++) {
+            matchChar(pendingBlank.charAt(i));
+        }
+        pendingBlank.setLength(0);
+    }
+
+    private void matchChar(char c) {
+        if (isWrongAnswer) {
+            return;
+        }
+        String expectedLine = currentExpectedLine();
+        if (column >= expectedLine.length() || expectedLine.charAt(column) != c) {
+            isWrongAnswer = true;
+            return;
+        }
+        column++;
+    }
+
+    private void endLine() {
+        if (column != currentExpectedLine().length()) {
+            isWrongAnswer = true;
+        }
+        pendingBlank.setLength(0);
+        isPendingBlankOverflow = false;
+        lineIndex++;
+        column = 0;
+    }
+
+    // 範本行數用完後只允許空行
+    private String currentExpectedLine() {
+        return lineIndex < expectedLines.size() ? expectedLines.get(lineIndex) : "";
+    }
+
+    private void finish() {
+        if (column > 0) {
+            endLine();
+        }
+        if (lineIndex < expectedLines.size()) {
+            isWrongAnswer = true;
+        }
+        isFinished = true;
+    }
+
+    public boolean isAccepted() {
+        return isFinished && !isWrongAnswer && !isOutputLimitExceeded;
+    }
+
+    public boolean isWrongAnswer() {
+        return isWrongAnswer;
+    }
+
+    public boolean isOutputLimitExceeded() {
+        return isOutputLimitExceeded;
+    }
+
+    public String getDisplayOutput() {
+        return display.toString();
+    }
+}
@@ -0,0 +1,15 @@
+package com.penguin.penguincoco.lib.judge;
+
+import com.penguin.penguincoco.lib.model.Command;
+
+import java.io.File;
+import java.io.IOException;
+
+public interface SubmissionCompiler {
+
+    // 編譯代碼，編譯結果輸出到buildDirectory
+    CompileResult compile(Command command, String code, File buildDirectory) throws IOException, InterruptedException;
+
+    // 編譯器版本，作為編譯快取key的一部分
+    String getVersion(Command command);
+}
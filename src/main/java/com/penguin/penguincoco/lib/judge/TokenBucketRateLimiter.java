@@ -0,0 +1,68 @@
+package com.penguin.penguincoco.lib.judge;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+// 每個帳號一個token bucket，最多累積capacity個，每refillMillis補充一個；capacity為0表示不限制
+public class TokenBucketRateLimiter {
+
+    // bucket數超過這個數量時，移除已經補滿(等同新建)的bucket
+    private static final int CLEANUP_THRESHOLD = 10000;
+
+    private int capacity;
+    private long refillMillis;
+    private Map<String, Bucket> buckets = new ConcurrentHashMap<>();
+
+    public TokenBucketRateLimiter(int capacity, long refillMillis) {
+        this.capacity = capacity;
+        this.refillMillis = refillMillis;
+    }
+
+    // 取得一個token，沒有剩餘的token則回傳false
+    public boolean tryAcquire(String account) {
+        if (capacity <= 0) {
+            return true;
+        }
+        long now = System.currentTimeMillis();
+        if (buckets.size() > CLEANUP_THRESHOLD) {
+            buckets.values().removeIf(bucket -> bucket.isFull(now));
+        }
+        return buckets.computeIfAbsent(account, key -> new Bucket(now)).tryAcquire(now);
+    }
+
+    public int getCapacity() {
+        return capacity;
+    }
+
+    private class Bucket {
+
+        private double tokens;
+        private long lastRefillTime;
+
+        private Bucket(long now) {
+            this.tokens = capacity;
+            this.lastRefillTime = now;
+        }
+
+        private synchronized boolean tryAcquire(long now) {
+            refill(now);
+            if (tokens < 1) {
+                return false;
+            }
+            tokens--;
+            return true;
+        }
+
+        private synchronized boolean isFull(long now) {
+            refill(now);
+            return tokens >= capacity;
+        }
+
+        private void refill(long now) {
+            if (now > lastRefillTime) {
+                tokens = Math.min(capacity, tokens + (double) (now - lastRefillTime) / refillMillis);
+                lastRefillTime = now;
+            }
+        }
+    }
+}
@@ -0,0 +1,113 @@
+package com.penguin.penguincoco.lib.judge;
+
+import org.apache.commons.io.FileUtils;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.util.UUID;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+public class WorkspaceManager implements Closeable {
+
+    private static final String TRASH_PREFIX = ".trash-";
+
+    private File root;
+    private long quotaBytes;
+    private ExecutorService cleaner;
+    private AtomicInteger pendingCleanupCount = new AtomicInteger();
+    private AtomicLong activeCount = new AtomicLong();
+
+    // root建議設在tmpfs(例如/dev/shm/judge)，讓測資的檔案讀寫都留在記憶體中；quotaBytes為單一submission工作目錄的空間上限
+    public WorkspaceManager(File root, long quotaBytes) throws IOException {
+        this.root = root.getAbsoluteFile();
+        this.quotaBytes = quotaBytes;
+        this.cleaner = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "judge-workspace-cleaner");
+            thread.setDaemon(true);
+            return thread;
+        });
+        FileUtils.forceMkdir(this.root);
+        // 上次未清完(例如伺服器中途關閉)的工作目錄一併在背景刪除
+        File[] leftovers = this.root.listFiles();
+        if (leftovers != null) {
+            for (File leftover : leftovers) {
+                scheduleDelete(leftover);
+            }
+        }
+    }
+
+    // 為一次submission建立獨一無二的工作目錄，同一學生同時送出也不會互相覆蓋
+    public File acquire(String account) throws IOException {
+        if (root.getUsableSpace() < quotaBytes) {
+            awaitPendingCleanups();
+        }
+        File workspace = new File(root, sanitize(account) + "-" + UUID.randomUUID());
+        FileUtils.forceMkdir(workspace);
+        activeCount.incrementAndGet();
+        return workspace;
+    }
+
+    // 先將工作目錄改名(同一檔案系統上是O(1))，讓批改流程立即返回，實際刪除交給背景執行緒
+    public void release(File workspace) {
+        activeCount.decrementAndGet();
+        File trash = new File(root, TRASH_PREFIX + UUID.randomUUID());
+        scheduleDelete(workspace.renameTo(trash) ? trash : workspace);
+    }
+
+    public long getQuotaBytes() {
+        return quotaBytes;
+    }
+
+    public long getActiveCount() {
+        return activeCount.get();
+    }
+
+    public int getPendingCleanupCount() {
+        return pendingCleanupCount.get();
+    }
+
+    @Override
+    public void close() {
+        cleaner.shutdown();
+    }
+
+    private void scheduleDelete(File directory) {
+        pendingCleanupCount.incrementAndGet();
+        cleaner.execute(() -> {
+            makeWritable(directory);
+            FileUtils.deleteQuietly(directory);
+            pendingCleanupCount.decrementAndGet();
+        });
+    }
+
+    // 剩餘空間不足時才在呼叫端等待背景刪除完成；清理執行緒只有一個，排在最後的空工作完成即代表先前的刪除都已完成
+    private void awaitPendingCleanups() {
+        try {
+            cleaner.submit(() -> { }).get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException e) {
+            e.printStackTrace();
+        }
+    }
+
+    // 編譯結果被設為唯讀，刪除前先恢復可寫
+    private void makeWritable(File file) {
+        file.setWritable(true, true);
+        File[] children = file.listFiles();
+        if (children != null) {
+            for (File child : children) {
+                makeWritable(child);
+            }
+        }
+    }
+
+    private String sanitize(String account) {
+        return account.replaceAll("[^A-Za-z0-9_.-]", "_");
+    }
+}
@@ -0,0 +1,65 @@
+package com.penguin.penguincoco.lib.judge.worker;
+
+import com.penguin.penguincoco.lib.model.JudgeBehavior;
+import com.penguin.penguincoco.lib.model.JudgePolicy;
+import com.penguin.penguincoco.lib.model.Language;
+import com.penguin.penguincoco.lib.model.ProblemCase;
+
+import java.util.List;
+
+// API server交給判題節點的一次批改工作，只包含執行所需的資料，結果寫入資料庫仍由API server負責
+public class JudgeJob {
+
+    private String jobId;
+    private Language language;
+    private String account;
+    private String code;
+    private List<ProblemCase> problemCases;
+    private JudgeBehavior behavior;
+    private JudgePolicy judgePolicy;
+    private List<Integer> caseOrder;
+
+    public JudgeJob(String jobId, Language language, String account, String code, List<ProblemCase> problemCases,
+                    JudgeBehavior behavior, JudgePolicy judgePolicy, List<Integer> caseOrder) {
+        this.jobId = jobId;
+        this.language = language;
+        this.account = account;
+        this.code = code;
+        this.problemCases = problemCases;
+        this.behavior = behavior;
+        this.judgePolicy = judgePolicy;
+        this.caseOrder = caseOrder;
+    }
+
+    public String getJobId() {
+        return jobId;
+    }
+
+    public Language getLanguage() {
+        return language;
+    }
+
+    public String getAccount() {
+        return account;
+    }
+
+    public String getCode() {
+        return code;
+    }
+
+    public List<ProblemCase> getProblemCases() {
+        return problemCases;
+    }
+
+    public JudgeBehavior getBehavior() {
+        return behavior;
+    }
+
+    public JudgePolicy getJudgePolicy() {
+        return judgePolicy;
+    }
+
+    public List<Integer> getCaseOrder() {
+        return caseOrder;
+    }
+}
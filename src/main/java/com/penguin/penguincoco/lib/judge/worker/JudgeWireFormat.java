@@ -0,0 +1,100 @@
+package com.penguin.penguincoco.lib.judge.worker;
+
+import com.penguin.penguincoco.lib.model.*;
+
+import java.util.*;
+
+// JudgeJob與JudgeReport在API server與判題節點之間以JSON傳遞時的Map格式
+public class JudgeWireFormat {
+
+    private JudgeWireFormat() {
+    }
+
+    public static Map<String, Object> toMap(JudgeJob job) {
+        List<Map<String, Object>> problemCases = new ArrayList<>();
+        for (ProblemCase problemCase : job.getProblemCases()) {
+            Map<String, Object> caseMap = new HashMap<>();
+            caseMap.put("input", problemCase.getInputStr());
+            caseMap.put("output", problemCase.getOutput());
+            caseMap.put("sample", problemCase.isSample());
+            problemCases.add(caseMap);
+        }
+        Map<String, Object> result = new HashMap<>();
+        result.put("jobId", job.getJobId());
+        result.put("language", job.getLanguage().name());
+        result.put("account", job.getAccount());
+        result.put("code", job.getCode());
+        result.put("problemCases", problemCases);
+        result.put("behavior", job.getBehavior().name());
+        result.put("judgePolicy", job.getJudgePolicy().name());
+        result.put("caseOrder", job.getCaseOrder());
+        return result;
+    }
+
+    @SuppressWarnings("unchecked")
+    public static JudgeJob toJob(Map<String, Object> map) {
+        List<ProblemCase> problemCases = new ArrayList<>();
+        for (Map<String, Object> caseMap : (List<Map<String, Object>>) map.get("problemCases")) {
+            problemCases.add(new ProblemCase((String) caseMap.get("input"), (String) caseMap.get("output"),
+                    Boolean.TRUE.equals(caseMap.get("sample"))));
+        }
+        List<Integer> caseOrder = null;
+        if (map.get("caseOrder") != null) {
+            caseOrder = new ArrayList<>();
+            for (Object index : (List<Object>) map.get("caseOrder")) {
+                caseOrder.add(((Number) index).intValue());
+            }
+        }
+        return new JudgeJob((String) map.get("jobId"),
+                Language.valueOf((String) map.get("language")),
+                (String) map.get("account"),
+                (String) map.get("code"),
+                problemCases,
+                JudgeBehavior.valueOf((String) map.get("behavior")),
+                JudgePolicy.valueOf((String) map.get("judgePolicy")),
+                caseOrder);
+    }
+
+    public static Map<String, Object> toMap(JudgeReport report) {
+        List<Map<String, Object>> results = new ArrayList<>();
+        for (JudgeProblemResult problemResult : report.getResults()) {
+            Map<String, Object> resultMap = new HashMap<>();
+            resultMap.put("grade", problemResult.getGrade());
+            resultMap.put("output", problemResult.getOutput());
+            resultMap.put("runTime", problemResult.getRunTime());
+            resultMap.put("cpuTime", problemResult.getCpuTime());
+            resultMap.put("symbol", problemResult.getSymbol().name());
+            resultMap.put("message", problemResult.getMessage());
+            results.add(resultMap);
+        }
+        Map<String, Object> result = new HashMap<>();
+        result.put("compileSuccess", report.isCompileSuccess());
+        result.put("compileErrorMessage", report.getCompileErrorMessage());
+        result.put("results", results);
+        return result;
+    }
+
+    // 節點送來的報告缺少欄位或型別不符時丟出IllegalArgumentException
+    @SuppressWarnings("unchecked")
+    public static JudgeReport toReport(Map<String, Object> map) {
+        List<JudgeProblemResult> results = new ArrayList<>();
+        try {
+            for (Map<String, Object> resultMap : (List<Map<String, Object>>) map.get("results")) {
+                JudgeProblemResult problemResult = new JudgeProblemResult(((Number) resultMap.get("grade")).intValue(),
+                        (String) resultMap.get("output"),
+                        ((Number) resultMap.get("runTime")).doubleValue(),
+                        JudgeSymbol.valueOf((String) resultMap.get("symbol")),
+                        (String) resultMap.get("message"));
+                problemResult.setCpuTime(((Number) resultMap.get("cpuTime")).doubleValue());
+                results.add(problemResult);
+            }
+            JudgeReport report = new JudgeReport();
+            report.setCompileSuccess(Boolean.TRUE.equals(map.get("compileSuccess")));
+            report.setCompileErrorMessage((String) map.get("compileErrorMessage"));
+            report.setResults(results);
+            return report;
+        } catch (ClassCastException | NullPointerException e) {
+            throw new IllegalArgumentException("malformed judge report", e);
+        }
+    }
+}
@@ -0,0 +1,21 @@
+package com.penguin.penguincoco.lib.judge.worker;
+
+import com.penguin.penguincoco.lib.judge.JudgeProgressListener;
+import com.penguin.penguincoco.lib.model.JudgeReport;
+
+import java.util.concurrent.CompletableFuture;
+
+// 判題節點的共同介面，同機執行的LocalJudgeWorker與透過HTTP拉取工作的RemoteJudgeWorker都實作此介面
+public interface JudgeWorker {
+
+    String getId();
+
+    // 可同時批改的submission數
+    int getCapacity();
+
+    // 已指派但尚未完成的submission數
+    int getActiveCount();
+
+    // 非同步批改，進入編譯、執行階段時通知listener，完成時回傳報告
+    CompletableFuture<JudgeReport> submit(JudgeJob job, JudgeProgressListener listener);
+}
@@ -0,0 +1,107 @@
+package com.penguin.penguincoco.lib.judge.worker;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.penguin.penguincoco.lib.model.JudgeReport;
+import com.penguin.penguincoco.lib.model.SubmissionStatus;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Map;
+
+// 判題節點呼叫API server /api/worker/** 的HTTP client，回應格式與其他Api相同(status、msg、result)
+public class JudgeWorkerClient {
+
+    public static final String TOKEN_HEADER = "X-Judge-Worker-Token";
+
+    private String serverUrl;
+    private String token;
+    private String workerId;
+    private ObjectMapper objectMapper = new ObjectMapper();
+
+    public JudgeWorkerClient(String serverUrl, String token, String workerId) {
+        this.serverUrl = serverUrl.endsWith("/") ? serverUrl.substring(0, serverUrl.length() - 1) : serverUrl;
+        this.token = token;
+        this.workerId = workerId;
+    }
+
+    // 註冊節點與容量，定期重複呼叫作為心跳
+    public void register(int capacity) throws IOException {
+        Map<String, Object> body = new HashMap<>();
+        body.put("workerId", workerId);
+        body.put("capacity", capacity);
+        request("POST", "/api/worker/register", body, 0);
+    }
+
+    // 長輪詢取得下一個工作，等待waitMillis後仍沒有工作則回傳null
+    @SuppressWarnings("unchecked")
+    public JudgeJob poll(long waitMillis) throws IOException {
+        String path = "/api/worker/poll?workerId=" + URLEncoder.encode(workerId, "UTF-8") + "&waitMillis=" + waitMillis;
+        Object result = request("GET", path, null, (int) waitMillis);
+        if (!(result instanceof Map)) {
+            return null;
+        }
+        return JudgeWireFormat.toJob((Map<String, Object>) result);
+    }
+
+    public void reportStatus(String jobId, SubmissionStatus status) throws IOException {
+        Map<String, Object> body = new HashMap<>();
+        body.put("workerId", workerId);
+        body.put("jobId", jobId);
+        body.put("status", status.name());
+        request("POST", "/api/worker/status", body, 0);
+    }
+
+    public void reportResult(String jobId, JudgeReport report) throws IOException {
+        Map<String, Object> body = new HashMap<>();
+        body.put("workerId", workerId);
+        body.put("jobId", jobId);
+        body.put("report", JudgeWireFormat.toMap(report));
+        request("POST", "/api/worker/result", body, 0);
+    }
+
+    // 節點批改失敗(非學生代碼的錯誤)，由API server改派
+    public void reportError(String jobId, String errorMessage) throws IOException {
+        Map<String, Object> body = new HashMap<>();
+        body.put("workerId", workerId);
+        body.put("jobId", jobId);
+        body.put("errorMessage", errorMessage);
+        request("POST", "/api/worker/result", body, 0);
+    }
+
+    private Object request(String method, String path, Map<String, Object> body, int extraReadTimeoutMillis) throws IOException {
+        HttpURLConnection connection = (HttpURLConnection) new URL(serverUrl + path).openConnection();
+        try {
+            connection.setRequestMethod(method);
+            connection.setConnectTimeout(5000);
+            connection.setReadTimeout(30000 + extraReadTimeoutMillis);
+            connection.setRequestProperty(TOKEN_HEADER, token);
+            connection.setRequestProperty("Accept", "application/json");
+            if (body != null) {
+                connection.setDoOutput(true);
+                connection.setRequestProperty("Content-Type", "application/json;charset=UTF-8");
+                try (OutputStream outputStream = connection.getOutputStream()) {
+                    outputStream.write(objectMapper.writeValueAsString(body).getBytes(StandardCharsets.UTF_8));
+                }
+            }
+            if (connection.getResponseCode() != HttpURLConnection.HTTP_OK) {
+                throw new IOException("judge server responded " + connection.getResponseCode() + " for " + path);
+            }
+            Map<?, ?> message;
+            try (InputStream inputStream = connection.getInputStream()) {
+                message = objectMapper.readValue(inputStream, Map.class);
+            }
+            if (!"200".equals(message.get("status"))) {
+                throw new IOException("judge server rejected " + path + ": " + message.get("msg"));
+            }
+            return message.get("result");
+        } finally {
+            connection.disconnect();
+        }
+    }
+}
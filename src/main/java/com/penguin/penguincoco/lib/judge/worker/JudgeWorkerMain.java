@@ -0,0 +1,141 @@
+package com.penguin.penguincoco.lib.judge.worker;
+
+import com.penguin.penguincoco.lib.judge.*;
+import com.penguin.penguincoco.lib.model.JudgeReport;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+
+import java.io.File;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+// 獨立的判題節點行程：向API server註冊後以HTTP長輪詢拉取工作，在本機批改後回報狀態與報告，學生代碼不在API server上執行
+// 以打包好的jar啟動：java -Djudge.worker.server=http://api-host:8081 -Djudge.worker.token=... -Dloader.main=com.penguin.penguincoco.lib.judge.worker.JudgeWorkerMain -cp penguin-coco.jar org.springframework.boot.loader.PropertiesLauncher
+public class JudgeWorkerMain {
+
+    private static final Logger logger = LoggerFactory.getLogger(JudgeWorkerMain.class);
+    private static final long POLL_WAIT_MILLIS = 20000;
+    private static final long HEARTBEAT_MILLIS = 10000;
+    private static final long RETRY_MILLIS = 3000;
+
+    public static void main(String[] args) throws IOException {
+        String serverUrl = System.getProperty("judge.worker.server", "http://localhost:8081");
+        String token = System.getProperty("judge.worker.token", "");
+        String workerId = System.getProperty("judge.worker.id", ManagementFactory.getRuntimeMXBean().getName());
+        int capacity = Integer.getInteger("judge.worker.capacity", Runtime.getRuntime().availableProcessors());
+
+        WorkspaceManager workspaceManager = new WorkspaceManager(new File(System.getProperty("judge.workspace.root", "judge")),
+                Long.getLong("judge.workspace.quota-mb", 64) * 1024 * 1024);
+        int maxRuns = Integer.getInteger("judge.parallel.max-runs", Runtime.getRuntime().availableProcessors());
+        ExecutorService caseExecutor = Executors.newFixedThreadPool(maxRuns, new CustomizableThreadFactory("judge-case-"));
+        LocalJudgeWorker worker = new LocalJudgeWorker(workerId, capacity, workspaceManager, caseExecutor,
+                createOptionsSupplier(new Semaphore(maxRuns)));
+        JudgeWorkerClient client = new JudgeWorkerClient(serverUrl, token, workerId);
+
+        // 心跳：節點忙碌時不會拉取工作，以重複註冊讓API server知道節點仍存活
+        ScheduledExecutorService heartbeat = Executors.newSingleThreadScheduledExecutor(new CustomizableThreadFactory("judge-worker-heartbeat-"));
+        heartbeat.scheduleWithFixedDelay(() -> {
+            try {
+                client.register(capacity);
+            } catch (IOException e) {
+                logger.warn("judge worker heartbeat failed: {}", e.getMessage());
+            }
+        }, 0, HEARTBEAT_MILLIS, TimeUnit.MILLISECONDS);
+
+        for (int i = 0; i < capacity; i++) {
+            Thread pollThread = new Thread(() -> pollLoop(client, worker, capacity), "judge-worker-poll-" + i);
+            pollThread.start();
+        }
+    }
+
+    private static void pollLoop(JudgeWorkerClient client, LocalJudgeWorker worker, int capacity) {
+        while (!Thread.currentThread().isInterrupted()) {
+            JudgeJob job;
+            try {
+                job = client.poll(POLL_WAIT_MILLIS);
+            } catch (IOException e) {
+                // API server重新啟動後不認得此節點，重新註冊後再拉取
+                logger.warn("judge worker poll failed: {}", e.getMessage());
+                sleepQuietly(RETRY_MILLIS);
+                try {
+                    client.register(capacity);
+                } catch (IOException registerException) {
+                    logger.warn("judge worker register failed: {}", registerException.getMessage());
+                }
+                continue;
+            }
+            if (job == null) {
+                continue;
+            }
+            try {
+                JudgeReport report = worker.judge(job, status -> {
+                    try {
+                        client.reportStatus(job.getJobId(), status);
+                    } catch (IOException e) {
+                        logger.warn("judge worker status report failed: {}", e.getMessage());
+                    }
+                });
+                client.reportResult(job.getJobId(), report);
+            } catch (Exception e) {
+                logger.error("judge job {} failed", job.getJobId(), e);
+                try {
+                    client.reportError(job.getJobId(), String.valueOf(e.getMessage()));
+                } catch (IOException reportException) {
+                    logger.warn("judge worker error report failed: {}", reportException.getMessage());
+                }
+            }
+        }
+    }
+
+    // 批改設定與API server的judge.*設定同名，以-D指定
+    private static Supplier<JudgeOptions> createOptionsSupplier(Semaphore runSlots) throws IOException {
+        PythonWorkerPool pythonWorkerPool = null;
+        if (Boolean.getBoolean("judge.python.pool.enabled")) {
+            pythonWorkerPool = new PythonWorkerPool(System.getProperty("judge.python.command", "python"),
+                    Integer.getInteger("judge.python.pool.size", Runtime.getRuntime().availableProcessors()));
+        }
+        CompilationCache compilationCache = null;
+        if (Boolean.getBoolean("judge.compile-cache.enabled")) {
+            compilationCache = new CompilationCache(new File(System.getProperty("judge.compile-cache.dir", "judge-cache")),
+                    Long.getLong("judge.compile-cache.max-mb", 512) * 1024 * 1024, Boolean.getBoolean("judge.compile-cache.normalize"));
+        }
+        SandboxFactory sandboxFactory = null;
+        if (Boolean.getBoolean("judge.sandbox.enabled")) {
+            sandboxFactory = new SandboxFactory(new File(System.getProperty("judge.sandbox.cgroup-root", "/sys/fs/cgroup/judge")),
+                    Long.getLong("judge.case.memory-limit-mb", 256) * 1024 * 1024, Integer.getInteger("judge.sandbox.max-processes", 128));
+        }
+        PythonWorkerPool finalPythonWorkerPool = pythonWorkerPool;
+        CompilationCache finalCompilationCache = compilationCache;
+        SandboxFactory finalSandboxFactory = sandboxFactory;
+        return () -> {
+            JudgeOptions options = new JudgeOptions();
+            options.setParallelism(Integer.getInteger("judge.parallel.cases-per-submission", 4));
+            options.setTimeLimitMillis(Long.getLong("judge.case.time-limit-ms", 3000));
+            options.setOutputLimitBytes(Long.getLong("judge.case.output-limit-kb", 65536) * 1024);
+            options.setInProcessCompile("internal".equals(System.getProperty("judge.compiler", "internal")));
+            options.setSharedJvm("harness".equals(System.getProperty("judge.java.runner", "process")));
+            options.setPythonWorkerPool(finalPythonWorkerPool);
+            options.setCompilationCache(finalCompilationCache);
+            options.setSandboxFactory(finalSandboxFactory);
+            options.setCpuTime("cpu".equals(System.getProperty("judge.timing.mode", "wall")));
+            options.setMeasureRepeats(Integer.getInteger("judge.timing.best-code-repeats", 1));
+            options.setRunSlots(runSlots);
+            return options;
+        };
+    }
+
+    private static void sleepQuietly(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
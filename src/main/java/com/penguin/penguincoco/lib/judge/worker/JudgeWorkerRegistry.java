@@ -0,0 +1,136 @@
+package com.penguin.penguincoco.lib.judge.worker;
+
+import com.penguin.penguincoco.lib.judge.JudgeProgressListener;
+import com.penguin.penguincoco.lib.model.JudgeReport;
+
+import java.util.*;
+import java.util.concurrent.*;
+
+// API server上所有判題節點的登記表，依剩餘容量分派工作，失聯的遠端節點會被移除並改派其工作
+public class JudgeWorkerRegistry {
+
+    private LocalJudgeWorker localWorker;
+    private long workerTimeoutMillis;
+    // 單一工作從指派到回報結果的期限，節點持續心跳但工作卡住時也不會無限等待
+    private long jobTimeoutMillis;
+    private Map<String, JudgeWorker> workers = new ConcurrentHashMap<>();
+
+    public JudgeWorkerRegistry(long workerTimeoutMillis, long jobTimeoutMillis) {
+        this.workerTimeoutMillis = workerTimeoutMillis;
+        this.jobTimeoutMillis = jobTimeoutMillis;
+    }
+
+    // API server本身也作為一個節點批改，未設定則學生代碼只在遠端節點執行
+    public void setLocalWorker(LocalJudgeWorker localWorker) {
+        this.localWorker = localWorker;
+        workers.put(localWorker.getId(), localWorker);
+    }
+
+    // 註冊或更新遠端節點的容量，已註冊的節點重複呼叫即為心跳
+    public RemoteJudgeWorker register(String workerId, int capacity) {
+        JudgeWorker worker = workers.computeIfAbsent(workerId, id -> new RemoteJudgeWorker(id, capacity));
+        if (!(worker instanceof RemoteJudgeWorker)) {
+            throw new IllegalArgumentException("worker id is used by local worker: " + workerId);
+        }
+        RemoteJudgeWorker remoteWorker = (RemoteJudgeWorker) worker;
+        remoteWorker.setCapacity(capacity);
+        return remoteWorker;
+    }
+
+    public void unregister(String workerId) {
+        JudgeWorker worker = workers.get(workerId);
+        if (worker instanceof RemoteJudgeWorker && workers.remove(workerId, worker)) {
+            ((RemoteJudgeWorker) worker).failAll("judge worker unregistered: " + workerId);
+        }
+    }
+
+    public RemoteJudgeWorker getRemoteWorker(String workerId) {
+        JudgeWorker worker = workers.get(workerId);
+        return worker instanceof RemoteJudgeWorker ? (RemoteJudgeWorker) worker : null;
+    }
+
+    // 交給剩餘容量最多的節點批改並等待結果；遠端節點失聯時改由本機節點批改
+    public JudgeReport judge(JudgeJob job, JudgeProgressListener listener) {
+        JudgeWorker worker = chooseWorker();
+        if (worker == null) {
+            throw new IllegalStateException("no judge worker available");
+        }
+        try {
+            return waitFor(worker, job, worker.submit(job, listener));
+        } catch (ExecutionException e) {
+            if (worker instanceof RemoteJudgeWorker && localWorker != null) {
+                return localWorker.judge(job, listener);
+            }
+            throw new IllegalStateException(e.getCause());
+        }
+    }
+
+    // 剩餘容量最多者優先；全部滿載時選負載比例最低的排隊
+    private JudgeWorker chooseWorker() {
+        removeExpiredWorkers();
+        JudgeWorker best = null;
+        for (JudgeWorker worker : workers.values()) {
+            if (worker.getCapacity() <= 0) {
+                continue;
+            }
+            if (best == null || compareLoad(worker, best) < 0) {
+                best = worker;
+            }
+        }
+        return best;
+    }
+
+    private int compareLoad(JudgeWorker worker, JudgeWorker other) {
+        int free = worker.getCapacity() - worker.getActiveCount();
+        int otherFree = other.getCapacity() - other.getActiveCount();
+        if (free > 0 || otherFree > 0) {
+            return Integer.compare(otherFree, free);
+        }
+        return Double.compare((double) worker.getActiveCount() / worker.getCapacity(),
+                (double) other.getActiveCount() / other.getCapacity());
+    }
+
+    // 等待期間定期檢查節點是否失聯，避免節點當機後永遠等不到結果；超過工作期限則收回工作並視為批改失敗，不再改派
+    private JudgeReport waitFor(JudgeWorker worker, JudgeJob job, CompletableFuture<JudgeReport> future) throws ExecutionException {
+        long deadline = System.currentTimeMillis() + jobTimeoutMillis;
+        while (true) {
+            long remainMillis = deadline - System.currentTimeMillis();
+            if (remainMillis <= 0) {
+                if (worker instanceof RemoteJudgeWorker) {
+                    ((RemoteJudgeWorker) worker).cancel(job.getJobId(), "judge job timed out");
+                }
+                throw new IllegalStateException("judge job timed out: " + job.getJobId() + " on " + worker.getId());
+            }
+            try {
+                return future.get(Math.min(workerTimeoutMillis, remainMillis), TimeUnit.MILLISECONDS);
+            } catch (TimeoutException e) {
+                removeExpiredWorkers();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException(e);
+            }
+        }
+    }
+
+    private void removeExpiredWorkers() {
+        for (JudgeWorker worker : workers.values()) {
+            if (worker instanceof RemoteJudgeWorker && ((RemoteJudgeWorker) worker).isExpired(workerTimeoutMillis)) {
+                unregister(worker.getId());
+            }
+        }
+    }
+
+    // 各節點的容量與目前指派數
+    public Map<String, Object> getMetrics() {
+        removeExpiredWorkers();
+        Map<String, Object> result = new HashMap<>();
+        for (JudgeWorker worker : workers.values()) {
+            Map<String, Object> workerResult = new HashMap<>();
+            workerResult.put("type", worker instanceof LocalJudgeWorker ? "local" : "remote");
+            workerResult.put("capacity", worker.getCapacity());
+            workerResult.put("active", worker.getActiveCount());
+            result.put(worker.getId(), workerResult);
+        }
+        return result;
+    }
+}
@@ -0,0 +1,93 @@
+package com.penguin.penguincoco.lib.judge.worker;
+
+import com.penguin.penguincoco.lib.judge.JudgeOptions;
+import com.penguin.penguincoco.lib.judge.JudgeProgressListener;
+import com.penguin.penguincoco.lib.judge.PipelineJudger;
+import com.penguin.penguincoco.lib.judge.WorkspaceManager;
+import com.penguin.penguincoco.lib.model.JudgeData;
+import com.penguin.penguincoco.lib.model.JudgeReport;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+// 在本機以PipelineJudger批改，API server內建的節點與獨立的判題節點行程都使用這個類別
+public class LocalJudgeWorker implements JudgeWorker, Closeable {
+
+    private String id;
+    private int capacity;
+    private WorkspaceManager workspaceManager;
+    private ExecutorService caseExecutor;
+    // 每次批改都取得一份新的設定(時間限制、沙箱、編譯快取等由節點自己決定)
+    private Supplier<JudgeOptions> optionsSupplier;
+    private ExecutorService jobExecutor;
+    private AtomicInteger activeCount = new AtomicInteger();
+
+    public LocalJudgeWorker(String id, int capacity, WorkspaceManager workspaceManager,
+                            ExecutorService caseExecutor, Supplier<JudgeOptions> optionsSupplier) {
+        this.id = id;
+        this.capacity = capacity;
+        this.workspaceManager = workspaceManager;
+        this.caseExecutor = caseExecutor;
+        this.optionsSupplier = optionsSupplier;
+        CustomizableThreadFactory threadFactory = new CustomizableThreadFactory("judge-local-worker-");
+        threadFactory.setDaemon(true);
+        this.jobExecutor = Executors.newFixedThreadPool(Math.max(1, capacity), threadFactory);
+    }
+
+    @Override
+    public String getId() {
+        return id;
+    }
+
+    @Override
+    public int getCapacity() {
+        return capacity;
+    }
+
+    @Override
+    public int getActiveCount() {
+        return activeCount.get();
+    }
+
+    @Override
+    public CompletableFuture<JudgeReport> submit(JudgeJob job, JudgeProgressListener listener) {
+        activeCount.incrementAndGet();
+        CompletableFuture<JudgeReport> future = CompletableFuture.supplyAsync(() -> judge(job, listener), jobExecutor);
+        future.whenComplete((report, throwable) -> activeCount.decrementAndGet());
+        return future;
+    }
+
+    // 在呼叫端的執行緒直接批改，獨立的判題節點行程以自己的執行緒拉取工作時使用
+    public JudgeReport judge(JudgeJob job, JudgeProgressListener listener) {
+        File workspace;
+        try {
+            workspace = workspaceManager.acquire(job.getAccount());
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        try {
+            JudgeData judgeData = new JudgeData(job.getAccount(), job.getCode(), job.getProblemCases(),
+                    job.getBehavior(), workspace.getPath());
+            JudgeOptions options = optionsSupplier.get();
+            options.setJudgePolicy(job.getJudgePolicy());
+            options.setCaseOrder(job.getCaseOrder());
+            options.setWorkspaceQuotaBytes(workspaceManager.getQuotaBytes());
+            return new PipelineJudger(job.getLanguage(), judgeData, options, caseExecutor, listener).performJudge();
+        } finally {
+            workspaceManager.release(workspace);
+        }
+    }
+
+    @Override
+    public void close() {
+        jobExecutor.shutdownNow();
+    }
+}
@@ -0,0 +1,133 @@
+package com.penguin.penguincoco.lib.judge.worker;
+
+import com.penguin.penguincoco.lib.judge.JudgeProgressListener;
+import com.penguin.penguincoco.lib.model.JudgeReport;
+import com.penguin.penguincoco.lib.model.SubmissionStatus;
+
+import java.util.ArrayList;
+import java.util.Map;
+import java.util.concurrent.*;
+
+// API server端代表一個已註冊的判題節點：指派的工作放進信箱，由節點以HTTP拉取，再回報狀態與報告
+public class RemoteJudgeWorker implements JudgeWorker {
+
+    private String id;
+    private volatile int capacity;
+    private volatile long lastSeenTime;
+    private BlockingQueue<RemoteJob> pendingJobs = new LinkedBlockingQueue<>();
+    // 已指派但尚未回報結果的工作，包含還在信箱中的
+    private Map<String, RemoteJob> assignedJobs = new ConcurrentHashMap<>();
+
+    public RemoteJudgeWorker(String id, int capacity) {
+        this.id = id;
+        this.capacity = capacity;
+        this.lastSeenTime = System.currentTimeMillis();
+    }
+
+    @Override
+    public String getId() {
+        return id;
+    }
+
+    @Override
+    public int getCapacity() {
+        return capacity;
+    }
+
+    public void setCapacity(int capacity) {
+        this.capacity = capacity;
+        touch();
+    }
+
+    @Override
+    public int getActiveCount() {
+        return assignedJobs.size();
+    }
+
+    @Override
+    public CompletableFuture<JudgeReport> submit(JudgeJob job, JudgeProgressListener listener) {
+        RemoteJob remoteJob = new RemoteJob(job, listener);
+        assignedJobs.put(job.getJobId(), remoteJob);
+        pendingJobs.add(remoteJob);
+        return remoteJob.future;
+    }
+
+    // 節點拉取下一個工作，最多等待waitMillis，沒有工作則回傳null；拉取同時視為心跳
+    public JudgeJob poll(long waitMillis) throws InterruptedException {
+        touch();
+        RemoteJob remoteJob = pendingJobs.poll(waitMillis, TimeUnit.MILLISECONDS);
+        touch();
+        return remoteJob == null ? null : remoteJob.job;
+    }
+
+    public boolean onStatusChanged(String jobId, SubmissionStatus status) {
+        touch();
+        RemoteJob remoteJob = assignedJobs.get(jobId);
+        if (remoteJob == null) {
+            return false;
+        }
+        remoteJob.listener.onStatusChanged(status);
+        return true;
+    }
+
+    public boolean onResult(String jobId, JudgeReport report) {
+        touch();
+        RemoteJob remoteJob = assignedJobs.remove(jobId);
+        if (remoteJob == null) {
+            return false;
+        }
+        remoteJob.future.complete(report);
+        return true;
+    }
+
+    // 節點本身批改失敗，以例外結束讓呼叫端改派
+    public boolean onError(String jobId, String errorMessage) {
+        touch();
+        RemoteJob remoteJob = assignedJobs.remove(jobId);
+        if (remoteJob == null) {
+            return false;
+        }
+        remoteJob.future.completeExceptionally(new IllegalStateException(errorMessage));
+        return true;
+    }
+
+    // 工作超過期限仍未回報，收回後節點之後送來的結果會被忽略
+    public boolean cancel(String jobId, String reason) {
+        RemoteJob remoteJob = assignedJobs.remove(jobId);
+        if (remoteJob == null) {
+            return false;
+        }
+        pendingJobs.remove(remoteJob);
+        remoteJob.future.completeExceptionally(new IllegalStateException(reason));
+        return true;
+    }
+
+    // 節點失聯或下線，尚未完成的工作全部以例外結束，由呼叫端改派
+    public void failAll(String reason) {
+        for (RemoteJob remoteJob : new ArrayList<>(assignedJobs.values())) {
+            assignedJobs.remove(remoteJob.job.getJobId());
+            pendingJobs.remove(remoteJob);
+            remoteJob.future.completeExceptionally(new IllegalStateException(reason));
+        }
+    }
+
+    public boolean isExpired(long timeoutMillis) {
+        return System.currentTimeMillis() - lastSeenTime > timeoutMillis;
+    }
+
+    private void touch() {
+        lastSeenTime = System.currentTimeMillis();
+    }
+
+    private static class RemoteJob {
+
+        private JudgeJob job;
+        private JudgeProgressListener listener;
+        private CompletableFuture<JudgeReport> future = new CompletableFuture<>();
+
+        private RemoteJob(JudgeJob job, JudgeProgressListener listener) {
+            this.job = job;
+            this.listener = listener;
+        }
+    }
+}
@@ -0,0 +1,111 @@
+package com.penguin.penguincoco.lib.model;
+
+import java.text.DecimalFormat;
+import java.util.HashMap;
+import java.util.Map;
+
+// 以位元平行(Allison-Dix/Hyyrö)的方式計算LCS長度，結果與LCSAlgorithm相同
+// 只需保存 a.length()/64 個long的狀態列與每個字元的比對遮罩，不必配置 (a+1)*(b+1) 的表格
+public class BitParallelLCSAlgorithm implements SimilarityAlgorithm {
+
+    public BitParallelLCSAlgorithm() {
+
+    }
+
+    @Override
+    public double get(String a, String b) {
+        DecimalFormat format = new DecimalFormat("#.##");
+        String result = format.format(2.0 * getLCS(a, b) / (a.length() + b.length()));
+        return Double.parseDouble(result);
+    }
+
+    // 先以長度比例排除不可能達到門檻的組合，計算途中確定達不到門檻就放棄
+    @Override
+    public double get(String a, String b, double minScore) {
+        int minLCS = LCSAlgorithm.getMinLCS(a.length(), b.length(), minScore);
+        if (minLCS > 0 && Math.min(a.length(), b.length()) < minLCS) {
+            return 0;
+        }
+        int lcs = getLCS(a, b, minLCS);
+        if (lcs < minLCS) {
+            return 0;
+        }
+        DecimalFormat format = new DecimalFormat("#.##");
+        String result = format.format(2.0 * lcs / (a.length() + b.length()));
+        double score = Double.parseDouble(result);
+        return score >= minScore ? score : 0;
+    }
+
+    int getLCS(String a, String b) {
+        return getLCS(a, b, 0);
+    }
+
+    // 以較短的字串作為位元向量，V中為0的位元數即為LCS長度
+    // 每處理64個字元檢查一次：目前的LCS加上b剩下的字元數仍不到minLCS就提早結束，回傳值會<minLCS
+    private int getLCS(String a, String b, int minLCS) {
+        if (a.length() > b.length()) {
+            String temp = a;
+            a = b;
+            b = temp;
+        }
+        int aLength = a.length();
+        if (aLength == 0) {
+            return 0;
+        }
+        int words = (aLength + 63) >>> 6;
+
+        // 每個字元在a中出現位置的遮罩
+        Map<Character, long[]> matchMasks = new HashMap<>();
+        for (int i = 0; i < aLength; i++) {
+            long[] mask = matchMasks.computeIfAbsent(a.charAt(i), c -> new long[words]);
+            mask[i >>> 6] |= 1L << (i & 63);
+        }
+
+        long[] v = new long[words];
+        for (int k = 0; k < words; k++) {
+            v[k] = -1L;
+        }
+        int bLength = b.length();
+        for (int j = 0; j < bLength; j++) {
+            if (minLCS > 0 && j > 0 && (j & 63) == 0) {
+                int bestReachable = countZeroBits(v, aLength) + (bLength - j);
+                if (bestReachable < minLCS) {
+                    return bestReachable;
+                }
+            }
+            long[] mask = matchMasks.get(b.charAt(j));
+            if (mask == null) {
+                continue;
+            }
+            // V = (V + (V & M)) | (V & ~M)，加法需跨word傳遞進位
+            long carry = 0;
+            for (int k = 0; k < words; k++) {
+                long matched = v[k] & mask[k];
+                long sum = v[k] + matched;
+                long nextCarry = Long.compareUnsigned(sum, v[k]) < 0 ? 1 : 0;
+                sum += carry;
+                if (carry == 1 && sum == 0) {
+                    nextCarry = 1;
+                }
+                v[k] = sum | (v[k] & ~mask[k]);
+                carry = nextCarry;
+            }
+        }
+
+        return countZeroBits(v, aLength);
+    }
+
+    private int countZeroBits(long[] v, int aLength) {
+        int words = v.length;
+        int zeroBits = 0;
+        for (int k = 0; k < words; k++) {
+            long bits = v[k];
+            int validBits = k == words - 1 ? aLength - (k << 6) : 64;
+            if (validBits < 64) {
+                bits |= -1L << validBits;
+            }
+            zeroBits += Long.bitCount(~bits);
+        }
+        return zeroBits;
+    }
+}
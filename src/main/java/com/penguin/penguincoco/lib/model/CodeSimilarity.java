@@ -18,21 +18,40 @@ public class CodeSimilarity {
         if (StringUtils.isEmpty(a) || StringUtils.isEmpty(b)) {
             return 0;
         }
-        else {
-            switch (language) {
-                case JAVA:
-                    a = CodeUtils.removeJavaCommentsAndBlank(a);
-                    b = CodeUtils.removeJavaCommentsAndBlank(b);
-                    break;
-                case PYTHON:
-                    a = CodeUtils.removePythonCommentsAndBlank(a);
-                    b = CodeUtils.removePythonCommentsAndBlank(b);
-                    break;
-            }
+        return getNormalized(normalize(a), normalize(b));
+    }
+
+    // 依語言去除註解與空白，批次比對時每份代碼只需正規化一次
+    public String normalize(String code) {
+        if (StringUtils.isEmpty(code)) {
+            return code;
+        }
+        switch (language) {
+            case JAVA:
+                return CodeUtils.removeJavaCommentsAndBlank(code);
+            case PYTHON:
+                return CodeUtils.removePythonCommentsAndBlank(code);
+            default:
+                return code;
+        }
+    }
+
+    // 比對已經正規化過的代碼，原始代碼為空的一律視為不相似
+    public double getNormalized(String a, String b) {
+        if (StringUtils.isEmpty(a) || StringUtils.isEmpty(b)) {
+            return 0;
         }
         return similarityAlgorithm.get(a, b);
     }
 
+    // 比對已經正規化過的代碼，相似度未達minScore時回傳0，讓演算法可以提早放棄
+    public double getNormalized(String a, String b, double minScore) {
+        if (StringUtils.isEmpty(a) || StringUtils.isEmpty(b)) {
+            return 0;
+        }
+        return similarityAlgorithm.get(a, b, minScore);
+    }
+
     public void setSimilarityAlgorithm(SimilarityAlgorithm similarityAlgorithm) {
         this.similarityAlgorithm = similarityAlgorithm;
     }
@@ -26,7 +26,7 @@ public class CodeUtils {
         int flag = 0;
 
         for (int i = 0; i < size; i++) {
-            if (code.charAt(i) == '/' && code.charAt(i + 1) == '*') {
+            if (code.charAt(i) == '/' && i + 1 < size && code.charAt(i + 1) == '*') {
                 flag++;
             } else if (i > 0 && code.charAt(i - 1) == '*' && code.charAt(i) == '/') {
                 flag--;
@@ -43,7 +43,7 @@ public class CodeUtils {
         int size = code.length();
 
         for (int i = 0; i < size; i++) {
-            if (code.charAt(i) == '/' && code.charAt(i + 1) == '/') {
+            if (code.charAt(i) == '/' && i + 1 < size && code.charAt(i + 1) == '/') {
                 for (++i; i < size; i++) {
                     String charString = String.valueOf(code.charAt(i));
                     if (StringUtils.LF.equals(charString) || StringUtils.CR.equals(charString)) {
@@ -78,7 +78,7 @@ public class CodeUtils {
         int flag = 0;
 
         for (int i = 0; i < size; i++) {
-            if (code.charAt(i) == '\'' && code.charAt(i + 1) == '\'' && code.charAt(i + 2) == '\'') {
+            if (code.charAt(i) == '\'' && i + 2 < size && code.charAt(i + 1) == '\'' && code.charAt(i + 2) == '\'') {
                 flag++;
                 for(int j = i + 3; j < size; j++) {
                     if(j < size && code.charAt(j) == '\'' && code.charAt(j - 1) == '\'' && code.charAt(j - 2) == '\'') {
@@ -10,6 +10,9 @@ public abstract class Command {
 
     public abstract List<String> getExecuteCommand();
 
+    // 執行位於buildPath(共用編譯目錄)的程式，讓每個測資都在自己的目錄下執行同一份編譯結果
+    public abstract List<String> getExecuteCommand(String buildPath);
+
     public abstract String getFileName();
 
     public String getEncoding() {
@@ -0,0 +1,57 @@
+package com.penguin.penguincoco.lib.model;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+// 指紋到代碼編號的反向索引，只有共同指紋夠多的代碼組合才需要進一步計算相似度
+public class FingerprintIndex {
+
+    private Map<Integer, List<Integer>> postings = new HashMap<>();
+    private Map<Integer, Integer> fingerprintNums = new HashMap<>();
+    private List<Integer> emptyDocuments = new ArrayList<>();
+
+    // fingerprints需不重複
+    public void add(int document, int[] fingerprints) {
+        fingerprintNums.put(document, fingerprints.length);
+        if (fingerprints.length == 0) {
+            emptyDocuments.add(document);
+        }
+        for (int fingerprint : fingerprints) {
+            postings.computeIfAbsent(fingerprint, f -> new ArrayList<>()).add(document);
+        }
+    }
+
+    // 回傳共同指紋數 >= minOverlap * 較少的一方指紋數 的組合，每組為 {較小編號, 較大編號}
+    // 沒有任何指紋的代碼無從篩選，與其他所有代碼都列為候選，結果不會少於兩兩比對
+    public List<int[]> getCandidatePairs(double minOverlap) {
+        Map<Long, Integer> sharedNums = new HashMap<>();
+        for (List<Integer> documents : postings.values()) {
+            for (int i = 0; i < documents.size(); i++) {
+                for (int j = i + 1; j < documents.size(); j++) {
+                    int a = Math.min(documents.get(i), documents.get(j));
+                    int b = Math.max(documents.get(i), documents.get(j));
+                    sharedNums.merge(((long) a << 32) | b, 1, Integer::sum);
+                }
+            }
+        }
+        List<int[]> pairs = new ArrayList<>();
+        for (Map.Entry<Long, Integer> entry : sharedNums.entrySet()) {
+            int a = (int) (entry.getKey() >>> 32);
+            int b = (int) (entry.getKey() & 0xffffffffL);
+            int smaller = Math.min(fingerprintNums.get(a), fingerprintNums.get(b));
+            if (entry.getValue() >= minOverlap * smaller) {
+                pairs.add(new int[]{a, b});
+            }
+        }
+        for (int emptyDocument : emptyDocuments) {
+            for (int document : fingerprintNums.keySet()) {
+                if (document != emptyDocument && (fingerprintNums.get(document) > 0 || document > emptyDocument)) {
+                    pairs.add(new int[]{Math.min(document, emptyDocument), Math.max(document, emptyDocument)});
+                }
+            }
+        }
+        return pairs;
+    }
+}
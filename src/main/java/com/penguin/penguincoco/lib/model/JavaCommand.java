@@ -23,6 +23,16 @@ public class JavaCommand extends Command {
         return command;
     }
 
+    @Override
+    public List<String> getExecuteCommand(String buildPath) {
+        List<String> command = new ArrayList<>();
+        command.add("java");
+        command.add("-cp");
+        command.add(buildPath);
+        command.add(codeFileName.replace(".java", ""));
+        return command;
+    }
+
     @Override
     public String getFileName() {
         return codeFileName;
@@ -11,13 +11,21 @@ public class JudgeData {
     private Command command;
     private String oriReadFilePath = "input.txt";
     private String oriWriteFilePath = "output.txt";
+    private String workspacePath;
+    private String buildPath;
     private String[] codeFilePath;
     private String[] readFilePath;
     private String[] writeFilePath;
     private JudgeBehavior behavior;
 
     public JudgeData(String uniNumber, String oriCode, List<ProblemCase> problemCases, JudgeBehavior behavior) {
+        this(uniNumber, oriCode, problemCases, behavior, "judge/" + uniNumber + "/");
+    }
+
+    // workspacePath為此次submission獨立的工作目錄，所有編譯與測資檔案都放在其中
+    public JudgeData(String uniNumber, String oriCode, List<ProblemCase> problemCases, JudgeBehavior behavior, String workspacePath) {
         this.uniNumber = uniNumber;
+        this.workspacePath = workspacePath.endsWith("/") ? workspacePath : workspacePath + "/";
         this.oriCode = oriCode;
         this.problemCases = problemCases;
         this.behavior = behavior;
@@ -58,23 +66,24 @@ public class JudgeData {
     }
 
     private void initCodeFilePath() {
+        buildPath = workspacePath + "build/";
         codeFilePath = new String[problemCases.size()];
         for (int i = 0; i < codeFilePath.length; i++) {
-            codeFilePath[i] = "judge/" + uniNumber + "/" + i + "/";
+            codeFilePath[i] = workspacePath + i + "/";
         }
     }
 
     private void initReadFilePath() {
         readFilePath = new String[problemCases.size()];
         for (int i = 0; i < readFilePath.length; i++) {
-            readFilePath[i] = "judge/" + uniNumber + "/" + i + "/" + oriReadFilePath;
+            readFilePath[i] = workspacePath + i + "/" + oriReadFilePath;
         }
     }
 
     private void initWriteFilePath() {
         writeFilePath = new String[problemCases.size()];
         for (int i = 0; i < writeFilePath.length; i++) {
-            writeFilePath[i] = "judge/" + uniNumber + "/" + i + "/" + oriWriteFilePath;
+            writeFilePath[i] = workspacePath + i + "/" + oriWriteFilePath;
          }
     }
 
@@ -90,6 +99,19 @@ public class JudgeData {
         }
     }
 
+    public String getWorkspacePath() {
+        return workspacePath;
+    }
+
+    // 整份submission共用的編譯目錄，只編譯一次，所有測資唯讀共用
+    public String getBuildPath() {
+        return buildPath;
+    }
+
+    public String getOriCode() {
+        return oriCode;
+    }
+
     public String[] getCodeFilePath() {
         return codeFilePath;
     }
@@ -0,0 +1,13 @@
+package com.penguin.penguincoco.lib.model;
+
+// ALL以外的策略提前停止後，未執行的測資標記為SKIP並以0分計入平均分數，等同於未通過
+public enum JudgePolicy {
+    // 執行所有測資
+    ALL,
+    // 依序執行，遇到第一個未通過的測資就停止
+    FIRST_FAILURE,
+    // 先執行範例測資，範例未全部通過就停止
+    SAMPLE_FIRST,
+    // 依歷史未通過率由高到低執行，遇到第一個未通過的測資就停止
+    FAILING_FIRST
+}
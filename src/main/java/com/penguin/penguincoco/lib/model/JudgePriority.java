@@ -0,0 +1,12 @@
+package com.penguin.penguincoco.lib.model;
+
+public enum JudgePriority {
+    // 考試題目或即將截止的題目
+    EXAM,
+    // 尚未截止的作業
+    HOMEWORK,
+    // 已截止或沒有期限的練習
+    PRACTICE,
+    // 老師或管理者要求的重新批改
+    REJUDGE
+}
@@ -5,6 +5,8 @@ public class JudgeProblemResult {
     private int grade;
     private String output;
     private double runTime;
+    // 子行程的user+sys CPU時間(毫秒)，無法量測時為-1
+    private double cpuTime = -1;
     private JudgeSymbol symbol;
     private String message;
 
@@ -40,6 +42,14 @@ public class JudgeProblemResult {
         this.runTime = runTime;
     }
 
+    public double getCpuTime() {
+        return cpuTime;
+    }
+
+    public void setCpuTime(double cpuTime) {
+        this.cpuTime = cpuTime;
+    }
+
     public JudgeSymbol getSymbol() {
         return symbol;
     }
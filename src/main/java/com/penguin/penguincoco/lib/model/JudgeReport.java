@@ -2,6 +2,7 @@ package com.penguin.penguincoco.lib.model;
 
 import java.text.DecimalFormat;
 import java.util.List;
+import java.util.stream.Collectors;
 
 public class JudgeReport {
 
@@ -33,16 +34,49 @@ public class JudgeReport {
         this.compileErrorMessage = compileErrorMessage;
     }
 
+    // 執行時間只平均有實際執行的測資
     public double getAverageJudgeTimeForRoundOff2nd() {
         double averageJudgeTime = 0;
-        for (JudgeProblemResult problemResult : getResults()) {
+        for (JudgeProblemResult problemResult : getExecutedResults()) {
             averageJudgeTime += problemResult.getRunTime();
         }
         DecimalFormat format = new DecimalFormat("#.##");
-        String result = format.format(averageJudgeTime / getResults().size());
+        String result = format.format(averageJudgeTime / Math.max(1, getExecutedResults().size()));
         return Double.parseDouble(result);
     }
 
+    // 所有測資都有量測到CPU時間時才能以CPU時間排名
+    public boolean hasCpuTime() {
+        for (JudgeProblemResult problemResult : getExecutedResults()) {
+            if (problemResult.getCpuTime() < 0) {
+                return false;
+            }
+        }
+        return !getExecutedResults().isEmpty();
+    }
+
+    public double getAverageCpuTimeForRoundOff2nd() {
+        double averageCpuTime = 0;
+        for (JudgeProblemResult problemResult : getExecutedResults()) {
+            averageCpuTime += problemResult.getCpuTime();
+        }
+        DecimalFormat format = new DecimalFormat("#.##");
+        String result = format.format(averageCpuTime / Math.max(1, getExecutedResults().size()));
+        return Double.parseDouble(result);
+    }
+
+    // 因批改策略提前停止而沒有執行的測資數
+    public int getSkippedCount() {
+        return getResults().size() - getExecutedResults().size();
+    }
+
+    private List<JudgeProblemResult> getExecutedResults() {
+        return getResults().stream()
+                .filter(problemResult -> problemResult.getSymbol() != JudgeSymbol.SKIP)
+                .collect(Collectors.toList());
+    }
+
+    // 分數平均所有測資，因批改策略略過的測資以0分計
     public double getAverageScore() {
         double averageScore = 0;
         for (JudgeProblemResult problemResult : getResults()) {
@@ -0,0 +1,99 @@
+package com.penguin.penguincoco.lib.model;
+
+public class JudgeSubmission {
+
+    private String id;
+    private Long problemId;
+    private String code;
+    private String language;
+    private String account;
+    private long submitTime;
+    private volatile long finishTime;
+    private volatile SubmissionStatus status;
+    private volatile JudgeReport report;
+    private volatile String errorMessage;
+    private volatile String replacedBy;
+
+    public JudgeSubmission(String id, Long problemId, String code, String language, String account) {
+        this.id = id;
+        this.problemId = problemId;
+        this.code = code;
+        this.language = language;
+        this.account = account;
+        this.submitTime = System.currentTimeMillis();
+        this.status = SubmissionStatus.QUEUED;
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    public Long getProblemId() {
+        return problemId;
+    }
+
+    public String getCode() {
+        return code;
+    }
+
+    public String getLanguage() {
+        return language;
+    }
+
+    public String getAccount() {
+        return account;
+    }
+
+    public long getSubmitTime() {
+        return submitTime;
+    }
+
+    public long getFinishTime() {
+        return finishTime;
+    }
+
+    public SubmissionStatus getStatus() {
+        return status;
+    }
+
+    public void setStatus(SubmissionStatus status) {
+        this.status = status;
+    }
+
+    public JudgeReport getReport() {
+        return report;
+    }
+
+    public String getErrorMessage() {
+        return errorMessage;
+    }
+
+    public String getReplacedBy() {
+        return replacedBy;
+    }
+
+    // 批改完成，記錄報告
+    public void finish(JudgeReport report) {
+        this.report = report;
+        this.finishTime = System.currentTimeMillis();
+        this.status = SubmissionStatus.DONE;
+    }
+
+    // 批改失敗，記錄錯誤訊息
+    public void fail(String errorMessage) {
+        this.errorMessage = errorMessage;
+        this.finishTime = System.currentTimeMillis();
+        this.status = SubmissionStatus.ERROR;
+    }
+
+    // 尚未開始批改就被較新的submission取代
+    public void replace(String replacedBy) {
+        this.replacedBy = replacedBy;
+        this.finishTime = System.currentTimeMillis();
+        this.status = SubmissionStatus.REPLACED;
+    }
+
+    public boolean isFinished() {
+        return status == SubmissionStatus.DONE || status == SubmissionStatus.ERROR || status == SubmissionStatus.REPLACED;
+    }
+}
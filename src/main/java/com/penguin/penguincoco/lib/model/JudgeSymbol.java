@@ -74,6 +74,14 @@ public enum JudgeSymbol implements JudgeSymbolMessage {
             return "CE (Compile Error)";
         }
     },
+    SKIP {
+        public String getDescription() {
+            return "SKIP (Skipped):表示前面的測資未通過，此測資未執行";
+        }
+        public String toString() {
+            return "SKIP (Skipped)";
+        }
+    },
     SE {
         public String getDescription() {
             return "SE (System Error):未定義錯誤均屬於System Error";
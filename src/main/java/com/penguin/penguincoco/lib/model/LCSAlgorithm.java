@@ -15,6 +15,31 @@ public class LCSAlgorithm implements SimilarityAlgorithm {
         return Double.parseDouble(result);
     }
 
+    // 先以長度比例排除不可能達到門檻的組合，再以只涵蓋可能路徑的對角帶計算LCS，途中確定達不到門檻就放棄
+    @Override
+    public double get(String a, String b, double minScore) {
+        int minLCS = getMinLCS(a.length(), b.length(), minScore);
+        if (minLCS <= 0) {
+            return get(a, b);
+        }
+        if (Math.min(a.length(), b.length()) < minLCS) {
+            return 0;
+        }
+        int lcs = getBandedLCS(a, b, minLCS);
+        if (lcs < minLCS) {
+            return 0;
+        }
+        DecimalFormat format = new DecimalFormat("#.##");
+        String result = format.format(2.0 * lcs / (a.length() + b.length()));
+        double score = Double.parseDouble(result);
+        return score >= minScore ? score : 0;
+    }
+
+    // 相似度四捨五入到小數第二位後>=minScore所需的最短LCS長度，多留一點誤差避免誤判
+    static int getMinLCS(int aLength, int bLength, double minScore) {
+        return (int) Math.ceil((minScore - 0.005) * (aLength + bLength) / 2 - 1e-6);
+    }
+
     private int getLCS(String a, String b) {
         int aLength = a.length();
         int bLength = b.length();
@@ -31,4 +56,39 @@ public class LCSAlgorithm implements SimilarityAlgorithm {
         }
         return dp[aLength][bLength];
     }
+
+    // 長度>=minLCS的路徑只會刪去a中至多 aLength-minLCS 個、b中至多 bLength-minLCS 個字元，
+    // 因此只需計算 -(aLength-minLCS) <= j-i <= bLength-minLCS 的對角帶；LCS<minLCS時回傳值也會<minLCS
+    private int getBandedLCS(String a, String b, int minLCS) {
+        int aLength = a.length();
+        int bLength = b.length();
+        int lowerBand = aLength - minLCS;
+        int upperBand = bLength - minLCS;
+        int[] previous = new int[bLength + 1];
+        int[] current = new int[bLength + 1];
+
+        for (int i = 1; i <= aLength; i++) {
+            int start = Math.max(1, i - lowerBand);
+            int end = Math.min(bLength, i + upperBand);
+            current[start - 1] = 0;
+            // 第0欄仍在帶內時，路徑也可能還沒用到b的任何字元
+            int bestReachable = i <= lowerBand ? Math.min(aLength - i, bLength) : 0;
+            for (int j = start; j <= end; j++) {
+                if (a.charAt(i - 1) == b.charAt(j - 1)) {
+                    current[j] = previous[j - 1] + 1;
+                } else {
+                    current[j] = Math.max(current[j - 1], previous[j]);
+                }
+                bestReachable = Math.max(bestReachable, current[j] + Math.min(aLength - i, bLength - j));
+            }
+            // 帶內任何路徑能達到的最長長度都不到門檻，提早結束
+            if (bestReachable < minLCS) {
+                return bestReachable;
+            }
+            int[] temp = previous;
+            previous = current;
+            current = temp;
+        }
+        return previous[bLength];
+    }
 }
@@ -0,0 +1,117 @@
+package com.penguin.penguincoco.lib.model;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+
+// MinHash + LSH的近似重複偵測：以代碼的shingle集合(見WinnowingFingerprinter.shingle)計算MinHash簽章，再分成bands個band、每band rows列分桶
+// 只有至少一個band完全相同的組合會成為候選，Jaccard相似度s的組合成為候選的機率為 1-(1-s^rows)^bands
+public class MinHashLSH {
+
+    private int bands;
+    private int rows;
+    private int[] seeds;
+
+    public MinHashLSH(int bands, int rows, long seed) {
+        this.bands = bands;
+        this.rows = rows;
+        this.seeds = new int[bands * rows];
+        Random random = new Random(seed);
+        for (int i = 0; i < seeds.length; i++) {
+            seeds[i] = random.nextInt() | 1;
+        }
+    }
+
+    // 成為候選的機率約為一半時的Jaccard相似度
+    public double getThreshold() {
+        return Math.pow(1.0 / bands, 1.0 / rows);
+    }
+
+    // shingle集合的MinHash簽章，長度為 bands*rows；沒有任何shingle時回傳null
+    public int[] signature(int[] shingles) {
+        if (shingles.length == 0) {
+            return null;
+        }
+        int[] signature = new int[seeds.length];
+        Arrays.fill(signature, Integer.MAX_VALUE);
+        for (int shingle : shingles) {
+            for (int j = 0; j < seeds.length; j++) {
+                int hash = mix(shingle * seeds[j]);
+                if (hash < signature[j]) {
+                    signature[j] = hash;
+                }
+            }
+        }
+        return signature;
+    }
+
+    // 回傳至少有一個band相同的組合，每組為 {較小編號, 較大編號}；簽章為null的代碼無從分桶，與其他所有代碼都列為候選
+    public List<int[]> getCandidatePairs(List<int[]> signatures) {
+        Set<Long> pairKeys = new HashSet<>();
+        for (int i = 0; i < signatures.size(); i++) {
+            if (signatures.get(i) == null) {
+                for (int j = 0; j < signatures.size(); j++) {
+                    if (j != i) {
+                        pairKeys.add(((long) Math.min(i, j) << 32) | Math.max(i, j));
+                    }
+                }
+            }
+        }
+        for (int band = 0; band < bands; band++) {
+            Map<BandKey, List<Integer>> buckets = new HashMap<>();
+            for (int i = 0; i < signatures.size(); i++) {
+                if (signatures.get(i) != null) {
+                    buckets.computeIfAbsent(new BandKey(signatures.get(i), band * rows, rows), key -> new ArrayList<>()).add(i);
+                }
+            }
+            for (List<Integer> bucket : buckets.values()) {
+                for (int i = 0; i < bucket.size(); i++) {
+                    for (int j = i + 1; j < bucket.size(); j++) {
+                        pairKeys.add(((long) bucket.get(i) << 32) | bucket.get(j));
+                    }
+                }
+            }
+        }
+        List<int[]> pairs = new ArrayList<>();
+        for (long pairKey : pairKeys) {
+            pairs.add(new int[]{(int) (pairKey >>> 32), (int) (pairKey & 0xffffffffL)});
+        }
+        return pairs;
+    }
+
+    private static int mix(int hash) {
+        hash ^= hash >>> 16;
+        hash *= 0x85ebca6b;
+        hash ^= hash >>> 13;
+        hash *= 0xc2b2ae35;
+        hash ^= hash >>> 16;
+        return hash;
+    }
+
+    // 簽章中某個band的值，作為分桶的key
+    private static class BandKey {
+
+        private int[] values;
+        private int hash;
+
+        BandKey(int[] signature, int start, int length) {
+            this.values = Arrays.copyOfRange(signature, start, start + length);
+            this.hash = Arrays.hashCode(values);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            return o instanceof BandKey && Arrays.equals(values, ((BandKey) o).values);
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+    }
+}
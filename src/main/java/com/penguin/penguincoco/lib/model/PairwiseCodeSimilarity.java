@@ -0,0 +1,153 @@
+package com.penguin.penguincoco.lib.model;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+public class PairwiseCodeSimilarity {
+
+    // 一個子任務至少負責的比對次數，太小的話分派成本會蓋過比對本身
+    private static final long MIN_PAIRS_PER_TASK = 64;
+
+    private static final Comparator<SimilarCodePair> PAIR_ORDER =
+            Comparator.comparingInt(SimilarCodePair::getSourceIndex).thenComparingInt(SimilarCodePair::getDestIndex);
+
+    private CodeSimilarity codeSimilarity;
+    private ForkJoinPool pool;
+
+    public PairwiseCodeSimilarity(CodeSimilarity codeSimilarity, ForkJoinPool pool) {
+        this.codeSimilarity = codeSimilarity;
+        this.pool = pool;
+    }
+
+    // 兩兩比對所有代碼，回傳相似度>=threshold的組合，sourceIndex < destIndex 且依索引排序
+    // 相似度是對稱的，每份代碼只正規化一次，且只計算上三角的 n(n-1)/2 組
+    public List<SimilarCodePair> findSimilarPairs(List<String> codes, double threshold) {
+        int number = codes.size();
+        if (number < 2) {
+            return new ArrayList<>();
+        }
+        String[] normalizedCodes = normalize(codes);
+        List<SimilarCodePair> pairs = pool.invoke(new RowTask(normalizedCodes, threshold, 0, number - 1));
+        pairs.sort(PAIR_ORDER);
+        return pairs;
+    }
+
+    // 只比對候選組合(每組為 {sourceIndex, destIndex})，例如由指紋索引篩選出的組合
+    public List<SimilarCodePair> findSimilarPairs(List<String> codes, List<int[]> candidatePairs, double threshold) {
+        if (candidatePairs.isEmpty()) {
+            return new ArrayList<>();
+        }
+        String[] normalizedCodes = normalize(codes);
+        List<SimilarCodePair> pairs = pool.invoke(new CandidateTask(normalizedCodes, candidatePairs, threshold, 0, candidatePairs.size()));
+        pairs.sort(PAIR_ORDER);
+        return pairs;
+    }
+
+    private String[] normalize(List<String> codes) {
+        String[] normalizedCodes = new String[codes.size()];
+        for (int i = 0; i < normalizedCodes.length; i++) {
+            normalizedCodes[i] = codeSimilarity.normalize(codes.get(i));
+        }
+        return normalizedCodes;
+    }
+
+    // 候選組合依數量對半切分
+    private class CandidateTask extends RecursiveTask<List<SimilarCodePair>> {
+
+        private String[] normalizedCodes;
+        private List<int[]> candidatePairs;
+        private double threshold;
+        private int start;
+        private int end;
+
+        CandidateTask(String[] normalizedCodes, List<int[]> candidatePairs, double threshold, int start, int end) {
+            this.normalizedCodes = normalizedCodes;
+            this.candidatePairs = candidatePairs;
+            this.threshold = threshold;
+            this.start = start;
+            this.end = end;
+        }
+
+        @Override
+        protected List<SimilarCodePair> compute() {
+            if (end - start <= MIN_PAIRS_PER_TASK) {
+                List<SimilarCodePair> pairs = new ArrayList<>();
+                for (int i = start; i < end; i++) {
+                    int sourceIndex = candidatePairs.get(i)[0];
+                    int destIndex = candidatePairs.get(i)[1];
+                    double similarity = codeSimilarity.getNormalized(normalizedCodes[sourceIndex], normalizedCodes[destIndex], threshold);
+                    if (similarity >= threshold) {
+                        pairs.add(new SimilarCodePair(sourceIndex, destIndex, similarity));
+                    }
+                }
+                return pairs;
+            }
+            int middle = (start + end) >>> 1;
+            CandidateTask left = new CandidateTask(normalizedCodes, candidatePairs, threshold, start, middle);
+            CandidateTask right = new CandidateTask(normalizedCodes, candidatePairs, threshold, middle, end);
+            left.fork();
+            List<SimilarCodePair> pairs = right.compute();
+            pairs.addAll(left.join());
+            return pairs;
+        }
+    }
+
+    // 第startRow列到endRow列(不含)的上三角比對，第i列有 n-1-i 組，依比對次數對半切分讓每個子任務工作量相近
+    private class RowTask extends RecursiveTask<List<SimilarCodePair>> {
+
+        private String[] normalizedCodes;
+        private double threshold;
+        private int startRow;
+        private int endRow;
+
+        RowTask(String[] normalizedCodes, double threshold, int startRow, int endRow) {
+            this.normalizedCodes = normalizedCodes;
+            this.threshold = threshold;
+            this.startRow = startRow;
+            this.endRow = endRow;
+        }
+
+        @Override
+        protected List<SimilarCodePair> compute() {
+            long pairNum = countPairs(startRow, endRow);
+            if (endRow - startRow <= 1 || pairNum <= MIN_PAIRS_PER_TASK) {
+                return computeRows();
+            }
+            int middleRow = startRow + 1;
+            while (middleRow < endRow - 1 && countPairs(startRow, middleRow) * 2 < pairNum) {
+                middleRow++;
+            }
+            RowTask left = new RowTask(normalizedCodes, threshold, startRow, middleRow);
+            RowTask right = new RowTask(normalizedCodes, threshold, middleRow, endRow);
+            left.fork();
+            List<SimilarCodePair> pairs = right.compute();
+            pairs.addAll(left.join());
+            return pairs;
+        }
+
+        private List<SimilarCodePair> computeRows() {
+            List<SimilarCodePair> pairs = new ArrayList<>();
+            for (int i = startRow; i < endRow; i++) {
+                for (int j = i + 1; j < normalizedCodes.length; j++) {
+                    double similarity = codeSimilarity.getNormalized(normalizedCodes[i], normalizedCodes[j], threshold);
+                    if (similarity >= threshold) {
+                        pairs.add(new SimilarCodePair(i, j, similarity));
+                    }
+                }
+            }
+            return pairs;
+        }
+
+        private long countPairs(int fromRow, int toRow) {
+            long n = normalizedCodes.length;
+            long pairNum = 0;
+            for (int i = fromRow; i < toRow; i++) {
+                pairNum += n - 1 - i;
+            }
+            return pairNum;
+        }
+    }
+}
@@ -4,10 +4,16 @@ public class ProblemCase {
 
     private String input;
     private String output;
+    private boolean isSample;
 
     public ProblemCase(String input, String output) {
+        this(input, output, false);
+    }
+
+    public ProblemCase(String input, String output, boolean isSample) {
         this.input = input;
         this.output = output;
+        this.isSample = isSample;
     }
 
     public String getInputStr() {
@@ -23,4 +29,8 @@ public class ProblemCase {
     public String getOutput() {
         return output;
     }
+
+    public boolean isSample() {
+        return isSample;
+    }
 }
@@ -1,5 +1,6 @@
 package com.penguin.penguincoco.lib.model;
 
+import java.io.File;
 import java.util.ArrayList;
 import java.util.List;
 
@@ -20,6 +21,14 @@ public class PythonCommand extends Command {
         return command;
     }
 
+    @Override
+    public List<String> getExecuteCommand(String buildPath) {
+        List<String> command = new ArrayList<>();
+        command.add("python");
+        command.add(new File(buildPath, codeFileName).getPath());
+        return command;
+    }
+
     @Override
     public String getFileName() {
         return codeFileName;
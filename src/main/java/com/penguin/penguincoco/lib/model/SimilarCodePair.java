@@ -0,0 +1,26 @@
+package com.penguin.penguincoco.lib.model;
+
+public class SimilarCodePair {
+
+    private int sourceIndex;
+    private int destIndex;
+    private double similarity;
+
+    public SimilarCodePair(int sourceIndex, int destIndex, double similarity) {
+        this.sourceIndex = sourceIndex;
+        this.destIndex = destIndex;
+        this.similarity = similarity;
+    }
+
+    public int getSourceIndex() {
+        return sourceIndex;
+    }
+
+    public int getDestIndex() {
+        return destIndex;
+    }
+
+    public double getSimilarity() {
+        return similarity;
+    }
+}
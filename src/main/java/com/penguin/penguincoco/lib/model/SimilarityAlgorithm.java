@@ -4,4 +4,9 @@ public interface SimilarityAlgorithm {
 
     // 取得程式碼之間的相似度
     double get(String a, String b);
+
+    // 只關心相似度>=minScore的情況：達到門檻時回傳與get相同的相似度，否則回傳0，實作可提早放棄計算
+    default double get(String a, String b, double minScore) {
+        return get(a, b);
+    }
 }
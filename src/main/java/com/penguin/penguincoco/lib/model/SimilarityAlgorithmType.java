@@ -0,0 +1,8 @@
+package com.penguin.penguincoco.lib.model;
+
+public enum SimilarityAlgorithmType {
+    // 動態規劃表格的LCS
+    LCS,
+    // 位元平行的LCS，分數與LCS相同，記憶體只需O(n/64)
+    BIT_PARALLEL_LCS
+}
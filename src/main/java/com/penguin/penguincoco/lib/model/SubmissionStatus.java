@@ -0,0 +1,12 @@
+package com.penguin.penguincoco.lib.model;
+
+public enum SubmissionStatus {
+
+    QUEUED,
+    COMPILING,
+    RUNNING,
+    DONE,
+    ERROR,
+    // 排隊中被同一學生同一題目較新的submission取代
+    REPLACED
+}
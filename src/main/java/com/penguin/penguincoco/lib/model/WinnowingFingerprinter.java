@@ -0,0 +1,195 @@
+package com.penguin.penguincoco.lib.model;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+// MOSS式的winnowing指紋：去除註解後切成token，對每k個連續token取hash，再在每window個hash中取最小值
+// 識別字、數字、字串分別換成同一個佔位token，變數改名不影響指紋，只保留關鍵字與符號構成的結構
+// 兩份代碼只要有一段至少 k+window-1 個token相同，就一定會有共同的指紋
+public class WinnowingFingerprinter {
+
+    private static final String IDENTIFIER = "V";
+    private static final String NUMBER = "N";
+    private static final String LITERAL = "S";
+
+    private static final Set<String> JAVA_KEYWORDS = new HashSet<>(Arrays.asList(
+            "abstract", "assert", "boolean", "break", "byte", "case", "catch", "char", "class", "const",
+            "continue", "default", "do", "double", "else", "enum", "extends", "final", "finally", "float",
+            "for", "goto", "if", "implements", "import", "instanceof", "int", "interface", "long", "native",
+            "new", "package", "private", "protected", "public", "return", "short", "static", "strictfp", "super",
+            "switch", "synchronized", "this", "throw", "throws", "transient", "try", "void", "volatile", "while",
+            "true", "false", "null", "var"));
+
+    private static final Set<String> PYTHON_KEYWORDS = new HashSet<>(Arrays.asList(
+            "False", "None", "True", "and", "as", "assert", "async", "await", "break", "class", "continue",
+            "def", "del", "elif", "else", "except", "finally", "for", "from", "global", "if", "import", "in",
+            "is", "lambda", "nonlocal", "not", "or", "pass", "raise", "return", "try", "while", "with", "yield"));
+
+    private Language language;
+    private int k;
+    private int window;
+
+    public WinnowingFingerprinter(Language language, int k, int window) {
+        this.language = language;
+        this.k = k;
+        this.window = window;
+    }
+
+    // 回傳排序過且不重複的指紋，沒有任何token時為空陣列
+    public int[] fingerprint(String code) {
+        List<String> tokens = tokenize(removeComments(code));
+        if (tokens.isEmpty()) {
+            return new int[0];
+        }
+        int[] kgramHashes = getKgramHashes(tokens);
+        int[] fingerprints = winnow(kgramHashes);
+        return Arrays.stream(fingerprints).sorted().distinct().toArray();
+    }
+
+    // 所有k個token的shingle的hash(不經winnowing)，排序過且不重複，供MinHash使用
+    public int[] shingle(String code) {
+        List<String> tokens = tokenize(removeComments(code));
+        if (tokens.isEmpty()) {
+            return new int[0];
+        }
+        return Arrays.stream(getKgramHashes(tokens)).sorted().distinct().toArray();
+    }
+
+    // 代碼與指紋參數的摘要，代碼或參數沒變時可沿用已儲存的指紋
+    public String getSignature(String code) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            digest.update((language + "\u0000" + k + "\u0000" + window + "\u0000").getBytes(StandardCharsets.UTF_8));
+            StringBuilder hex = new StringBuilder();
+            for (byte b : digest.digest(code == null ? new byte[0] : code.getBytes(StandardCharsets.UTF_8))) {
+                hex.append(String.format("%02x", b));
+            }
+            return hex.toString();
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private String removeComments(String code) {
+        if (code == null) {
+            return "";
+        }
+        switch (language) {
+            case JAVA:
+                return CodeUtils.removeJavaComments(code);
+            case PYTHON:
+                return CodeUtils.removePythonComments(code);
+            default:
+                return code;
+        }
+    }
+
+    // 關鍵字與符號保留原樣，識別字、數字、字串與字元常數換成佔位token，空白只作為分隔
+    private List<String> tokenize(String code) {
+        Set<String> keywords = language == Language.PYTHON ? PYTHON_KEYWORDS : JAVA_KEYWORDS;
+        List<String> tokens = new ArrayList<>();
+        int size = code.length();
+        int i = 0;
+        while (i < size) {
+            char c = code.charAt(i);
+            if (Character.isWhitespace(c)) {
+                i++;
+            }
+            else if (c == '"' || c == '\'') {
+                i = skipLiteral(code, i);
+                tokens.add(LITERAL);
+            }
+            else if (Character.isDigit(c)) {
+                while (i < size && (Character.isLetterOrDigit(code.charAt(i)) || code.charAt(i) == '.' || code.charAt(i) == '_')) {
+                    i++;
+                }
+                tokens.add(NUMBER);
+            }
+            else if (Character.isJavaIdentifierPart(c)) {
+                int start = i;
+                while (i < size && Character.isJavaIdentifierPart(code.charAt(i))) {
+                    i++;
+                }
+                String word = code.substring(start, i);
+                tokens.add(keywords.contains(word) ? word : IDENTIFIER);
+            }
+            else {
+                tokens.add(String.valueOf(c));
+                i++;
+            }
+        }
+        return tokens;
+    }
+
+    // 回傳字串或字元常數結束後的位置，未結束的常數延伸到行尾
+    private int skipLiteral(String code, int start) {
+        char quote = code.charAt(start);
+        int i = start + 1;
+        while (i < code.length()) {
+            char c = code.charAt(i);
+            if (c == '\\') {
+                i += 2;
+            }
+            else if (c == quote) {
+                return i + 1;
+            }
+            else if (c == '\n') {
+                return i;
+            }
+            else {
+                i++;
+            }
+        }
+        return code.length();
+    }
+
+    // token數不足k個時，整份代碼視為一個k-gram
+    private int[] getKgramHashes(List<String> tokens) {
+        int size = Math.max(1, tokens.size() - k + 1);
+        int[] hashes = new int[size];
+        for (int i = 0; i < size; i++) {
+            int hash = 17;
+            for (int j = i; j < Math.min(i + k, tokens.size()); j++) {
+                hash = 31 * hash + tokens.get(j).hashCode();
+            }
+            // 打散位元，避免相近的token組合集中在相近的hash值
+            hash ^= hash >>> 16;
+            hash *= 0x85ebca6b;
+            hash ^= hash >>> 13;
+            hash *= 0xc2b2ae35;
+            hash ^= hash >>> 16;
+            hashes[i] = hash;
+        }
+        return hashes;
+    }
+
+    // 每個視窗取最小的hash(相同時取最右邊的)，同一個位置只記錄一次
+    private int[] winnow(int[] hashes) {
+        int windowSize = Math.min(window, hashes.length);
+        List<Integer> fingerprints = new ArrayList<>();
+        int lastSelected = -1;
+        for (int start = 0; start + windowSize <= hashes.length; start++) {
+            int selected = start;
+            for (int i = start; i < start + windowSize; i++) {
+                if (hashes[i] <= hashes[selected]) {
+                    selected = i;
+                }
+            }
+            if (selected != lastSelected) {
+                fingerprints.add(hashes[selected]);
+                lastSelected = selected;
+            }
+        }
+        int[] result = new int[fingerprints.size()];
+        for (int i = 0; i < result.length; i++) {
+            result[i] = fingerprints.get(i);
+        }
+        return result;
+    }
+}
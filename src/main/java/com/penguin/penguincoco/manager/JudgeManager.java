@@ -4,13 +4,15 @@ import com.penguin.penguincoco.common.exception.EntityNotFoundException;
 import com.penguin.penguincoco.dao.domain.judge.Judge;
 import com.penguin.penguincoco.dao.domain.student.BestCodeRank;
 import com.penguin.penguincoco.dao.domain.student.CorrectRank;
+import com.penguin.penguincoco.lib.judge.JudgeProgressListener;
+import com.penguin.penguincoco.lib.model.JudgeReport;
 
 import java.util.List;
 import java.util.Map;
 
 public interface JudgeManager {
 
-    void judgeCode(Long problemId, String code, String language, String account) throws EntityNotFoundException;
+    JudgeReport judgeCode(Long problemId, String code, String language, String account, JudgeProgressListener listener) throws EntityNotFoundException;
 
     Judge findByProblemIdAndStudentAccount(Long problemId, String account) throws EntityNotFoundException;
 
@@ -29,4 +31,6 @@ public interface JudgeManager {
     List<Map<String, Object>> getProblems(Long courseId) throws EntityNotFoundException;
 
     Map<String, Object> getJudgeInfo(Long problemId, String account) throws EntityNotFoundException;
+
+    Map<String, Object> getJudgeMetrics();
 }
@@ -0,0 +1,16 @@
+package com.penguin.penguincoco.manager;
+
+import com.penguin.penguincoco.common.exception.EntityNotFoundException;
+import com.penguin.penguincoco.common.exception.JudgeQueueFullException;
+import com.penguin.penguincoco.common.exception.JudgeRateLimitException;
+
+import java.util.Map;
+
+public interface JudgeQueueManager {
+
+    String submit(Long problemId, String code, String language, String account) throws EntityNotFoundException, JudgeQueueFullException, JudgeRateLimitException;
+
+    String rejudge(Long problemId, String code, String language, String account) throws EntityNotFoundException, JudgeQueueFullException;
+
+    Map<String, Object> getSubmissionInfo(String submissionId, String account) throws EntityNotFoundException;
+}
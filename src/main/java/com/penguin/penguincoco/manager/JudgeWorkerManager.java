@@ -0,0 +1,18 @@
+package com.penguin.penguincoco.manager;
+
+import com.penguin.penguincoco.common.exception.EntityNotFoundException;
+
+import java.util.Map;
+
+public interface JudgeWorkerManager {
+
+    boolean isAuthorized(String token);
+
+    void register(String workerId, int capacity);
+
+    Map<String, Object> poll(String workerId, long waitMillis) throws EntityNotFoundException, InterruptedException;
+
+    void updateStatus(String workerId, String jobId, String status) throws EntityNotFoundException;
+
+    void submitResult(String workerId, String jobId, Map<String, Object> report, String errorMessage) throws EntityNotFoundException;
+}
@@ -1,5 +1,6 @@
 package com.penguin.penguincoco.manager.impl;
 
+import com.penguin.penguincoco.dao.domain.copy.CodeFingerprint;
 import com.penguin.penguincoco.dao.domain.copy.Copy;
 import com.penguin.penguincoco.dao.domain.course.Course;
 import com.penguin.penguincoco.dao.domain.judge.HistoryCode;
@@ -13,75 +14,217 @@ import com.penguin.penguincoco.lib.model.*;
 import com.penguin.penguincoco.manager.JudgeManager;
 import com.penguin.penguincoco.service.*;
 import com.penguin.penguincoco.common.exception.EntityNotFoundException;
+import com.penguin.penguincoco.lib.judge.CaseFailureStatistics;
+import com.penguin.penguincoco.lib.judge.CompilationCache;
+import com.penguin.penguincoco.lib.judge.JudgeOptions;
+import com.penguin.penguincoco.lib.judge.JudgeScheduler;
+import com.penguin.penguincoco.lib.judge.JudgeProgressListener;
 import com.penguin.penguincoco.lib.judge.Judger;
 import com.penguin.penguincoco.lib.judge.JudgerFactory;
+import com.penguin.penguincoco.lib.judge.PipelineJudger;
+import com.penguin.penguincoco.lib.judge.ProcessSupervisor;
+import com.penguin.penguincoco.lib.judge.PythonWorkerPool;
+import com.penguin.penguincoco.lib.judge.SandboxFactory;
+import com.penguin.penguincoco.lib.judge.WorkspaceManager;
+import com.penguin.penguincoco.lib.judge.worker.JudgeJob;
+import com.penguin.penguincoco.lib.judge.worker.JudgeWorkerRegistry;
+import com.penguin.penguincoco.lib.judge.worker.LocalJudgeWorker;
 import com.penguin.penguincoco.lib.model.*;
 import com.penguin.penguincoco.service.*;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.lang.reflect.UndeclaredThrowableException;
 import java.text.DateFormat;
 import java.text.SimpleDateFormat;
 import java.util.*;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Semaphore;
 
 import static java.util.stream.Collectors.toList;
 
 @Service
 public class JudgeManagerImpl implements JudgeManager {
 
+    private static final int BEST_STUDENT_RETRY_TIMES = 5;
+
     private JudgeService judgeService;
     private ProblemService problemService;
     private StudentService studentService;
     private CopyService copyService;
+    private CodeFingerprintService codeFingerprintService;
     private CourseService courseService;
+    private ExecutorService judgeCaseExecutor;
+    private Semaphore judgeRunSlots;
+    private ForkJoinPool copyDetectionPool;
+    private PythonWorkerPool pythonWorkerPool;
+    private CompilationCache compilationCache;
+    private WorkspaceManager workspaceManager;
+    private SandboxFactory sandboxFactory;
+    private JudgeScheduler judgeScheduler;
+    private JudgeWorkerRegistry judgeWorkerRegistry;
+    private TransactionTemplate transactionTemplate;
+    private TransactionTemplate readOnlyTransactionTemplate;
+    private CaseFailureStatistics caseFailureStatistics = new CaseFailureStatistics();
+
+    @Value("${judge.engine:pipeline}")
+    private String judgeEngine;
+    @Value("${judge.parallel.enabled:false}")
+    private boolean isParallelJudge;
+    @Value("${judge.parallel.cases-per-submission:4}")
+    private int casesPerSubmission;
+    @Value("${judge.case.time-limit-ms:3000}")
+    private long timeLimitMillis;
+    @Value("${judge.case.output-limit-kb:65536}")
+    private long outputLimitKilobytes;
+    @Value("${judge.timing.mode:wall}")
+    private String timingMode;
+    @Value("${judge.timing.best-code-repeats:1}")
+    private int bestCodeRepeats;
+    @Value("${judge.compiler:internal}")
+    private String compilerType;
+    @Value("${judge.java.runner:process}")
+    private String javaRunnerType;
+    @Value("${judge.copy.algorithm:BIT_PARALLEL_LCS}")
+    private String defaultSimilarityAlgorithm;
+    @Value("${judge.copy.candidates:all}")
+    private String copyCandidateMode;
+    @Value("${judge.copy.fingerprint.k:12}")
+    private int fingerprintK;
+    @Value("${judge.copy.fingerprint.window:8}")
+    private int fingerprintWindow;
+    @Value("${judge.copy.fingerprint.min-overlap:0.7}")
+    private double fingerprintMinOverlap;
+    @Value("${judge.copy.lsh.bands:40}")
+    private int lshBands;
+    @Value("${judge.copy.lsh.rows:8}")
+    private int lshRows;
+    @Value("${judge.copy.lsh.shingle-size:12}")
+    private int lshShingleSize;
 
     @Autowired
     public JudgeManagerImpl(JudgeService judgeService,
                             ProblemService problemService,
                             StudentService studentService,
                             CopyService copyService,
-                            CourseService courseService) {
+                            CodeFingerprintService codeFingerprintService,
+                            CourseService courseService,
+                            @Qualifier("judgeCaseExecutor") ExecutorService judgeCaseExecutor,
+                            @Qualifier("judgeRunSlots") Semaphore judgeRunSlots,
+                            @Qualifier("copyDetectionPool") ForkJoinPool copyDetectionPool,
+                            ObjectProvider<PythonWorkerPool> pythonWorkerPool,
+                            ObjectProvider<CompilationCache> compilationCache,
+                            WorkspaceManager workspaceManager,
+                            ObjectProvider<SandboxFactory> sandboxFactory,
+                            JudgeScheduler judgeScheduler,
+                            ObjectProvider<JudgeWorkerRegistry> judgeWorkerRegistry,
+                            @Value("${judge.worker.local-capacity:0}") int localWorkerCapacity,
+                            PlatformTransactionManager transactionManager) {
         this.judgeService = judgeService;
         this.problemService = problemService;
         this.studentService = studentService;
         this.copyService = copyService;
+        this.codeFingerprintService = codeFingerprintService;
         this.courseService = courseService;
+        this.judgeCaseExecutor = judgeCaseExecutor;
+        this.judgeRunSlots = judgeRunSlots;
+        this.copyDetectionPool = copyDetectionPool;
+        this.pythonWorkerPool = pythonWorkerPool.getIfAvailable();
+        this.compilationCache = compilationCache.getIfAvailable();
+        this.workspaceManager = workspaceManager;
+        this.sandboxFactory = sandboxFactory.getIfAvailable();
+        this.judgeScheduler = judgeScheduler;
+        this.judgeWorkerRegistry = judgeWorkerRegistry.getIfAvailable();
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.readOnlyTransactionTemplate = new TransactionTemplate(transactionManager);
+        this.readOnlyTransactionTemplate.setReadOnly(true);
+        // local-capacity為0時API server不執行學生代碼，全部交給遠端判題節點
+        if (this.judgeWorkerRegistry != null && localWorkerCapacity > 0) {
+            this.judgeWorkerRegistry.setLocalWorker(new LocalJudgeWorker("local", localWorkerCapacity,
+                    workspaceManager, judgeCaseExecutor, this::createJudgeOptions));
+        }
     }
 
     // 取得題目Id、學生送出代碼等的相關資訊，進行自動化批改
-    @Transactional(rollbackFor = Exception.class)
+    // 讀取與寫入各自是一個短交易，編譯與執行期間不持有資料庫連線
     @Override
-    public void judgeCode(Long problemId, String code, String language, String account) throws EntityNotFoundException {
+    public JudgeReport judgeCode(Long problemId, String code, String language, String account, JudgeProgressListener listener) throws EntityNotFoundException {
+        JudgeContext context = executeInTransaction(readOnlyTransactionTemplate, () -> prepareJudge(problemId, account));
+
+        // 建立批改所需的data、judger進行批改，並取得report；啟用判題節點時交由剩餘容量最多的節點批改
+        Language programLanguage = chooseLanguage(language);
+        JudgeReport report;
+        if (judgeWorkerRegistry != null) {
+            JudgeJob job = new JudgeJob(UUID.randomUUID().toString(), programLanguage, account, code, context.problemCases,
+                    context.judgeBehavior, context.judgePolicy, context.caseOrder);
+            report = judgeWorkerRegistry.judge(job, listener);
+        }
+        else {
+            File workspace = acquireWorkspace(account);
+            try {
+                JudgeData judgeData = new JudgeData(account, code, context.problemCases, context.judgeBehavior, workspace.getPath());
+                report = performJudge(programLanguage, judgeData, context.judgePolicy, context.caseOrder, listener);
+            } finally {
+                workspaceManager.release(workspace);
+            }
+        }
+        if (report.isCompileSuccess()) {
+            caseFailureStatistics.record(problemId, report.getResults());
+        }
+
+        executeInTransaction(transactionTemplate, () -> {
+            saveJudgeResult(problemId, account, code, report);
+            return null;
+        });
+        return report;
+    }
+
+    // 讀取交易：載入測資與批改方式，並確認學生存在
+    private JudgeContext prepareJudge(Long problemId, String account) throws EntityNotFoundException {
         Problem problem = problemService.findById(problemId);
-        Student student = studentService.findByAccount(account);
+        studentService.findByAccount(account);
+        JudgeContext context = new JudgeContext();
         // 取得輸入輸出範本
         List<TestCase> testCases = problem.getTestCases();
         List<ProblemCase> problemCases = new ArrayList<>();
         for (TestCase testCase : testCases) {
             String inputSample = testCase.getInputSample();
             String outputSample = testCase.getOutputSample();
-            ProblemCase problemCase = new ProblemCase(inputSample, outputSample);
+            ProblemCase problemCase = new ProblemCase(inputSample, outputSample, testCase.isSample());
             problemCases.add(problemCase);
         }
-        // 選擇程式語言
-        Language programLanguage = chooseLanguage(language);
+        context.problemCases = problemCases;
         // 選擇題目的批改方式
         String category = problem.getCategory();
-        JudgeBehavior judgeBehavior = chooseBehavior(category);
+        context.judgeBehavior = chooseBehavior(category);
+        // 選擇題目的批改策略
+        context.judgePolicy = choosePolicy(problem.getJudgePolicy());
+        context.caseOrder = context.judgePolicy == JudgePolicy.FAILING_FIRST ? getFailingFirstOrder(problem) : null;
+        return context;
+    }
 
-        // 建立批改所需的data、judger進行批改，並取得report
-        JudgeData judgeData = new JudgeData(account, code, problemCases, judgeBehavior);
-        Judger judger = JudgerFactory.createJudger(programLanguage, judgeData);
-        assert judger != null;
-        JudgeReport report = judger.performJudge();
-        double avgRunTime = report.getAverageJudgeTimeForRoundOff2nd();
+    // 寫入交易：只鎖住學生列，答對答錯數以原子累加、最佳代碼以compare-and-set更新，同一題目的批改不必互相等待
+    private void saveJudgeResult(Long problemId, String account, String code, JudgeReport report) throws EntityNotFoundException {
+        Problem problem = problemService.findById(problemId);
+        Student student = studentService.findByAccountForUpdate(account);
+        // CPU時間模式下以CPU時間作為代碼的執行時間，最佳代碼排名不受主機忙碌程度影響
+        boolean isCpuTiming = "cpu".equals(timingMode) && report.hasCpuTime();
+        double avgRunTime = isCpuTiming ? report.getAverageCpuTimeForRoundOff2nd() : report.getAverageJudgeTimeForRoundOff2nd();
         DateFormat df = new SimpleDateFormat("yyyy-MM-dd HH:mm:ss");
         String handDate = df.format(new Date());
         double avgScore = report.getAverageScore();
-        double correctRate = 0;
-        int correctNum = problem.getCorrectNum();
-        int incorrectNum = problem.getIncorrectNum();
+        int correctDelta = 0;
+        int incorrectDelta = 0;
 
         // 確認是否是第一次judge，如果是，則新增一筆Judge to db，否則拿取舊的judge
         boolean isNotFirstJudge = judgeService.existByProblemAndStudent(problem, student);
@@ -112,69 +255,83 @@ public class JudgeManagerImpl implements JudgeManager {
         historyCodes.add(historyCode);
         judge.setHistoryCodes(historyCodes);
 
-        // 更改題目的答對答錯率
+        // 更改題目的答對答錯數，只累計這次批改造成的變化量
         if (avgScore == 100) {
             if (!isNotFirstJudge) {
-                correctNum++;
+                correctDelta++;
             }
             else {
                 if (oriScore < 100) {
-                    correctNum++;
-                    incorrectNum--;
+                    correctDelta++;
+                    incorrectDelta--;
                 }
             }
-            // 比對最佳代碼是否需要更換，兩種情況:還沒有最佳代碼、已經有最佳代碼
-            if (!problem.getBestStudentAccount().equals("")) {
-                Student bestStudent = studentService.findByAccount(problem.getBestStudentAccount());
-                Judge bestJudge = judgeService.findByProblemAndStudent(problem, bestStudent);
-                double bestAvgRunTime = bestJudge.getHistoryCodes().get(bestJudge.getHistoryCodes().size() - 1).getRunTime();
-                if (bestAvgRunTime > avgRunTime) {
-                    problem.setBestStudentAccount(account);
-                }
-            }
-            else {
-                problem.setBestStudentAccount(account);
-            }
         }
         else {
             if (!isNotFirstJudge) {
-                incorrectNum++;
+                incorrectDelta++;
             }
             else {
                 if (oriScore == 100) {
-                    correctNum--;
-                    incorrectNum++;
+                    correctDelta--;
+                    incorrectDelta++;
                 }
             }
-            // 比對最佳代碼是否需要更換，自己是最佳代碼的持有者的情況
-            if (!problem.getBestStudentAccount().equals("")) {
-                if (problem.getBestStudentAccount().equals(account)) {
-                    List<Judge> judges = judgeService.findByProblem(problem);
-                    double bestRunTime = Double.MAX_VALUE;
-                    String anotherBestAccount = "";
-                    for (Judge tempJudge : judges) {
-                        // 找出下一位最佳代碼持有者
-                        if (!tempJudge.getStudent().getAccount().equals(problem.getBestStudentAccount())
-                                && tempJudge.getHistoryCodes().get(tempJudge.getHistoryCodes().size() - 1).getScore() == 100) {
-                            double tempRunTime = tempJudge.getHistoryCodes().get(tempJudge.getHistoryCodes().size() - 1).getRunTime();
-                            if (tempRunTime < bestRunTime) {
-                                bestRunTime = tempRunTime;
-                                anotherBestAccount = tempJudge.getStudent().getAccount();
-                            }
-                        }
-                    }
-                    problem.setBestStudentAccount(anotherBestAccount);
+        }
+        // 先儲存Judge，之後的最佳代碼比對才看得到這次的結果
+        judgeService.save(judge);
+        if (correctDelta != 0 || incorrectDelta != 0) {
+            problemService.incrementJudgeNum(problemId, correctDelta, incorrectDelta);
+        }
+        updateBestStudentAccount(problem, account, avgScore == 100, avgRunTime);
+    }
+
+    // 以compare-and-set更換最佳代碼持有者，期間被其他批改換掉時以最新的持有者重新比對
+    private void updateBestStudentAccount(Problem problem, String account, boolean isAccepted, double avgRunTime) throws EntityNotFoundException {
+        String bestStudentAccount = problem.getBestStudentAccount();
+        for (int i = 0; i < BEST_STUDENT_RETRY_TIMES; i++) {
+            String newBestStudentAccount = isAccepted
+                    ? chooseBestStudentAccount(problem, bestStudentAccount, account, avgRunTime)
+                    : chooseNextBestStudentAccount(problem, bestStudentAccount, account);
+            if (newBestStudentAccount.equals(bestStudentAccount)
+                    || problemService.compareAndSetBestStudentAccount(problem.getId(), bestStudentAccount, newBestStudentAccount)) {
+                return;
+            }
+            bestStudentAccount = problemService.findBestStudentAccount(problem.getId());
+        }
+    }
+
+    // 比對最佳代碼是否需要更換，兩種情況:還沒有最佳代碼、已經有最佳代碼
+    private String chooseBestStudentAccount(Problem problem, String bestStudentAccount, String account, double avgRunTime) throws EntityNotFoundException {
+        if (bestStudentAccount.equals("")) {
+            return account;
+        }
+        Student bestStudent = studentService.findByAccount(bestStudentAccount);
+        Judge bestJudge = judgeService.findByProblemAndStudent(problem, bestStudent);
+        double bestAvgRunTime = bestJudge.getHistoryCodes().get(bestJudge.getHistoryCodes().size() - 1).getRunTime();
+        return bestAvgRunTime > avgRunTime ? account : bestStudentAccount;
+    }
+
+    // 比對最佳代碼是否需要更換，自己是最佳代碼的持有者的情況
+    private String chooseNextBestStudentAccount(Problem problem, String bestStudentAccount, String account) {
+        if (!bestStudentAccount.equals(account)) {
+            return bestStudentAccount;
+        }
+        List<Judge> judges = judgeService.findByProblem(problem);
+        double bestRunTime = Double.MAX_VALUE;
+        String anotherBestAccount = "";
+        for (Judge tempJudge : judges) {
+            // 找出下一位最佳代碼持有者
+            if (!tempJudge.getStudent().getAccount().equals(bestStudentAccount)
+                    && tempJudge.getHistoryCodes().get(tempJudge.getHistoryCodes().size() - 1).getScore() == 100) {
+                double tempRunTime = tempJudge.getHistoryCodes().get(tempJudge.getHistoryCodes().size() - 1).getRunTime();
+                if (tempRunTime < bestRunTime) {
+                    bestRunTime = tempRunTime;
+                    anotherBestAccount = tempJudge.getStudent().getAccount();
                 }
             }
         }
-        correctRate = (double) correctNum / (correctNum + incorrectNum);
-        // 設定答對數、答錯數、答對率
-        problem.setCorrectNum(correctNum);
-        problem.setIncorrectNum(incorrectNum);
-        problem.setCorrectRate(correctRate);
-        // 儲存Problem、Judge，更新後的資訊
-        problemService.save(problem);
-        judgeService.save(judge);
+        return anotherBestAccount;
     }
 
     // 利用題目Id、學生account取得學生座學生做該題的judge資訊
@@ -200,31 +357,79 @@ public class JudgeManagerImpl implements JudgeManager {
         Problem problem = problemService.findById(problemId);
         Language language = chooseLanguage(problem.getTag()[0]);
         List<Judge> judges = judgeService.findByProblem(problem);
-        int number = judges.size();
-        List<Copy> copies = new ArrayList<>();
+        List<String> accounts = new ArrayList<>();
+        List<String> codes = new ArrayList<>();
+        for (Judge judge : judges) {
+            accounts.add(judge.getStudent().getAccount());
+            codes.add(judge.getHistoryCodes().get(judge.getHistoryCodes().size() - 1).getCode());
+        }
         // 每一位學生的代碼與其他所有學生進行比對，相似度>0.9的話，則視為抄襲
-        for (int i = 0; i < number; i++) {
-            Judge sourceJudge = judges.get(i);
-            String sourceAccount = sourceJudge.getStudent().getAccount();
-            String sourceCode = sourceJudge.getHistoryCodes().get(sourceJudge.getHistoryCodes().size() - 1).getCode();
-
-            for (Judge destJudge : judges) {
-                if (!sourceJudge.getStudent().getAccount().equals(destJudge.getStudent().getAccount())) {
-                    String destAccount = destJudge.getStudent().getAccount();
-                    String destCode = destJudge.getHistoryCodes().get(destJudge.getHistoryCodes().size() - 1).getCode();
-
-                    CodeSimilarity codeSimilarity = new CodeSimilarity(language, new LCSAlgorithm());
-                    double similarity = codeSimilarity.get(sourceCode, destCode);
-                    if (similarity >= 0.9) {
-                        Copy copy = new Copy(problem, sourceAccount, destAccount, similarity);
-                        copies.add(copy);
-                    }
-                }
+        // 相似度是對稱的，每組只算一次，再寫入雙向的Copy讓兩位學生都查得到
+        // 候選組合：預設all為兩兩比對；fingerprint、lsh是會漏掉少數組合的篩選，只適合代碼數量很大的題目
+        CodeSimilarity codeSimilarity = new CodeSimilarity(language, chooseSimilarityAlgorithm(problem.getSimilarityAlgorithm()));
+        PairwiseCodeSimilarity pairwiseSimilarity = new PairwiseCodeSimilarity(codeSimilarity, copyDetectionPool);
+        List<SimilarCodePair> pairs;
+        switch (copyCandidateMode) {
+            case "fingerprint":
+                pairs = pairwiseSimilarity.findSimilarPairs(codes, findCandidatePairs(problem, language, accounts, codes), 0.9);
+                break;
+            case "lsh":
+                pairs = pairwiseSimilarity.findSimilarPairs(codes, findLshCandidatePairs(language, codes), 0.9);
+                break;
+            default:
+                pairs = pairwiseSimilarity.findSimilarPairs(codes, 0.9);
+        }
+        List<Copy> copies = new ArrayList<>();
+        for (SimilarCodePair pair : pairs) {
+            String sourceAccount = accounts.get(pair.getSourceIndex());
+            String destAccount = accounts.get(pair.getDestIndex());
+            if (!sourceAccount.equals(destAccount)) {
+                copies.add(new Copy(problem, sourceAccount, destAccount, pair.getSimilarity()));
+                copies.add(new Copy(problem, destAccount, sourceAccount, pair.getSimilarity()));
             }
         }
         copyService.saveAll(copies);
     }
 
+    // 以winnowing指紋篩選出共同指紋夠多的組合，只有這些組合需要計算相似度
+    // 指紋存在資料庫中，代碼沒變的學生直接沿用，只有新的或改過的代碼需要重新計算
+    private List<int[]> findCandidatePairs(Problem problem, Language language, List<String> accounts, List<String> codes) {
+        WinnowingFingerprinter fingerprinter = new WinnowingFingerprinter(language, fingerprintK, fingerprintWindow);
+        Map<String, CodeFingerprint> storedFingerprints = new HashMap<>();
+        for (CodeFingerprint codeFingerprint : codeFingerprintService.findByProblem(problem)) {
+            storedFingerprints.put(codeFingerprint.getAccount(), codeFingerprint);
+        }
+        FingerprintIndex index = new FingerprintIndex();
+        List<CodeFingerprint> changedFingerprints = new ArrayList<>();
+        for (int i = 0; i < codes.size(); i++) {
+            String signature = fingerprinter.getSignature(codes.get(i));
+            CodeFingerprint codeFingerprint = storedFingerprints.get(accounts.get(i));
+            if (codeFingerprint == null) {
+                codeFingerprint = new CodeFingerprint(problem, accounts.get(i), signature, fingerprinter.fingerprint(codes.get(i)));
+                changedFingerprints.add(codeFingerprint);
+            }
+            else if (!signature.equals(codeFingerprint.getSignature())) {
+                codeFingerprint.setSignature(signature);
+                codeFingerprint.setFingerprints(fingerprinter.fingerprint(codes.get(i)));
+                changedFingerprints.add(codeFingerprint);
+            }
+            index.add(i, codeFingerprint.getFingerprints());
+        }
+        codeFingerprintService.saveAll(changedFingerprints);
+        return index.getCandidatePairs(fingerprintMinOverlap);
+    }
+
+    // 以MinHash簽章分桶，至少一個band相同的組合才需要計算相似度，不需儲存任何索引
+    private List<int[]> findLshCandidatePairs(Language language, List<String> codes) {
+        WinnowingFingerprinter shingler = new WinnowingFingerprinter(language, lshShingleSize, 1);
+        MinHashLSH minHashLSH = new MinHashLSH(lshBands, lshRows, 0);
+        List<int[]> signatures = new ArrayList<>();
+        for (String code : codes) {
+            signatures.add(minHashLSH.signature(shingler.shingle(code)));
+        }
+        return minHashLSH.getCandidatePairs(signatures);
+    }
+
     // 更新學生對於已做答的題目的評分
     @Transactional(rollbackFor = Exception.class)
     @Override
@@ -493,6 +698,94 @@ public class JudgeManagerImpl implements JudgeManager {
         return result;
     }
 
+    // 平行模式下，編譯一次後測資分散到共用執行緒池執行，並依批改策略提前停止；否則沿用原本逐一執行全部測資的Judger
+    private JudgeReport performJudge(Language language, JudgeData judgeData, JudgePolicy judgePolicy,
+                                     List<Integer> caseOrder, JudgeProgressListener listener) {
+        // pipeline只編譯一次並依judge.*設定執行所有測資；legacy為原本每個測資各自編譯執行的Judger
+        if (!"legacy".equals(judgeEngine)) {
+            JudgeOptions options = createJudgeOptions();
+            options.setJudgePolicy(judgePolicy);
+            options.setCaseOrder(caseOrder);
+            options.setWorkspaceQuotaBytes(workspaceManager.getQuotaBytes());
+            return new PipelineJudger(language, judgeData, options, judgeCaseExecutor, listener).performJudge();
+        }
+        listener.onStatusChanged(SubmissionStatus.RUNNING);
+        Judger judger = JudgerFactory.createJudger(language, judgeData);
+        assert judger != null;
+        return judger.performJudge();
+    }
+
+    // TransactionTemplate的callback不能丟出checked exception，在交易內包裝、交易外還原
+    private <T> T executeInTransaction(TransactionTemplate template, TransactionalWork<T> work) throws EntityNotFoundException {
+        try {
+            return template.execute(status -> {
+                try {
+                    return work.run();
+                } catch (EntityNotFoundException e) {
+                    throw new UndeclaredThrowableException(e);
+                }
+            });
+        } catch (UndeclaredThrowableException e) {
+            if (e.getCause() instanceof EntityNotFoundException) {
+                throw (EntityNotFoundException) e.getCause();
+            }
+            throw e;
+        }
+    }
+
+    // 依judge.*設定建立PipelineJudger的選項，批改策略與測資順序由每次批改另外設定
+    private JudgeOptions createJudgeOptions() {
+        JudgeOptions options = new JudgeOptions();
+        // 未開啟平行批改時依序執行測資
+        options.setParallelism(isParallelJudge ? casesPerSubmission : 1);
+        options.setTimeLimitMillis(timeLimitMillis);
+        options.setOutputLimitBytes(outputLimitKilobytes * 1024);
+        options.setInProcessCompile("internal".equals(compilerType));
+        options.setSharedJvm("harness".equals(javaRunnerType));
+        options.setPythonWorkerPool(pythonWorkerPool);
+        options.setCompilationCache(compilationCache);
+        options.setSandboxFactory(sandboxFactory);
+        options.setCpuTime("cpu".equals(timingMode));
+        options.setMeasureRepeats(bestCodeRepeats);
+        options.setRunSlots(judgeRunSlots);
+        return options;
+    }
+
+    // 取得批改相關的統計資訊
+    @Override
+    public Map<String, Object> getJudgeMetrics() {
+        Map<String, Object> result = new HashMap<>();
+        if (compilationCache != null) {
+            Map<String, Object> cacheResult = new HashMap<>();
+            cacheResult.put("hit", compilationCache.getHitCount());
+            cacheResult.put("miss", compilationCache.getMissCount());
+            cacheResult.put("entries", compilationCache.getEntryCount());
+            cacheResult.put("bytes", compilationCache.getTotalBytes());
+            result.put("compileCache", cacheResult);
+        }
+        Map<String, Object> workspaceResult = new HashMap<>();
+        workspaceResult.put("active", workspaceManager.getActiveCount());
+        workspaceResult.put("pendingCleanup", workspaceManager.getPendingCleanupCount());
+        result.put("workspace", workspaceResult);
+        result.put("scheduler", judgeScheduler.getMetrics());
+        if (judgeWorkerRegistry != null) {
+            result.put("workers", judgeWorkerRegistry.getMetrics());
+        }
+        result.put("supervisedProcesses", ProcessSupervisor.getInstance().getSupervisedCount());
+        if (sandboxFactory != null) {
+            result.put("sandbox", sandboxFactory.isCgroupAvailable() ? "cgroup" : "rlimit");
+        }
+        return result;
+    }
+
+    private File acquireWorkspace(String account) {
+        try {
+            return workspaceManager.acquire(account);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
     private Language chooseLanguage(String language) {
         switch (language) {
             case "Java":
@@ -519,6 +812,49 @@ public class JudgeManagerImpl implements JudgeManager {
         }
     }
 
+    // 第一次使用時從所有歷史代碼的symbol建立統計，之後每次批改後累加
+    private List<Integer> getFailingFirstOrder(Problem problem) {
+        int caseNum = problem.getTestCases().size();
+        if (!caseFailureStatistics.isLoaded(problem.getId(), caseNum)) {
+            List<List<String>> symbolLists = new ArrayList<>();
+            for (Judge judge : judgeService.findByProblem(problem)) {
+                for (HistoryCode historyCode : judge.getHistoryCodes()) {
+                    symbolLists.add(historyCode.getSymbol());
+                }
+            }
+            caseFailureStatistics.load(problem.getId(), caseNum, symbolLists);
+        }
+        return caseFailureStatistics.getFailingFirstOrder(problem.getId(), caseNum);
+    }
+
+    // 題目未設定抄襲比對演算法時使用全域的judge.copy.algorithm，無法辨識時使用LCS
+    private SimilarityAlgorithm chooseSimilarityAlgorithm(String similarityAlgorithm) {
+        SimilarityAlgorithmType type;
+        try {
+            type = SimilarityAlgorithmType.valueOf(similarityAlgorithm != null ? similarityAlgorithm : defaultSimilarityAlgorithm);
+        } catch (IllegalArgumentException e) {
+            type = SimilarityAlgorithmType.LCS;
+        }
+        switch (type) {
+            case BIT_PARALLEL_LCS:
+                return new BitParallelLCSAlgorithm();
+            default:
+                return new LCSAlgorithm();
+        }
+    }
+
+    // 未設定或無法辨識的批改策略視為執行所有測資；legacy批改不支援提前停止，一律執行所有測資
+    private JudgePolicy choosePolicy(String judgePolicy) {
+        if (judgePolicy == null || "legacy".equals(judgeEngine)) {
+            return JudgePolicy.ALL;
+        }
+        try {
+            return JudgePolicy.valueOf(judgePolicy);
+        } catch (IllegalArgumentException e) {
+            return JudgePolicy.ALL;
+        }
+    }
+
     private String decideDeadlineStatus(Date date) {
         Calendar now = Calendar.getInstance();
         Calendar deadline = Calendar.getInstance();
@@ -533,4 +869,19 @@ public class JudgeManagerImpl implements JudgeManager {
             return "已關閉";
         }
     }
+
+    @FunctionalInterface
+    private interface TransactionalWork<T> {
+
+        T run() throws EntityNotFoundException;
+    }
+
+    // 讀取交易中準備好的批改資料，執行期間不再存取資料庫
+    private static class JudgeContext {
+
+        private List<ProblemCase> problemCases;
+        private JudgeBehavior judgeBehavior;
+        private JudgePolicy judgePolicy;
+        private List<Integer> caseOrder;
+    }
 }
@@ -0,0 +1,333 @@
+package com.penguin.penguincoco.manager.impl;
+
+import com.penguin.penguincoco.common.exception.EntityNotFoundException;
+import com.penguin.penguincoco.common.exception.JudgeQueueFullException;
+import com.penguin.penguincoco.common.exception.JudgeRateLimitException;
+import com.penguin.penguincoco.dao.domain.problem.Problem;
+import com.penguin.penguincoco.dao.domain.submission.Submission;
+import com.penguin.penguincoco.lib.judge.JudgeScheduler;
+import com.penguin.penguincoco.lib.judge.TokenBucketRateLimiter;
+import com.penguin.penguincoco.lib.model.JudgePriority;
+import com.penguin.penguincoco.lib.model.JudgeProblemResult;
+import com.penguin.penguincoco.lib.model.JudgeReport;
+import com.penguin.penguincoco.lib.model.JudgeSubmission;
+import com.penguin.penguincoco.lib.model.SubmissionStatus;
+import com.penguin.penguincoco.manager.JudgeManager;
+import com.penguin.penguincoco.manager.JudgeQueueManager;
+import com.penguin.penguincoco.service.ProblemService;
+import com.penguin.penguincoco.service.SubmissionService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Service;
+
+import java.lang.management.ManagementFactory;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+
+@Service
+public class JudgeQueueManagerImpl implements JudgeQueueManager {
+
+    private JudgeManager judgeManager;
+    private ProblemService problemService;
+    private JudgeScheduler judgeScheduler;
+    private TokenBucketRateLimiter submissionRateLimiter;
+    private SubmissionService submissionService;
+    private long retentionMillis;
+    private long imminentMillis;
+    // 資料庫佇列模式：submission存在資料庫，任何節點都可以認領批改，重新啟動也不會遺失
+    private boolean isDurable;
+    private String workerId;
+    private int workers;
+    private int maxAttempts;
+    private long leaseMillis;
+    private long lastLeaseExtendTime;
+    private long lastCleanupTime;
+    // 此節點已認領、尚未完成的submission
+    private Set<String> claimedSubmissionIds = ConcurrentHashMap.newKeySet();
+    private Map<String, JudgeSubmission> submissions = new ConcurrentHashMap<>();
+    // 各學生在各題目尚未開始批改的submission，以帳號:題目Id為key，存取時需同步
+    private Map<String, QueuedSubmission> queuedSubmissions = new HashMap<>();
+
+    @Autowired
+    public JudgeQueueManagerImpl(JudgeManager judgeManager,
+                                 ProblemService problemService,
+                                 JudgeScheduler judgeScheduler,
+                                 TokenBucketRateLimiter submissionRateLimiter,
+                                 SubmissionService submissionService,
+                                 @Qualifier("judgeQueuePoller") ScheduledExecutorService judgeQueuePoller,
+                                 @Value("${judge.queue.retention-minutes:30}") long retentionMinutes,
+                                 @Value("${judge.scheduler.imminent-hours:6}") long imminentHours,
+                                 @Value("${judge.queue.mode:memory}") String queueMode,
+                                 @Value("${judge.queue.workers:4}") int workers,
+                                 @Value("${judge.queue.max-attempts:3}") int maxAttempts,
+                                 @Value("${judge.queue.lease-seconds:120}") long leaseSeconds,
+                                 @Value("${judge.queue.poll-ms:1000}") long pollMillis) {
+        this.judgeManager = judgeManager;
+        this.problemService = problemService;
+        this.judgeScheduler = judgeScheduler;
+        this.submissionRateLimiter = submissionRateLimiter;
+        this.retentionMillis = TimeUnit.MINUTES.toMillis(retentionMinutes);
+        this.imminentMillis = TimeUnit.HOURS.toMillis(imminentHours);
+        this.submissionService = submissionService;
+        this.isDurable = "database".equals(queueMode);
+        this.workerId = ManagementFactory.getRuntimeMXBean().getName() + ":" + UUID.randomUUID().toString().substring(0, 8);
+        this.workers = workers;
+        this.maxAttempts = maxAttempts;
+        this.leaseMillis = TimeUnit.SECONDS.toMillis(leaseSeconds);
+        if (isDurable) {
+            judgeQueuePoller.scheduleWithFixedDelay(this::pollDurableQueue, pollMillis, pollMillis, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    // 將學生送出的代碼放入批改佇列，立即回傳submissionId；同一題目已有排隊中的submission則直接取代，不另外佔用批改資源
+    @Override
+    public String submit(Long problemId, String code, String language, String account) throws EntityNotFoundException, JudgeQueueFullException, JudgeRateLimitException {
+        // 先確認題目存在，避免無效的代碼佔用佇列
+        Problem problem = problemService.findById(problemId);
+        return enqueue(problemId, code, language, account, choosePriority(problem), true);
+    }
+
+    // 老師或管理者重新批改學生的代碼，以最低的優先等級排隊且不消耗該學生的token
+    @Override
+    public String rejudge(Long problemId, String code, String language, String account) throws EntityNotFoundException, JudgeQueueFullException {
+        problemService.findById(problemId);
+        try {
+            return enqueue(problemId, code, language, account, JudgePriority.REJUDGE, false);
+        } catch (JudgeRateLimitException e) {
+            // 不消耗token時不會發生
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private String enqueue(Long problemId, String code, String language, String account, JudgePriority priority,
+                           boolean isRateLimited) throws JudgeQueueFullException, JudgeRateLimitException {
+        removeExpiredSubmissions();
+        String submissionId = UUID.randomUUID().toString();
+        if (isDurable) {
+            return submitDurable(submissionId, problemId, code, language, account, priority, isRateLimited);
+        }
+        JudgeSubmission submission = new JudgeSubmission(submissionId, problemId, code, language, account);
+        // 重新批改與學生自己送出的代碼分開合併，不會取代學生排隊中較新的代碼
+        String queueKey = (priority == JudgePriority.REJUDGE ? "rejudge:" : "") + account + ":" + problemId;
+        QueuedSubmission queued = new QueuedSubmission(submission);
+        queued.task = () -> runSubmission(queueKey, queued);
+        synchronized (queuedSubmissions) {
+            QueuedSubmission previous = queuedSubmissions.get(queueKey);
+            if (previous != null && judgeScheduler.replace(previous.task, priority, queued.task)) {
+                previous.submission.replace(submissionId);
+            }
+            else {
+                // 只有真正新增一次批改才消耗token
+                if (isRateLimited && !submissionRateLimiter.tryAcquire(account)) {
+                    throw new JudgeRateLimitException();
+                }
+                try {
+                    judgeScheduler.submit(account, priority, queued.task);
+                } catch (RejectedExecutionException e) {
+                    throw new JudgeQueueFullException();
+                }
+            }
+            queuedSubmissions.put(queueKey, queued);
+            submissions.put(submissionId, submission);
+        }
+        return submissionId;
+    }
+
+    // 利用submissionId取得批改狀態，批改完成的話一併回傳報告
+    @Override
+    public Map<String, Object> getSubmissionInfo(String submissionId, String account) throws EntityNotFoundException {
+        if (isDurable) {
+            return getDurableSubmissionInfo(submissionId, account);
+        }
+        JudgeSubmission submission = submissions.get(submissionId);
+        if (submission == null || !submission.getAccount().equals(account)) {
+            throw new EntityNotFoundException();
+        }
+
+        Map<String, Object> result = new HashMap<>();
+        result.put("submissionId", submission.getId());
+        result.put("problemId", String.valueOf(submission.getProblemId()));
+        result.put("status", submission.getStatus().name().toLowerCase());
+        if (submission.getStatus() == SubmissionStatus.DONE) {
+            result.put("report", toReportMap(submission.getReport()));
+        }
+        else if (submission.getStatus() == SubmissionStatus.ERROR) {
+            result.put("errorMessage", submission.getErrorMessage());
+        }
+        else if (submission.getStatus() == SubmissionStatus.REPLACED) {
+            result.put("replacedBy", submission.getReplacedBy());
+        }
+        return result;
+    }
+
+    // 寫入資料庫佇列後即回傳，由各節點的poller認領批改
+    private String submitDurable(String submissionId, Long problemId, String code, String language, String account,
+                                 JudgePriority priority, boolean isRateLimited) throws JudgeRateLimitException {
+        // 已有排隊中的submission時會被取代，不另外消耗token
+        BooleanSupplier isAdmitted = () -> !isRateLimited || submissionRateLimiter.tryAcquire(account);
+        try {
+            submissionService.enqueue(new Submission(submissionId, problemId, account, code, language,
+                    SubmissionStatus.QUEUED.name(), priority.ordinal()), isAdmitted);
+        } catch (DataIntegrityViolationException e) {
+            // 同時有另一筆排隊中的submission寫入，重試時就會取代它
+            submissionService.enqueue(new Submission(submissionId, problemId, account, code, language,
+                    SubmissionStatus.QUEUED.name(), priority.ordinal()), isAdmitted);
+        }
+        return submissionId;
+    }
+
+    private Map<String, Object> getDurableSubmissionInfo(String submissionId, String account) throws EntityNotFoundException {
+        Submission submission = submissionService.findBySubmissionId(submissionId);
+        if (!submission.getAccount().equals(account)) {
+            throw new EntityNotFoundException();
+        }
+
+        Map<String, Object> result = new HashMap<>();
+        result.put("submissionId", submission.getSubmissionId());
+        result.put("problemId", String.valueOf(submission.getProblemId()));
+        result.put("status", submission.getStatus().toLowerCase());
+        if (submission.getReport() != null) {
+            result.put("report", submission.getReport());
+        }
+        if (submission.getErrorMessage() != null) {
+            result.put("errorMessage", submission.getErrorMessage());
+        }
+        if (submission.getReplacedBy() != null) {
+            result.put("replacedBy", submission.getReplacedBy());
+        }
+        return result;
+    }
+
+    // 依本節點的空閒worker數認領submission，並為批改中的submission續約；資料庫暫時無法連線時下次再試
+    private void pollDurableQueue() {
+        try {
+            long now = System.currentTimeMillis();
+            if (now - lastLeaseExtendTime > leaseMillis / 3) {
+                submissionService.extendLease(new ArrayList<>(claimedSubmissionIds), workerId, leaseMillis);
+                lastLeaseExtendTime = now;
+            }
+            int freeWorkers = workers - judgeScheduler.getActiveCount();
+            if (freeWorkers > 0) {
+                for (Submission submission : submissionService.claim(workerId, freeWorkers, leaseMillis, maxAttempts)) {
+                    // 先記錄再送出，避免批改比記錄更早完成；送不出去的不續約，租約到期後由其他節點重新認領
+                    claimedSubmissionIds.add(submission.getSubmissionId());
+                    try {
+                        judgeScheduler.submit(submission.getAccount(), JudgePriority.values()[submission.getPriority()],
+                                () -> runDurableSubmission(submission));
+                    } catch (RuntimeException e) {
+                        claimedSubmissionIds.remove(submission.getSubmissionId());
+                        e.printStackTrace();
+                    }
+                }
+            }
+            if (now - lastCleanupTime > TimeUnit.MINUTES.toMillis(1)) {
+                submissionService.deleteFinishedBefore(new Date(now - retentionMillis));
+                lastCleanupTime = now;
+            }
+        } catch (Exception e) {
+            e.printStackTrace();
+        }
+    }
+
+    // 批改本身的錯誤直接記錄為ERROR；節點在批改途中失效時租約到期，由其他節點重新認領
+    private void runDurableSubmission(Submission submission) {
+        String submissionId = submission.getSubmissionId();
+        try {
+            JudgeReport report = judgeManager.judgeCode(submission.getProblemId(), submission.getCode(),
+                    submission.getLanguage(), submission.getAccount(),
+                    status -> submissionService.updateStatus(submissionId, workerId, status.name()));
+            submissionService.finish(submissionId, workerId, SubmissionStatus.DONE.name(), toReportMap(report), null);
+        } catch (Exception e) {
+            e.printStackTrace();
+            submissionService.finish(submissionId, workerId, SubmissionStatus.ERROR.name(), null, e.getMessage());
+        } finally {
+            claimedSubmissionIds.remove(submissionId);
+        }
+    }
+
+    // 學生送出的代碼一律依題目期限決定等級(重送相同代碼也一樣，連續送出已由佇列合併處理)：
+    // 考試題目或距離截止不到imminent-hours的題目最優先，其次是尚未截止的作業，其餘視為練習；REJUDGE只用於rejudge
+    private JudgePriority choosePriority(Problem problem) {
+        if (problem.getDeadline() == null) {
+            return JudgePriority.PRACTICE;
+        }
+        Calendar deadline = Calendar.getInstance();
+        deadline.setTime(problem.getDeadline());
+        // 截止日期當天仍可作答
+        deadline.add(Calendar.DATE, 1);
+        long remainMillis = deadline.getTimeInMillis() - System.currentTimeMillis();
+        if (remainMillis <= 0) {
+            return JudgePriority.PRACTICE;
+        }
+        if ("考試".equals(problem.getType()) || remainMillis <= imminentMillis) {
+            return JudgePriority.EXAM;
+        }
+        if ("作業".equals(problem.getType())) {
+            return JudgePriority.HOMEWORK;
+        }
+        return JudgePriority.PRACTICE;
+    }
+
+    private void runSubmission(String queueKey, QueuedSubmission queued) {
+        synchronized (queuedSubmissions) {
+            queuedSubmissions.remove(queueKey, queued);
+        }
+        JudgeSubmission submission = queued.submission;
+        try {
+            JudgeReport report = judgeManager.judgeCode(submission.getProblemId(), submission.getCode(),
+                    submission.getLanguage(), submission.getAccount(), submission::setStatus);
+            submission.finish(report);
+        } catch (Exception e) {
+            e.printStackTrace();
+            submission.fail(e.getMessage());
+        }
+    }
+
+    private Map<String, Object> toReportMap(JudgeReport report) {
+        Map<String, Object> result = new HashMap<>();
+        result.put("compileSuccess", report.isCompileSuccess());
+        result.put("compileErrorMessage", report.getCompileErrorMessage());
+        List<String> output = new ArrayList<>();
+        List<String> symbol = new ArrayList<>();
+        List<String> errorInfo = new ArrayList<>();
+        if (report.getResults() != null && !report.getResults().isEmpty()) {
+            for (JudgeProblemResult problemResult : report.getResults()) {
+                output.add(problemResult.getOutput());
+                symbol.add(problemResult.getSymbol().getDescription());
+                errorInfo.add(problemResult.getMessage());
+            }
+            result.put("score", String.valueOf(report.getAverageScore()));
+            result.put("runTime", String.valueOf(report.getAverageJudgeTimeForRoundOff2nd()));
+            result.put("skipped", report.getSkippedCount());
+            if (report.hasCpuTime()) {
+                result.put("cpuTime", String.valueOf(report.getAverageCpuTimeForRoundOff2nd()));
+            }
+        }
+        result.put("output", output);
+        result.put("symbol", symbol);
+        result.put("errorInfo", errorInfo);
+        return result;
+    }
+
+    // 移除已完成且超過保留時間的批改紀錄，避免記憶體無限成長
+    private void removeExpiredSubmissions() {
+        long expiredTime = System.currentTimeMillis() - retentionMillis;
+        submissions.values().removeIf(submission -> submission.isFinished() && submission.getFinishTime() < expiredTime);
+    }
+
+    private static class QueuedSubmission {
+
+        private JudgeSubmission submission;
+        private Runnable task;
+
+        private QueuedSubmission(JudgeSubmission submission) {
+            this.submission = submission;
+        }
+    }
+}
@@ -0,0 +1,80 @@
+package com.penguin.penguincoco.manager.impl;
+
+import com.penguin.penguincoco.common.exception.EntityNotFoundException;
+import com.penguin.penguincoco.lib.judge.worker.JudgeJob;
+import com.penguin.penguincoco.lib.judge.worker.JudgeWireFormat;
+import com.penguin.penguincoco.lib.judge.worker.JudgeWorkerRegistry;
+import com.penguin.penguincoco.lib.judge.worker.RemoteJudgeWorker;
+import com.penguin.penguincoco.lib.model.SubmissionStatus;
+import com.penguin.penguincoco.manager.JudgeWorkerManager;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.util.Map;
+
+@Service
+public class JudgeWorkerManagerImpl implements JudgeWorkerManager {
+
+    // 長輪詢最多佔用request thread的時間
+    private static final long MAX_POLL_WAIT_MILLIS = 30000;
+
+    private JudgeWorkerRegistry judgeWorkerRegistry;
+    private String workerToken;
+
+    @Autowired
+    public JudgeWorkerManagerImpl(ObjectProvider<JudgeWorkerRegistry> judgeWorkerRegistry,
+                                  @Value("${judge.worker.token:}") String workerToken) {
+        this.judgeWorkerRegistry = judgeWorkerRegistry.getIfAvailable();
+        this.workerToken = workerToken;
+    }
+
+    // 未啟用節點模式或未設定token時拒絕所有遠端節點
+    @Override
+    public boolean isAuthorized(String token) {
+        if (judgeWorkerRegistry == null || workerToken.isEmpty() || token == null) {
+            return false;
+        }
+        return MessageDigest.isEqual(workerToken.getBytes(StandardCharsets.UTF_8), token.getBytes(StandardCharsets.UTF_8));
+    }
+
+    @Override
+    public void register(String workerId, int capacity) {
+        judgeWorkerRegistry.register(workerId, capacity);
+    }
+
+    // 沒有工作時回傳null
+    @Override
+    public Map<String, Object> poll(String workerId, long waitMillis) throws EntityNotFoundException, InterruptedException {
+        JudgeJob job = findWorker(workerId).poll(Math.min(Math.max(0, waitMillis), MAX_POLL_WAIT_MILLIS));
+        return job == null ? null : JudgeWireFormat.toMap(job);
+    }
+
+    @Override
+    public void updateStatus(String workerId, String jobId, String status) throws EntityNotFoundException {
+        if (!findWorker(workerId).onStatusChanged(jobId, SubmissionStatus.valueOf(status))) {
+            throw new EntityNotFoundException();
+        }
+    }
+
+    @Override
+    public void submitResult(String workerId, String jobId, Map<String, Object> report, String errorMessage) throws EntityNotFoundException {
+        RemoteJudgeWorker worker = findWorker(workerId);
+        boolean isAccepted = report != null ? worker.onResult(jobId, JudgeWireFormat.toReport(report))
+                : worker.onError(jobId, errorMessage);
+        if (!isAccepted) {
+            throw new EntityNotFoundException();
+        }
+    }
+
+    private RemoteJudgeWorker findWorker(String workerId) throws EntityNotFoundException {
+        RemoteJudgeWorker worker = judgeWorkerRegistry.getRemoteWorker(workerId);
+        if (worker == null) {
+            throw new EntityNotFoundException();
+        }
+        return worker;
+    }
+}
@@ -0,0 +1,12 @@
+package com.penguin.penguincoco.service;
+
+import com.penguin.penguincoco.dao.domain.copy.CodeFingerprint;
+import com.penguin.penguincoco.dao.domain.problem.Problem;
+import com.penguin.penguincoco.service.base.BaseService;
+
+import java.util.List;
+
+public interface CodeFingerprintService extends BaseService<CodeFingerprint, Long> {
+
+    List<CodeFingerprint> findByProblem(Problem problem);
+}
@@ -18,6 +18,10 @@ public interface ProblemService extends BaseService<Problem, Long> {
                    String[] pattern,
                    List<TestCase> testCases, Date deadline) throws EntityNotFoundException;
 
+    void updateJudgePolicy(Long problemId, String judgePolicy) throws EntityNotFoundException;
+
+    void updateSimilarityAlgorithm(Long problemId, String similarityAlgorithm) throws EntityNotFoundException;
+
     List<Problem> findByCourse(Course course);
 
     ProblemInfo getInfo(Long problemId) throws EntityNotFoundException;
@@ -28,5 +32,11 @@ public interface ProblemService extends BaseService<Problem, Long> {
 
     int updateRateByProblemId(Long problemId, double rate);
 
+    int incrementJudgeNum(Long problemId, int correctDelta, int incorrectDelta);
+
+    boolean compareAndSetBestStudentAccount(Long problemId, String expectedAccount, String account);
+
+    String findBestStudentAccount(Long problemId) throws EntityNotFoundException;
+
     int countByBestStudentAccountAndCourse(String account, Course course);
 }
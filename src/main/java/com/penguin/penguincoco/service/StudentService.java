@@ -15,6 +15,8 @@ public interface StudentService extends BaseService<Student, Long> {
 
     Student findByAccount(String account) throws EntityNotFoundException;
 
+    Student findByAccountForUpdate(String account) throws EntityNotFoundException;
+
     int updatePasswordByAccount(String account, String oriPassword, String newPassword);
 
     List<Course> findCoursesByAccount(String account) throws EntityNotFoundException;
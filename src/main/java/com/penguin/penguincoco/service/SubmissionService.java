@@ -0,0 +1,29 @@
+package com.penguin.penguincoco.service;
+
+import com.penguin.penguincoco.common.exception.EntityNotFoundException;
+import com.penguin.penguincoco.common.exception.JudgeRateLimitException;
+import com.penguin.penguincoco.dao.domain.submission.Submission;
+import com.penguin.penguincoco.service.base.BaseService;
+
+import java.util.Collection;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.function.BooleanSupplier;
+
+public interface SubmissionService extends BaseService<Submission, Long> {
+
+    Submission findBySubmissionId(String submissionId) throws EntityNotFoundException;
+
+    int enqueue(Submission submission, BooleanSupplier isAdmitted) throws JudgeRateLimitException;
+
+    List<Submission> claim(String workerId, int limit, long leaseMillis, int maxAttempts);
+
+    int extendLease(Collection<String> submissionIds, String workerId, long leaseMillis);
+
+    boolean updateStatus(String submissionId, String workerId, String status);
+
+    boolean finish(String submissionId, String workerId, String status, Map<String, Object> report, String errorMessage);
+
+    int deleteFinishedBefore(Date expiredTime);
+}
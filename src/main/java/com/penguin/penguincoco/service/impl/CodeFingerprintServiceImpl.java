@@ -0,0 +1,33 @@
+package com.penguin.penguincoco.service.impl;
+
+import com.penguin.penguincoco.dao.domain.copy.CodeFingerprint;
+import com.penguin.penguincoco.dao.domain.problem.Problem;
+import com.penguin.penguincoco.dao.repository.CodeFingerprintRepository;
+import com.penguin.penguincoco.dao.repository.base.BaseRepository;
+import com.penguin.penguincoco.service.CodeFingerprintService;
+import com.penguin.penguincoco.service.base.BaseServiceImpl;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import java.util.List;
+
+@Service
+public class CodeFingerprintServiceImpl extends BaseServiceImpl<CodeFingerprint, Long> implements CodeFingerprintService {
+
+    private CodeFingerprintRepository codeFingerprintRepository;
+
+    @Autowired
+    public CodeFingerprintServiceImpl(CodeFingerprintRepository codeFingerprintRepository) {
+        this.codeFingerprintRepository = codeFingerprintRepository;
+    }
+
+    @Override
+    public BaseRepository<CodeFingerprint, Long> getBaseRepository() {
+        return codeFingerprintRepository;
+    }
+
+    @Override
+    public List<CodeFingerprint> findByProblem(Problem problem) {
+        return codeFingerprintRepository.findByProblem(problem);
+    }
+}
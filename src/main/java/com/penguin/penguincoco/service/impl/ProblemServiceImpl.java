@@ -52,6 +52,22 @@ public class ProblemServiceImpl extends BaseServiceImpl<Problem, Long> implement
         problemRepository.save(problem);
     }
 
+    @Transactional(rollbackFor = Exception.class)
+    @Override
+    public void updateJudgePolicy(Long problemId, String judgePolicy) throws EntityNotFoundException {
+        Problem problem = findById(problemId);
+        problem.setJudgePolicy(judgePolicy);
+        problemRepository.save(problem);
+    }
+
+    @Transactional(rollbackFor = Exception.class)
+    @Override
+    public void updateSimilarityAlgorithm(Long problemId, String similarityAlgorithm) throws EntityNotFoundException {
+        Problem problem = findById(problemId);
+        problem.setSimilarityAlgorithm(similarityAlgorithm);
+        problemRepository.save(problem);
+    }
+
     @Override
     public List<Problem> findByCourse(Course course) {
         return problemRepository.findByCourse(course);
@@ -69,7 +85,8 @@ public class ProblemServiceImpl extends BaseServiceImpl<Problem, Long> implement
                 testCases, problem.getDeadline(),
                 problem.getCorrectNum(), problem.getIncorrectNum(),
                 problem.getCorrectRate(), problem.getBestStudentAccount(),
-                problem.getPattern());
+                problem.getPattern(), problem.getJudgePolicy(),
+                problem.getSimilarityAlgorithm());
         return problemInfo;
     }
 
@@ -89,6 +106,25 @@ public class ProblemServiceImpl extends BaseServiceImpl<Problem, Long> implement
         return problemRepository.updateRateByProblemId(problemId, rate);
     }
 
+    // 以單一UPDATE原子地累加答對數、答錯數，不需鎖住題目列，也不會重寫測資等其他欄位
+    @Transactional
+    @Override
+    public int incrementJudgeNum(Long problemId, int correctDelta, int incorrectDelta) {
+        return problemRepository.incrementJudgeNumByProblemId(problemId, correctDelta, incorrectDelta);
+    }
+
+    // 只有在最佳代碼持有者仍是expectedAccount時才更換，回傳是否更換成功
+    @Transactional
+    @Override
+    public boolean compareAndSetBestStudentAccount(Long problemId, String expectedAccount, String account) {
+        return problemRepository.compareAndSetBestStudentAccount(problemId, expectedAccount, account) > 0;
+    }
+
+    @Override
+    public String findBestStudentAccount(Long problemId) throws EntityNotFoundException {
+        return problemRepository.findBestStudentAccountById(problemId).orElseThrow(EntityNotFoundException::new);
+    }
+
     @Override
     public int countByBestStudentAccountAndCourse(String account, Course course) {
         return problemRepository.countByBestStudentAccountAndCourse(account, course);
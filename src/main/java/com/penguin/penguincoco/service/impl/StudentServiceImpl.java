@@ -42,6 +42,12 @@ public class StudentServiceImpl extends BaseServiceImpl<Student, Long> implement
         return studentRepository.findByAccount(account).orElseThrow(EntityNotFoundException::new);
     }
 
+    // 鎖住學生列直到交易結束，同一學生的批改結果依序寫入，不同學生互不等待
+    @Override
+    public Student findByAccountForUpdate(String account) throws EntityNotFoundException {
+        return studentRepository.findByAccountForUpdate(account).orElseThrow(EntityNotFoundException::new);
+    }
+
     @Transactional
     @Override
     public int updatePasswordByAccount(String account, String oriPassword, String newPassword) {
@@ -0,0 +1,113 @@
+package com.penguin.penguincoco.service.impl;
+
+import com.penguin.penguincoco.common.exception.EntityNotFoundException;
+import com.penguin.penguincoco.common.exception.JudgeRateLimitException;
+import com.penguin.penguincoco.dao.domain.submission.Submission;
+import com.penguin.penguincoco.dao.repository.SubmissionRepository;
+import com.penguin.penguincoco.dao.repository.base.BaseRepository;
+import com.penguin.penguincoco.service.SubmissionService;
+import com.penguin.penguincoco.service.base.BaseServiceImpl;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.*;
+import java.util.function.BooleanSupplier;
+
+@Service
+public class SubmissionServiceImpl extends BaseServiceImpl<Submission, Long> implements SubmissionService {
+
+    private SubmissionRepository submissionRepository;
+
+    @Autowired
+    public SubmissionServiceImpl(SubmissionRepository submissionRepository) {
+        this.submissionRepository = submissionRepository;
+    }
+
+    @Override
+    public BaseRepository<Submission, Long> getBaseRepository() {
+        return submissionRepository;
+    }
+
+    @Override
+    public Submission findBySubmissionId(String submissionId) throws EntityNotFoundException {
+        return submissionRepository.findBySubmissionId(submissionId).orElseThrow(EntityNotFoundException::new);
+    }
+
+    // 新增submission，同時將同一學生同一題目仍在排隊中的submission標記為被取代，已被認領的不受影響；
+    // 沒有取代任何submission時才詢問isAdmitted，不允許則整個交易回滾。
+    // (account, problem_id) WHERE status='QUEUED'的部分唯一索引讓同時送出的另一筆在save時失敗，由呼叫端重試
+    @Transactional(rollbackFor = Exception.class)
+    @Override
+    public int enqueue(Submission submission, BooleanSupplier isAdmitted) throws JudgeRateLimitException {
+        int replacedCount = submissionRepository.replaceQueued(submission.getAccount(), submission.getProblemId(),
+                submission.getSubmissionId(), new Date());
+        if (replacedCount == 0 && !isAdmitted.getAsBoolean()) {
+            throw new JudgeRateLimitException();
+        }
+        submissionRepository.save(submission);
+        return replacedCount;
+    }
+
+    // 以FOR UPDATE SKIP LOCKED認領最多limit筆，多個節點同時認領也不會拿到同一筆；超過重試次數的直接標記為錯誤
+    @Transactional(rollbackFor = Exception.class)
+    @Override
+    public List<Submission> claim(String workerId, int limit, long leaseMillis, int maxAttempts) {
+        Date now = new Date();
+        List<Submission> claimed = new ArrayList<>();
+        for (Submission submission : submissionRepository.findClaimable(now, limit)) {
+            if (submission.getAttempts() >= maxAttempts) {
+                submission.setStatus("ERROR");
+                submission.setErrorMessage("retry limit exceeded");
+                submission.setFinishTime(now);
+            }
+            else {
+                submission.setStatus("COMPILING");
+                submission.setAttempts(submission.getAttempts() + 1);
+                submission.setWorkerId(workerId);
+                submission.setLeaseExpireTime(new Date(now.getTime() + leaseMillis));
+                claimed.add(submission);
+            }
+        }
+        return claimed;
+    }
+
+    // 續約此節點正在批改的submission，租約已被其他節點接手的不會被更新
+    @Transactional(rollbackFor = Exception.class)
+    @Override
+    public int extendLease(Collection<String> submissionIds, String workerId, long leaseMillis) {
+        if (submissionIds.isEmpty()) {
+            return 0;
+        }
+        return submissionRepository.extendLease(submissionIds, workerId, new Date(System.currentTimeMillis() + leaseMillis));
+    }
+
+    @Transactional(rollbackFor = Exception.class)
+    @Override
+    public boolean updateStatus(String submissionId, String workerId, String status) {
+        return submissionRepository.updateStatus(submissionId, workerId, status) > 0;
+    }
+
+    // 只有目前持有租約的節點可以寫入結果
+    @Transactional(rollbackFor = Exception.class)
+    @Override
+    public boolean finish(String submissionId, String workerId, String status, Map<String, Object> report, String errorMessage) {
+        Optional<Submission> optionalSubmission = submissionRepository.findBySubmissionIdForUpdate(submissionId);
+        if (!optionalSubmission.isPresent() || !workerId.equals(optionalSubmission.get().getWorkerId())) {
+            return false;
+        }
+        Submission submission = optionalSubmission.get();
+        submission.setStatus(status);
+        submission.setReport(report);
+        submission.setErrorMessage(errorMessage);
+        submission.setFinishTime(new Date());
+        submissionRepository.save(submission);
+        return true;
+    }
+
+    @Transactional(rollbackFor = Exception.class)
+    @Override
+    public int deleteFinishedBefore(Date expiredTime) {
+        return submissionRepository.deleteByFinishTimeBefore(expiredTime);
+    }
+}
@@ -0,0 +1,180 @@
+# Python fork server used by PythonWorkerPool.
+# Reads one JSON request per line from stdin, compiles the submission once per
+# build file, forks a fresh child for every run and writes one JSON reply per line.
+# The server itself never executes submission code, so no state leaks between runs.
+import io
+import json
+import os
+import resource
+import signal
+import sys
+import time
+import traceback
+
+# warm up modules commonly imported by intro-course submissions before forking
+import bisect, collections, functools, heapq, itertools, math, random, re, string  # noqa: E401,F401
+
+_code_cache = {}
+
+
+def load_code(path):
+    mtime = os.stat(path).st_mtime_ns
+    cached = _code_cache.get(path)
+    if cached is not None and cached[0] == mtime:
+        return cached[1], None
+    try:
+        with open(path, 'rb') as source:
+            code = compile(source.read(), path, 'exec')
+    except SyntaxError as e:
+        return None, ''.join(traceback.format_exception_only(type(e), e))
+    _code_cache.clear()
+    _code_cache[path] = (mtime, code)
+    return code, None
+
+
+def apply_limits(request):
+    # join the per-run cgroup before touching anything else, or fall back to rlimits
+    cgroup = request.get('cgroup')
+    if cgroup:
+        with open(os.path.join(cgroup, 'cgroup.procs'), 'w') as procs:
+            procs.write(str(os.getpid()))
+    limits = request.get('limits')
+    if limits:
+        resource.setrlimit(resource.RLIMIT_CPU, (limits['cpu'], limits['cpu']))
+        resource.setrlimit(resource.RLIMIT_AS, (limits['memory'], limits['memory']))
+    # bound every file the run writes while it runs, not only after it exits
+    fsize = request.get('fsize')
+    if fsize:
+        resource.setrlimit(resource.RLIMIT_FSIZE, (fsize, fsize))
+
+
+# exit status of a child whose setup (cgroup, limits, cwd, redirections) failed before the submission ran
+SETUP_FAILED = 126
+
+
+def run_child(code, request, ready):
+    # everything after fork must end in os._exit: an escaping exception would return into main()
+    # and turn this child into a second fork server reading the same requests
+    status = SETUP_FAILED
+    try:
+        os.setsid()
+        apply_limits(request)
+        os.chdir(request['cwd'])
+        encoding = request.get('encoding', 'utf-8')
+        stdin = os.open(request['stdin'], os.O_RDONLY)
+        stdout = os.open(request['stdout'], os.O_WRONLY | os.O_CREAT | os.O_TRUNC, 0o644)
+        stderr = os.open(request['stderr'], os.O_WRONLY | os.O_CREAT | os.O_TRUNC, 0o644)
+        os.dup2(stdin, 0)
+        os.dup2(stdout, 1)
+        os.dup2(stderr, 2)
+        sys.stdin = io.TextIOWrapper(io.FileIO(0, 'r', closefd=False), encoding=encoding)
+        sys.stdout = io.TextIOWrapper(io.FileIO(1, 'w', closefd=False), encoding=encoding)
+        sys.stderr = io.TextIOWrapper(io.FileIO(2, 'w', closefd=False), encoding=encoding, line_buffering=True)
+        # the pre-imported random module was seeded once in the server; without this every run sees the same sequence
+        random.seed()
+        # tell the server the run is set up; without this byte a failed setup cannot be told apart from exit 126
+        os.write(ready, b'1')
+        os.close(ready)
+        status = execute(code)
+        sys.stdout.flush()
+        sys.stderr.flush()
+    except BaseException:
+        if status == 0:
+            status = 1
+    finally:
+        os._exit(status)
+
+
+def execute(code):
+    try:
+        exec(code, {'__name__': '__main__', '__builtins__': __builtins__})
+    except SystemExit as e:
+        if e.code is None:
+            return 0
+        if isinstance(e.code, int):
+            return e.code
+        print(e.code, file=sys.stderr)
+        return 1
+    except BaseException as e:
+        # skip the fork server's own frame so the traceback starts at the submission
+        traceback.print_exception(type(e), e, e.__traceback__.tb_next)
+        return 1
+    return 0
+
+
+def run(request):
+    code, error = load_code(request['file'])
+    if code is None:
+        with open(request['stderr'], 'w') as stderr:
+            stderr.write(error)
+        open(request['stdout'], 'w').close()
+        return {'exit': 1, 'time': 0, 'timeout': False}
+
+    timeout = request['timeout'] / 1000.0
+    start = time.monotonic()
+    ready_read, ready_write = os.pipe()
+    pid = os.fork()
+    if pid == 0:
+        os.close(ready_read)
+        run_child(code, request, ready_write)
+    os.close(ready_write)
+    try:
+        return wait_child(pid, start, timeout, ready_read)
+    finally:
+        os.close(ready_read)
+
+
+def wait_child(pid, start, timeout, ready_read):
+    deadline = start + timeout
+    delay = 0.0005
+    while True:
+        finished, status, usage = os.wait4(pid, os.WNOHANG)
+        if finished:
+            elapsed = time.monotonic() - start
+            kill_group(pid)
+            # same convention as java.lang.Process: 128 + signal number
+            exit_code = os.WEXITSTATUS(status) if os.WIFEXITED(status) else 128 + os.WTERMSIG(status)
+            if not os.read(ready_read, 1):
+                return {'exit': -1, 'time': elapsed * 1000, 'timeout': False, 'error': 'run setup failed'}
+            return {'exit': exit_code, 'time': elapsed * 1000, 'timeout': False, 'cpu': cpu_millis(usage)}
+        if time.monotonic() >= deadline:
+            kill_group(pid)
+            try:
+                os.kill(pid, signal.SIGKILL)
+            except ProcessLookupError:
+                pass
+            _, _, usage = os.wait4(pid, 0)
+            return {'exit': -1, 'time': (time.monotonic() - start) * 1000, 'timeout': True, 'cpu': cpu_millis(usage)}
+        time.sleep(delay)
+        delay = min(delay * 2, 0.01)
+
+
+def kill_group(pid):
+    # the child called setsid(), so everything it spawned shares its process group
+    try:
+        os.killpg(pid, signal.SIGKILL)
+    except ProcessLookupError:
+        pass
+
+
+def cpu_millis(usage):
+    # user + sys time of the child, unaffected by how busy the host is
+    return (usage.ru_utime + usage.ru_stime) * 1000
+
+
+def main():
+    protocol = sys.stdout
+    for line in sys.stdin:
+        line = line.strip()
+        if not line:
+            continue
+        try:
+            reply = run(json.loads(line))
+        except Exception as e:
+            reply = {'exit': -1, 'time': 0, 'timeout': False, 'error': repr(e)}
+        protocol.write(json.dumps(reply) + '\n')
+        protocol.flush()
+
+
+if __name__ == '__main__':
+    main()
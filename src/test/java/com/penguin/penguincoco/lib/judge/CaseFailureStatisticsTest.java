@@ -0,0 +1,107 @@
+package com.penguin.penguincoco.lib.judge;
+
+import com.penguin.penguincoco.lib.model.JudgeProblemResult;
+import com.penguin.penguincoco.lib.model.JudgeSymbol;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class CaseFailureStatisticsTest {
+
+    private static final String AC = JudgeSymbol.AC.getDescription();
+    private static final String WA = JudgeSymbol.WA.getDescription();
+    private static final String TLE = JudgeSymbol.TLE.getDescription();
+    private static final String CE = JudgeSymbol.CE.getDescription();
+    private static final String SKIP = JudgeSymbol.SKIP.getDescription();
+    private static final String SE = JudgeSymbol.SE.getDescription();
+
+    private CaseFailureStatistics statistics = new CaseFailureStatistics();
+
+    @Test
+    public void testOrderByFailureRate() {
+        statistics.load(1L, 3, Arrays.asList(
+                Arrays.asList(AC, WA, TLE),
+                Arrays.asList(AC, AC, WA),
+                Arrays.asList(AC, WA, WA)));
+        assertEquals(Arrays.asList(2, 1, 0), statistics.getFailingFirstOrder(1L, 3));
+    }
+
+    // 未通過率相同時維持原本的測資順序
+    @Test
+    public void testTiesKeepOriginalOrder() {
+        statistics.load(1L, 4, Arrays.asList(
+                Arrays.asList(AC, WA, AC, WA),
+                Arrays.asList(AC, WA, AC, WA)));
+        assertEquals(Arrays.asList(1, 3, 0, 2), statistics.getFailingFirstOrder(1L, 4));
+    }
+
+    // 編譯錯誤、略過的測資與測資數不同的舊紀錄不列入統計
+    @Test
+    public void testIgnoresCompileErrorSkipAndStaleRecords() {
+        statistics.load(1L, 2, Arrays.asList(
+                Arrays.asList(AC, WA),
+                Arrays.asList(CE, CE),
+                Arrays.asList(CE, CE),
+                Arrays.asList(WA, SKIP),
+                Arrays.asList(WA, SKIP),
+                Arrays.asList(AC, AC, AC),
+                null));
+        // 測資0: 3次中2次未通過，加上平滑為(2+1)/(3+2)=0.6；測資1: 1次中1次未通過，(1+1)/(1+2)=0.67
+        assertEquals(Arrays.asList(1, 0), statistics.getFailingFirstOrder(1L, 2));
+    }
+
+    // 系統錯誤是批改端的問題，不計入測資的未通過率
+    @Test
+    public void testIgnoresSystemError() {
+        statistics.load(1L, 2, Arrays.asList(
+                Arrays.asList(AC, SE),
+                Arrays.asList(AC, SE),
+                Arrays.asList(WA, SE)));
+        // 測資0: (1+1)/(3+2)=0.4；測資1沒有有效紀錄，為0.5
+        assertEquals(Arrays.asList(1, 0), statistics.getFailingFirstOrder(1L, 2));
+        statistics.record(1L, Arrays.asList(result(JudgeSymbol.WA), result(JudgeSymbol.SE)));
+        statistics.record(1L, Arrays.asList(result(JudgeSymbol.WA), result(JudgeSymbol.SE)));
+        // 測資0: (3+1)/(5+2)=0.57
+        assertEquals(Arrays.asList(0, 1), statistics.getFailingFirstOrder(1L, 2));
+    }
+
+    // 沒有紀錄的測資以平滑後的0.5計算，不會固定排在最後
+    @Test
+    public void testSmoothingForCasesWithoutHistory() {
+        List<List<String>> symbolLists = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            symbolLists.add(Arrays.asList(AC, AC, SKIP));
+        }
+        symbolLists.add(Arrays.asList(WA, WA, SKIP));
+        statistics.load(1L, 3, symbolLists);
+        assertEquals(Arrays.asList(2, 0, 1), statistics.getFailingFirstOrder(1L, 3));
+    }
+
+    @Test
+    public void testRecordUpdatesOrder() {
+        statistics.load(1L, 2, new ArrayList<>());
+        assertEquals(Arrays.asList(0, 1), statistics.getFailingFirstOrder(1L, 2));
+        statistics.record(1L, Arrays.asList(result(JudgeSymbol.AC), result(JudgeSymbol.WA)));
+        assertEquals(Arrays.asList(1, 0), statistics.getFailingFirstOrder(1L, 2));
+    }
+
+    // 題目測資數變動後視為尚未載入，也不再累加舊的統計
+    @Test
+    public void testCaseNumChange() {
+        statistics.load(1L, 2, new ArrayList<>());
+        assertTrue(statistics.isLoaded(1L, 2));
+        assertFalse(statistics.isLoaded(1L, 3));
+        assertFalse(statistics.isLoaded(2L, 2));
+        statistics.record(1L, Arrays.asList(result(JudgeSymbol.WA), result(JudgeSymbol.WA), result(JudgeSymbol.WA)));
+        assertEquals(Arrays.asList(0, 1, 2), statistics.getFailingFirstOrder(1L, 3));
+        assertEquals(Arrays.asList(0, 1), statistics.getFailingFirstOrder(1L, 2));
+    }
+
+    private JudgeProblemResult result(JudgeSymbol symbol) {
+        return new JudgeProblemResult(symbol == JudgeSymbol.AC ? 100 : 0, "", 0, symbol, "");
+    }
+}
@@ -0,0 +1,107 @@
+package com.penguin.penguincoco.lib.judge;
+
+import com.penguin.penguincoco.lib.model.JudgePriority;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.RejectedExecutionException;
+
+import static org.junit.Assert.*;
+
+public class JudgeSchedulerTest {
+
+    private static final long HOUR_MILLIS = 3600000L;
+
+    // executor只記錄工作，由測試逐一執行，每次執行時排程器才挑出目前最優先的submission
+    private List<Runnable> workers = new ArrayList<>();
+    private List<String> order = new ArrayList<>();
+
+    @Test
+    public void testHigherPriorityRunsFirst() {
+        JudgeScheduler scheduler = new JudgeScheduler(workers::add, 10, HOUR_MILLIS, 0);
+        submit(scheduler, "a", JudgePriority.REJUDGE, "rejudge");
+        submit(scheduler, "b", JudgePriority.PRACTICE, "practice");
+        submit(scheduler, "c", JudgePriority.HOMEWORK, "homework");
+        submit(scheduler, "d", JudgePriority.EXAM, "exam");
+        runAll();
+        assertEquals(Arrays.asList("exam", "homework", "practice", "rejudge"), order);
+    }
+
+    // 等待超過(等級差 * agingMillis)的低優先submission會排在剛送出的高優先submission之前
+    @Test
+    public void testAgingPromotesLongWaitingTask() throws InterruptedException {
+        JudgeScheduler scheduler = new JudgeScheduler(workers::add, 10, 20, 0);
+        submit(scheduler, "a", JudgePriority.PRACTICE, "practice");
+        Thread.sleep(100);
+        submit(scheduler, "b", JudgePriority.EXAM, "exam");
+        runAll();
+        assertEquals(Arrays.asList("practice", "exam"), order);
+        assertEquals(1L, scheduler.getMetrics().get("agingOverrides"));
+    }
+
+    // 同一學生連續送出多份時，其他學生較晚送出的submission可以插隊
+    @Test
+    public void testFairnessInterleavesAccounts() {
+        JudgeScheduler scheduler = new JudgeScheduler(workers::add, 10, HOUR_MILLIS, HOUR_MILLIS);
+        submit(scheduler, "a", JudgePriority.HOMEWORK, "a1");
+        submit(scheduler, "a", JudgePriority.HOMEWORK, "a2");
+        submit(scheduler, "a", JudgePriority.HOMEWORK, "a3");
+        submit(scheduler, "b", JudgePriority.HOMEWORK, "b1");
+        runAll();
+        assertEquals(Arrays.asList("a1", "b1", "a2", "a3"), order);
+        assertEquals(1L, scheduler.getMetrics().get("fairnessOverrides"));
+    }
+
+    // 學生的份額不會讓較低等級的submission排到較高等級之前
+    @Test
+    public void testFairnessDoesNotOverridePriority() {
+        JudgeScheduler scheduler = new JudgeScheduler(workers::add, 10, HOUR_MILLIS, 1000);
+        submit(scheduler, "a", JudgePriority.EXAM, "a1");
+        submit(scheduler, "a", JudgePriority.EXAM, "a2");
+        submit(scheduler, "b", JudgePriority.PRACTICE, "b1");
+        runAll();
+        assertEquals(Arrays.asList("a1", "a2", "b1"), order);
+    }
+
+    @Test
+    public void testReplaceKeepsQueuePosition() {
+        JudgeScheduler scheduler = new JudgeScheduler(workers::add, 10, HOUR_MILLIS, 0);
+        Runnable first = () -> order.add("a-old");
+        scheduler.submit("a", JudgePriority.HOMEWORK, first);
+        submit(scheduler, "b", JudgePriority.HOMEWORK, "b");
+        assertTrue(scheduler.replace(first, JudgePriority.HOMEWORK, () -> order.add("a-new")));
+        runAll();
+        assertEquals(Arrays.asList("a-new", "b"), order);
+        // 已經開始執行的工作不能取代
+        assertFalse(scheduler.replace(first, JudgePriority.HOMEWORK, () -> order.add("a-newer")));
+    }
+
+    @Test
+    public void testRejectsWhenFull() {
+        JudgeScheduler scheduler = new JudgeScheduler(workers::add, 2, HOUR_MILLIS, 0);
+        submit(scheduler, "a", JudgePriority.HOMEWORK, "a1");
+        submit(scheduler, "b", JudgePriority.HOMEWORK, "b1");
+        try {
+            submit(scheduler, "c", JudgePriority.EXAM, "c1");
+            fail();
+        } catch (RejectedExecutionException e) {
+            // expected
+        }
+        assertEquals(2, scheduler.getPendingCount());
+        Map<String, Object> metrics = scheduler.getMetrics();
+        assertEquals(1L, metrics.get("rejected"));
+    }
+
+    private void submit(JudgeScheduler scheduler, String account, JudgePriority priority, String name) {
+        scheduler.submit(account, priority, () -> order.add(name));
+    }
+
+    private void runAll() {
+        while (!workers.isEmpty()) {
+            workers.remove(0).run();
+        }
+    }
+}
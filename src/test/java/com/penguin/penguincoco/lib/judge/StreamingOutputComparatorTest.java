@@ -0,0 +1,118 @@
+package com.penguin.penguincoco.lib.judge;
+
+import org.apache.commons.lang3.StringUtils;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+public class StreamingOutputComparatorTest {
+
+    @Test
+    public void testWhitespaceRules() throws IOException {
+        assertTrue(isAccepted("1 2\n3\n", "1 2\n3\n"));
+        // 換行符號差異
+        assertTrue(isAccepted("1 2\n3\n", "1 2\r\n3\r\n"));
+        assertTrue(isAccepted("1 2\r3", "1 2\n3"));
+        // 行尾空白與結尾空行
+        assertTrue(isAccepted("1 2\n3", "1 2  \t\n3 \n\n\n"));
+        assertTrue(isAccepted("1 2  \n3\n\n", "1 2\n3"));
+        // 行中空白、行首空白與中間的空行都要一致
+        assertFalse(isAccepted("1 2\n3", "1  2\n3"));
+        assertFalse(isAccepted("1 2\n3", "1\t2\n3"));
+        assertFalse(isAccepted("1 2\n3", " 1 2\n3"));
+        assertFalse(isAccepted("1 2\n3", "1 2\n\n3"));
+        // 多一行、少一行
+        assertFalse(isAccepted("1 2\n3", "1 2\n3\n4"));
+        assertFalse(isAccepted("1 2\n3", "1 2"));
+        assertTrue(isAccepted("", "\n \n"));
+        assertTrue(isAccepted(null, ""));
+    }
+
+    // 以少數字元隨機產生輸出，比對結果需與原本整段讀入後正規化比較的OutputComparator一致
+    @Test
+    public void testAgreesWithNormalizedComparison() throws IOException {
+        Random random = new Random(9L);
+        String alphabet = "ab \t\r\n";
+        for (int i = 0; i < 20000; i++) {
+            String expected = randomText(random, alphabet);
+            String actual = random.nextInt(3) == 0 ? randomText(random, alphabet) : mutate(random, expected);
+            assertEquals(expected + "|" + actual, normalize(expected).equals(normalize(actual)), isAccepted(expected, actual));
+        }
+    }
+
+    @Test
+    public void testStopsAtFirstMismatch() throws IOException {
+        StreamingOutputComparator comparator = new StreamingOutputComparator("1\n2\n", 0);
+        String actual = "1\n3\n" + StringUtils.repeat("x", 1 << 20);
+        assertFalse(comparator.consume(new ByteArrayInputStream(actual.getBytes(StandardCharsets.UTF_8)), StandardCharsets.UTF_8));
+        assertTrue(comparator.isWrongAnswer());
+        assertFalse(comparator.isAccepted());
+    }
+
+    @Test
+    public void testOutputLimitExceeded() throws IOException {
+        String expected = StringUtils.repeat("a\n", 100000);
+        StreamingOutputComparator comparator = new StreamingOutputComparator(expected, 1024);
+        assertFalse(comparator.consume(new ByteArrayInputStream(expected.getBytes(StandardCharsets.UTF_8)), StandardCharsets.UTF_8));
+        assertTrue(comparator.isOutputLimitExceeded());
+        assertFalse(comparator.isWrongAnswer());
+        assertFalse(comparator.isAccepted());
+    }
+
+    @Test
+    public void testDisplayOutputIsTruncated() throws IOException {
+        String expected = StringUtils.repeat("a\n", 10000);
+        StreamingOutputComparator comparator = new StreamingOutputComparator(expected, 0);
+        assertTrue(comparator.consume(new ByteArrayInputStream(expected.getBytes(StandardCharsets.UTF_8)), StandardCharsets.UTF_8));
+        assertTrue(comparator.isAccepted());
+        assertEquals(expected.substring(0, StreamingOutputComparator.DISPLAY_LIMIT), comparator.getDisplayOutput());
+    }
+
+    private boolean isAccepted(String expected, String actual) throws IOException {
+        StreamingOutputComparator comparator = new StreamingOutputComparator(expected, 0);
+        comparator.consume(new ByteArrayInputStream(actual.getBytes(StandardCharsets.UTF_8)), StandardCharsets.UTF_8);
+        return comparator.isAccepted();
+    }
+
+    private String randomText(Random random, String alphabet) {
+        StringBuilder builder = new StringBuilder();
+        int length = random.nextInt(12);
+        for (int i = 0; i < length; i++) {
+            builder.append(alphabet.charAt(random.nextInt(alphabet.length())));
+        }
+        return builder.toString();
+    }
+
+    // 在範本中插入、刪除或替換一個空白類字元，產生大多只有空白差異的輸出
+    private String mutate(Random random, String text) {
+        String blanks = " \t\r\n";
+        char blank = blanks.charAt(random.nextInt(blanks.length()));
+        int index = random.nextInt(text.length() + 1);
+        switch (random.nextInt(3)) {
+            case 0:
+                return text.substring(0, index) + blank + text.substring(index);
+            case 1:
+                return index < text.length() ? text.substring(0, index) + text.substring(index + 1) : text;
+            default:
+                return index < text.length() ? text.substring(0, index) + blank + text.substring(index + 1) : text + blank;
+        }
+    }
+
+    // 原本OutputComparator的正規化方式
+    private String normalize(String text) {
+        if (text == null) {
+            return "";
+        }
+        String[] lines = text.replace("\r\n", "\n").replace('\r', '\n').split("\n");
+        StringBuilder builder = new StringBuilder();
+        for (String line : lines) {
+            builder.append(StringUtils.stripEnd(line, null)).append('\n');
+        }
+        return StringUtils.stripEnd(builder.toString(), "\n");
+    }
+}
@@ -0,0 +1,54 @@
+package com.penguin.penguincoco.lib.judge;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class TokenBucketRateLimiterTest {
+
+    @Test
+    public void testBurstUpToCapacity() {
+        TokenBucketRateLimiter rateLimiter = new TokenBucketRateLimiter(3, 3600000L);
+        assertTrue(rateLimiter.tryAcquire("a"));
+        assertTrue(rateLimiter.tryAcquire("a"));
+        assertTrue(rateLimiter.tryAcquire("a"));
+        assertFalse(rateLimiter.tryAcquire("a"));
+        // 每個帳號各自一個bucket
+        assertTrue(rateLimiter.tryAcquire("b"));
+    }
+
+    // 每refillMillis補充一個token，最多累積到capacity
+    @Test
+    public void testRefill() throws InterruptedException {
+        TokenBucketRateLimiter rateLimiter = new TokenBucketRateLimiter(2, 100);
+        assertTrue(rateLimiter.tryAcquire("a"));
+        assertTrue(rateLimiter.tryAcquire("a"));
+        assertFalse(rateLimiter.tryAcquire("a"));
+        Thread.sleep(150);
+        assertTrue(rateLimiter.tryAcquire("a"));
+        assertFalse(rateLimiter.tryAcquire("a"));
+        Thread.sleep(1000);
+        assertTrue(rateLimiter.tryAcquire("a"));
+        assertTrue(rateLimiter.tryAcquire("a"));
+        assertFalse(rateLimiter.tryAcquire("a"));
+    }
+
+    @Test
+    public void testZeroCapacityIsUnlimited() {
+        TokenBucketRateLimiter rateLimiter = new TokenBucketRateLimiter(0, 3600000L);
+        for (int i = 0; i < 1000; i++) {
+            assertTrue(rateLimiter.tryAcquire("a"));
+        }
+    }
+
+    // bucket數超過上限時只清掉已補滿的bucket，仍在限制中的帳號不會因此重置
+    @Test
+    public void testCleanupKeepsLimitedAccounts() {
+        TokenBucketRateLimiter rateLimiter = new TokenBucketRateLimiter(1, 3600000L);
+        assertTrue(rateLimiter.tryAcquire("limited"));
+        for (int i = 0; i < 10001; i++) {
+            rateLimiter.tryAcquire("account" + i);
+        }
+        assertFalse(rateLimiter.tryAcquire("limited"));
+    }
+}
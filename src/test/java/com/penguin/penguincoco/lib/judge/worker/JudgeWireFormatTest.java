@@ -0,0 +1,101 @@
+package com.penguin.penguincoco.lib.judge.worker;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.penguin.penguincoco.lib.model.*;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.*;
+
+public class JudgeWireFormatTest {
+
+    private ObjectMapper mapper = new ObjectMapper();
+
+    // 經過JSON序列化再還原，數字型別改變(Integer/Double)也不影響內容
+    @Test
+    public void testJobRoundTrip() throws IOException {
+        List<ProblemCase> problemCases = Arrays.asList(
+                new ProblemCase("1 2", "3", true),
+                new ProblemCase("中文\r\n4 5", "9\n", false));
+        JudgeJob job = new JudgeJob("job-1", Language.PYTHON, "s001", "print(1)", problemCases,
+                JudgeBehavior.ReadFileAndWriteFile, JudgePolicy.FAILING_FIRST, Arrays.asList(1, 0));
+
+        JudgeJob decoded = JudgeWireFormat.toJob(throughJson(JudgeWireFormat.toMap(job)));
+        assertEquals("job-1", decoded.getJobId());
+        assertEquals(Language.PYTHON, decoded.getLanguage());
+        assertEquals("s001", decoded.getAccount());
+        assertEquals("print(1)", decoded.getCode());
+        assertEquals(JudgeBehavior.ReadFileAndWriteFile, decoded.getBehavior());
+        assertEquals(JudgePolicy.FAILING_FIRST, decoded.getJudgePolicy());
+        assertEquals(Arrays.asList(1, 0), decoded.getCaseOrder());
+        assertEquals(2, decoded.getProblemCases().size());
+        for (int i = 0; i < problemCases.size(); i++) {
+            assertEquals(problemCases.get(i).getInputStr(), decoded.getProblemCases().get(i).getInputStr());
+            assertEquals(problemCases.get(i).getOutput(), decoded.getProblemCases().get(i).getOutput());
+            assertEquals(problemCases.get(i).isSample(), decoded.getProblemCases().get(i).isSample());
+        }
+    }
+
+    @Test
+    public void testJobWithoutCaseOrder() throws IOException {
+        JudgeJob job = new JudgeJob("job-2", Language.JAVA, "s002", "class Main {}", new ArrayList<>(),
+                JudgeBehavior.ReadAndPrint, JudgePolicy.ALL, null);
+        JudgeJob decoded = JudgeWireFormat.toJob(throughJson(JudgeWireFormat.toMap(job)));
+        assertNull(decoded.getCaseOrder());
+        assertTrue(decoded.getProblemCases().isEmpty());
+    }
+
+    @Test
+    public void testReportRoundTrip() throws IOException {
+        JudgeProblemResult accepted = new JudgeProblemResult(100, "3", 12.5, JudgeSymbol.AC, "");
+        accepted.setCpuTime(10);
+        JudgeProblemResult skipped = new JudgeProblemResult(0, "", 0, JudgeSymbol.SKIP, null);
+        JudgeReport report = new JudgeReport();
+        report.setCompileSuccess(true);
+        report.setCompileErrorMessage("");
+        report.setResults(Arrays.asList(accepted, skipped));
+
+        JudgeReport decoded = JudgeWireFormat.toReport(throughJson(JudgeWireFormat.toMap(report)));
+        assertTrue(decoded.isCompileSuccess());
+        assertEquals("", decoded.getCompileErrorMessage());
+        assertEquals(2, decoded.getResults().size());
+        JudgeProblemResult decodedAccepted = decoded.getResults().get(0);
+        assertEquals(100, decodedAccepted.getGrade());
+        assertEquals("3", decodedAccepted.getOutput());
+        assertEquals(12.5, decodedAccepted.getRunTime(), 0);
+        assertEquals(10, decodedAccepted.getCpuTime(), 0);
+        assertEquals(JudgeSymbol.AC, decodedAccepted.getSymbol());
+        assertEquals(JudgeSymbol.SKIP, decoded.getResults().get(1).getSymbol());
+        assertNull(decoded.getResults().get(1).getMessage());
+        assertEquals(report.getAverageScore(), decoded.getAverageScore(), 0);
+        assertEquals(report.getSkippedCount(), decoded.getSkippedCount());
+    }
+
+    // 節點送來缺少欄位或型別錯誤的報告時一律丟出IllegalArgumentException
+    @Test
+    public void testMalformedReport() throws IOException {
+        assertMalformed("{}");
+        assertMalformed("{\"results\": [{\"grade\": 100}]}");
+        assertMalformed("{\"results\": [{\"grade\": \"100\", \"runTime\": 1, \"cpuTime\": 1, \"symbol\": \"AC\"}]}");
+        assertMalformed("{\"results\": [{\"grade\": 100, \"runTime\": 1, \"cpuTime\": 1, \"symbol\": \"OK\"}]}");
+    }
+
+    private void assertMalformed(String json) throws IOException {
+        try {
+            JudgeWireFormat.toReport(mapper.readValue(json, new TypeReference<Map<String, Object>>() {}));
+            fail(json);
+        } catch (IllegalArgumentException e) {
+            // expected
+        }
+    }
+
+    private Map<String, Object> throughJson(Map<String, Object> map) throws IOException {
+        return mapper.readValue(mapper.writeValueAsString(map), new TypeReference<Map<String, Object>>() {});
+    }
+}
@@ -0,0 +1,104 @@
+package com.penguin.penguincoco.lib.model;
+
+import org.junit.Test;
+
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+public class BitParallelLCSAlgorithmTest {
+
+    private LCSAlgorithm lcsAlgorithm = new LCSAlgorithm();
+    private BitParallelLCSAlgorithm bitParallelLCSAlgorithm = new BitParallelLCSAlgorithm();
+
+    @Test
+    public void testSameScoreAsLCS() {
+        assertSameScore("abcbdab", "bdcaba");
+        assertSameScore("a", "a");
+        assertSameScore("a", "b");
+        assertSameScore("abc", "xyz");
+        assertSameScore("publicclassMain{}", "publicclassMain{}");
+    }
+
+    // 長度跨過64位元的邊界時，進位需正確傳遞到下一個word
+    @Test
+    public void testSameScoreAcrossWordBoundary() {
+        Random random = new Random(20190101L);
+        for (int length : new int[]{63, 64, 65, 127, 128, 129, 300}) {
+            for (int i = 0; i < 20; i++) {
+                String a = randomCode(random, length, 4);
+                String b = randomCode(random, length + random.nextInt(40) - 20, 4);
+                assertSameScore(a, b);
+            }
+        }
+    }
+
+    @Test
+    public void testSameScoreOnEditedCode() {
+        Random random = new Random(42L);
+        String code = CodeUtils.removeJavaCommentsAndBlank(
+                "public class Main {\n" +
+                "    public static void main(String[] args) {\n" +
+                "        Scanner scanner = new Scanner(System.in);\n" +
+                "        int n = scanner.nextInt();\n" +
+                "        long sum = 0;\n" +
+                "        for (int i = 1; i <= n; i++) {\n" +
+                "            sum += i * i; // 平方和\n" +
+                "        }\n" +
+                "        System.out.println(sum);\n" +
+                "    }\n" +
+                "}\n");
+        for (int i = 0; i < 200; i++) {
+            StringBuilder edited = new StringBuilder(code);
+            int edits = random.nextInt(30);
+            for (int e = 0; e < edits; e++) {
+                int position = random.nextInt(edited.length());
+                switch (random.nextInt(3)) {
+                    case 0:
+                        edited.setCharAt(position, (char) ('a' + random.nextInt(26)));
+                        break;
+                    case 1:
+                        edited.insert(position, (char) ('a' + random.nextInt(26)));
+                        break;
+                    default:
+                        if (edited.length() > 1) {
+                            edited.deleteCharAt(position);
+                        }
+                }
+            }
+            assertSameScore(code, edited.toString());
+        }
+    }
+
+    @Test
+    public void testLCSLength() {
+        assertEquals(4, bitParallelLCSAlgorithm.getLCS("abcbdab", "bdcaba"));
+        assertEquals(0, bitParallelLCSAlgorithm.getLCS("abc", "xyz"));
+        assertEquals(0, bitParallelLCSAlgorithm.getLCS("", "xyz"));
+        assertEquals(3, bitParallelLCSAlgorithm.getLCS("xyz", "axbycz"));
+    }
+
+    // 兩份20KB的代碼用表格的LCS約需1.6GB，位元平行只需數KB
+    @Test
+    public void testLargeCode() {
+        Random random = new Random(7L);
+        String a = randomCode(random, 20000, 60);
+        String b = randomCode(random, 20000, 60);
+        double similarity = bitParallelLCSAlgorithm.get(a, b);
+        assertTrue(similarity > 0 && similarity < 1);
+        assertEquals(1.0, bitParallelLCSAlgorithm.get(a, a), 0);
+    }
+
+    private void assertSameScore(String a, String b) {
+        assertEquals(a + " / " + b, lcsAlgorithm.get(a, b), bitParallelLCSAlgorithm.get(a, b), 0);
+        assertEquals(b + " / " + a, lcsAlgorithm.get(b, a), bitParallelLCSAlgorithm.get(b, a), 0);
+    }
+
+    private String randomCode(Random random, int length, int alphabetSize) {
+        StringBuilder code = new StringBuilder();
+        for (int i = 0; i < length; i++) {
+            code.append((char) ('a' + random.nextInt(alphabetSize)));
+        }
+        return code.toString();
+    }
+}
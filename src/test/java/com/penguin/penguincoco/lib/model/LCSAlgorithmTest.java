@@ -0,0 +1,77 @@
+package com.penguin.penguincoco.lib.model;
+
+import org.junit.Test;
+
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+public class LCSAlgorithmTest {
+
+    private LCSAlgorithm lcsAlgorithm = new LCSAlgorithm();
+    private BitParallelLCSAlgorithm bitParallelLCSAlgorithm = new BitParallelLCSAlgorithm();
+
+    // 有門檻的比對：達到門檻時與get相同，未達門檻時為0
+    @Test
+    public void testThresholdSameAsFullScore() {
+        Random random = new Random(9L);
+        double[] minScores = {0, 0.3, 0.5, 0.8, 0.9, 0.95, 1};
+        for (int i = 0; i < 400; i++) {
+            String a = randomCode(random, 1 + random.nextInt(150), 3);
+            String b = random.nextBoolean() ? edit(random, a, random.nextInt(20)) : randomCode(random, 1 + random.nextInt(150), 3);
+            double score = lcsAlgorithm.get(a, b);
+            for (double minScore : minScores) {
+                double expected = score >= minScore ? score : 0;
+                assertEquals(a + " / " + b + " >= " + minScore, expected, lcsAlgorithm.get(a, b, minScore), 0);
+                assertEquals(a + " / " + b + " >= " + minScore, expected, bitParallelLCSAlgorithm.get(a, b, minScore), 0);
+            }
+        }
+    }
+
+    // 四捨五入後剛好達到門檻的組合不能被排除
+    @Test
+    public void testThresholdKeepsRoundedScore() {
+        // LCS=179，2*179/(200+200)=0.895，四捨五入為0.9
+        String a = repeat('a', 179) + repeat('b', 21);
+        String b = repeat('a', 179) + repeat('c', 21);
+        assertEquals(0.9, lcsAlgorithm.get(a, b), 0);
+        assertEquals(0.9, lcsAlgorithm.get(a, b, 0.9), 0);
+        assertEquals(0.9, bitParallelLCSAlgorithm.get(a, b, 0.9), 0);
+    }
+
+    @Test
+    public void testLengthFilter() {
+        assertEquals(0, lcsAlgorithm.get("abcdefghij", "abc", 0.9), 0);
+        assertEquals(0, bitParallelLCSAlgorithm.get("abcdefghij", "abc", 0.9), 0);
+    }
+
+    private String edit(Random random, String code, int edits) {
+        StringBuilder edited = new StringBuilder(code);
+        for (int e = 0; e < edits && edited.length() > 1; e++) {
+            int position = random.nextInt(edited.length());
+            if (random.nextBoolean()) {
+                edited.setCharAt(position, (char) ('a' + random.nextInt(3)));
+            }
+            else {
+                edited.deleteCharAt(position);
+            }
+        }
+        return edited.toString();
+    }
+
+    private String randomCode(Random random, int length, int alphabetSize) {
+        StringBuilder code = new StringBuilder();
+        for (int i = 0; i < length; i++) {
+            code.append((char) ('a' + random.nextInt(alphabetSize)));
+        }
+        return code.toString();
+    }
+
+    private String repeat(char c, int times) {
+        StringBuilder builder = new StringBuilder();
+        for (int i = 0; i < times; i++) {
+            builder.append(c);
+        }
+        return builder.toString();
+    }
+}
@@ -0,0 +1,163 @@
+package com.penguin.penguincoco.lib.model;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.Assert.*;
+
+public class MinHashLSHTest {
+
+    private static final String[] STATEMENTS = {
+            "int %s = scanner.nextInt();",
+            "long %s = 0;",
+            "for (int i = 0; i < n; i++) { %s += i * i; }",
+            "if (%s > 10) { System.out.println(%s); }",
+            "while (%s > 0) { %s /= 2; count++; }",
+            "String %s = scanner.next();",
+            "System.out.println(%s);",
+            "%s = Math.max(%s, n);",
+            "double %s = Math.sqrt(n);",
+            "int[] %s = new int[n];",
+            "Arrays.sort(%s);",
+            "%s = %s * 31 + 7;"
+    };
+
+    private CodeSimilarity codeSimilarity = new CodeSimilarity(Language.JAVA, new BitParallelLCSAlgorithm());
+    private WinnowingFingerprinter shingler = new WinnowingFingerprinter(Language.JAVA, 12, 1);
+
+    // 合成的題目代碼中約兩成抄自其他學生(改名、加註解與空白、多一行)，與兩兩比對的結果比較
+    // 200份代碼時，bands=40、rows=8、12個token的shingle召回率為100%，60組候選中有53組確實相似度>=0.9
+    @Test
+    public void testRecallAndPrecisionAgainstExhaustive() {
+        List<String> codes = generateCodes(new Random(5L), 200);
+        PairwiseCodeSimilarity pairwiseSimilarity = new PairwiseCodeSimilarity(codeSimilarity, ForkJoinPool.commonPool());
+        Set<Long> expected = toKeys(pairwiseSimilarity.findSimilarPairs(codes, 0.9));
+        assertFalse(expected.isEmpty());
+
+        MinHashLSH minHashLSH = new MinHashLSH(40, 8, 0);
+        List<int[]> signatures = new ArrayList<>();
+        for (String code : codes) {
+            signatures.add(minHashLSH.signature(shingler.shingle(code)));
+        }
+        List<int[]> candidatePairs = minHashLSH.getCandidatePairs(signatures);
+        int hitNum = 0;
+        for (int[] pair : candidatePairs) {
+            if (expected.contains(toKey(pair[0], pair[1]))) {
+                hitNum++;
+            }
+        }
+        double recall = (double) hitNum / expected.size();
+        double precision = (double) hitNum / candidatePairs.size();
+        assertTrue("recall " + recall, recall >= 0.95);
+        assertTrue("precision " + precision, precision >= 0.5);
+
+        // 候選組合經完整比對後，結果必須是兩兩比對結果的子集合
+        Set<Long> actual = toKeys(pairwiseSimilarity.findSimilarPairs(codes, candidatePairs, 0.9));
+        assertTrue(expected.containsAll(actual));
+        assertTrue(actual.size() >= 0.95 * expected.size());
+    }
+
+    // 一致地改掉變數名稱的抄襲：識別字都是佔位token，shingle集合與原代碼幾乎相同
+    @Test
+    public void testConsistentRenameCollides() {
+        String original = generateCode(new Random(11L));
+        String renamed = original.replace("scanner", "sc").replace("count", "total").replaceAll("v([a-z])", "w$1");
+        assertTrue(codeSimilarity.get(original, renamed) >= 0.9);
+        for (long seed = 0; seed < 20; seed++) {
+            MinHashLSH minHashLSH = new MinHashLSH(40, 8, seed);
+            List<int[]> signatures = new ArrayList<>();
+            signatures.add(minHashLSH.signature(shingler.shingle(original)));
+            signatures.add(minHashLSH.signature(shingler.shingle(renamed)));
+            assertEquals(1, minHashLSH.getCandidatePairs(signatures).size());
+        }
+    }
+
+    @Test
+    public void testIdenticalCodeCollides() {
+        MinHashLSH minHashLSH = new MinHashLSH(40, 8, 0);
+        List<int[]> signatures = new ArrayList<>();
+        signatures.add(minHashLSH.signature(shingler.shingle("public class Main {}")));
+        signatures.add(minHashLSH.signature(shingler.shingle("print(input())")));
+        signatures.add(minHashLSH.signature(shingler.shingle("public class Main {}")));
+        List<int[]> candidatePairs = minHashLSH.getCandidatePairs(signatures);
+        assertEquals(1, candidatePairs.size());
+        assertArrayEquals(new int[]{0, 2}, candidatePairs.get(0));
+    }
+
+    // 沒有shingle的代碼無從分桶，與其他所有代碼都列為候選
+    @Test
+    public void testEmptyCodeIsPairedWithAll() {
+        MinHashLSH minHashLSH = new MinHashLSH(40, 8, 0);
+        assertNull(minHashLSH.signature(shingler.shingle("")));
+        List<int[]> signatures = new ArrayList<>();
+        signatures.add(minHashLSH.signature(shingler.shingle("public class Main {}")));
+        signatures.add(null);
+        signatures.add(minHashLSH.signature(shingler.shingle("print(input())")));
+        assertEquals(2, minHashLSH.getCandidatePairs(signatures).size());
+    }
+
+    private List<String> generateCodes(Random random, int number) {
+        List<String> codes = new ArrayList<>();
+        for (int i = 0; i < number; i++) {
+            if (codes.size() > 5 && random.nextInt(5) == 0) {
+                codes.add(plagiarize(random, codes.get(random.nextInt(codes.size()))));
+            }
+            else {
+                codes.add(generateCode(random));
+            }
+        }
+        return codes;
+    }
+
+    private String generateCode(Random random) {
+        StringBuilder code = new StringBuilder("import java.util.*;\npublic class Main {\n" +
+                "    public static void main(String[] args) {\n" +
+                "        Scanner scanner = new Scanner(System.in);\n" +
+                "        int n = scanner.nextInt();\n        int count = 0;\n");
+        int lines = 8 + random.nextInt(25);
+        for (int i = 0; i < lines; i++) {
+            String variable = "v" + (char) ('a' + random.nextInt(26)) + random.nextInt(50);
+            code.append("        ").append(String.format(STATEMENTS[random.nextInt(STATEMENTS.length)], variable, variable)).append("\n");
+        }
+        return code.append("    }\n}\n").toString();
+    }
+
+    private String plagiarize(Random random, String code) {
+        String copied = code;
+        int renames = random.nextInt(3);
+        for (int i = 0; i < renames; i++) {
+            copied = copied.replace("v" + (char) ('a' + random.nextInt(26)), "x" + random.nextInt(9));
+        }
+        StringBuilder edited = new StringBuilder(copied);
+        int edits = random.nextInt(8);
+        for (int i = 0; i < edits; i++) {
+            int position = random.nextInt(edited.length());
+            edited.insert(position, random.nextBoolean() ? "// note\n" : " ");
+        }
+        if (random.nextBoolean()) {
+            int position = edited.indexOf("\n", random.nextInt(edited.length()));
+            if (position > 0) {
+                edited.insert(position + 1, "        count++;\n");
+            }
+        }
+        return edited.toString();
+    }
+
+    private Set<Long> toKeys(List<SimilarCodePair> pairs) {
+        Set<Long> keys = new HashSet<>();
+        for (SimilarCodePair pair : pairs) {
+            keys.add(toKey(pair.getSourceIndex(), pair.getDestIndex()));
+        }
+        return keys;
+    }
+
+    private long toKey(int a, int b) {
+        return ((long) Math.min(a, b) << 32) | Math.max(a, b);
+    }
+}
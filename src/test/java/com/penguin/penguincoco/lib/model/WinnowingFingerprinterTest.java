@@ -0,0 +1,109 @@
+package com.penguin.penguincoco.lib.model;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class WinnowingFingerprinterTest {
+
+    private WinnowingFingerprinter fingerprinter = new WinnowingFingerprinter(Language.JAVA, 5, 4);
+
+    private String code = "public class Main {\n" +
+            "    public static void main(String[] args) {\n" +
+            "        Scanner scanner = new Scanner(System.in);\n" +
+            "        int n = scanner.nextInt();\n" +
+            "        long sum = 0;\n" +
+            "        for (int i = 1; i <= n; i++) {\n" +
+            "            sum += i * i;\n" +
+            "        }\n" +
+            "        System.out.println(sum);\n" +
+            "    }\n" +
+            "}\n";
+
+    // 註解與空白不影響指紋
+    @Test
+    public void testIgnoreCommentsAndBlank() {
+        String commented = code.replace("long sum = 0;", "long   sum=0; // 總和\n/* 平方和 */");
+        assertArrayEquals(fingerprinter.fingerprint(code), fingerprinter.fingerprint(commented));
+    }
+
+    // 至少 k+window-1 個token相同的片段一定會產生共同的指紋
+    @Test
+    public void testSharedFragmentHasCommonFingerprint() {
+        String other = "class Other { void run() { int x = 42; }\n" +
+                "for (int i = 1; i <= n; i++) { sum += i * i; }\n" +
+                "String s = \"unrelated\"; }";
+        int[] a = fingerprinter.fingerprint(code);
+        int[] b = fingerprinter.fingerprint(other);
+        assertTrue(Arrays.stream(a).anyMatch(f -> Arrays.binarySearch(b, f) >= 0));
+    }
+
+    // 一致地改掉所有變數名稱的抄襲，完整比對的相似度仍>=0.9，指紋篩選也必須找得到
+    @Test
+    public void testConsistentRenameIsCandidate() {
+        String original = "public class Main {\n" +
+                "    public static void main(String[] args) {\n" +
+                "        Scanner scanner = new Scanner(System.in);\n" +
+                "        int n = scanner.nextInt();\n" +
+                "        int[] arr = new int[n];\n" +
+                "        for (int i = 0; i < n; i++) {\n" +
+                "            arr[i] = scanner.nextInt();\n" +
+                "        }\n" +
+                "        int best = arr[0];\n" +
+                "        long sum = 0;\n" +
+                "        for (int i = 0; i < n; i++) {\n" +
+                "            sum += arr[i];\n" +
+                "            if (arr[i] > best) best = arr[i];\n" +
+                "        }\n" +
+                "        System.out.println(best + \" \" + sum);\n" +
+                "    }\n" +
+                "}\n";
+        String renamed = original.replace("arr", "ar").replace("best", "bst").replace("sum", "tot")
+                .replace("int i", "int j").replace("i <", "j <").replace("i++", "j++").replace("[i]", "[j]");
+        CodeSimilarity codeSimilarity = new CodeSimilarity(Language.JAVA, new LCSAlgorithm());
+        assertTrue(codeSimilarity.get(original, renamed) >= 0.9);
+
+        WinnowingFingerprinter defaultFingerprinter = new WinnowingFingerprinter(Language.JAVA, 12, 8);
+        FingerprintIndex index = new FingerprintIndex();
+        index.add(0, defaultFingerprinter.fingerprint(original));
+        index.add(1, defaultFingerprinter.fingerprint(renamed));
+        List<int[]> pairs = index.getCandidatePairs(0.7);
+        assertEquals(1, pairs.size());
+        assertArrayEquals(new int[]{0, 1}, pairs.get(0));
+    }
+
+    @Test
+    public void testCandidatePairs() {
+        FingerprintIndex index = new FingerprintIndex();
+        index.add(0, fingerprinter.fingerprint(code));
+        index.add(1, fingerprinter.fingerprint(code.replace("sum", "total")));
+        index.add(2, fingerprinter.fingerprint("print(input())"));
+        index.add(3, fingerprinter.fingerprint(code));
+        List<int[]> pairs = index.getCandidatePairs(0.5);
+        assertTrue(pairs.stream().anyMatch(pair -> pair[0] == 0 && pair[1] == 3));
+        assertFalse(pairs.stream().anyMatch(pair -> pair[0] == 2 || pair[1] == 2));
+    }
+
+    // 沒有指紋的代碼無法篩選，與所有代碼都列為候選
+    @Test
+    public void testEmptyDocumentIsPairedWithAll() {
+        FingerprintIndex index = new FingerprintIndex();
+        index.add(0, fingerprinter.fingerprint(code));
+        index.add(1, new int[0]);
+        index.add(2, fingerprinter.fingerprint("print(input())"));
+        index.add(3, new int[0]);
+        List<int[]> pairs = index.getCandidatePairs(0.5);
+        assertEquals(5, pairs.size());
+        assertFalse(pairs.stream().anyMatch(pair -> pair[0] == 0 && pair[1] == 2));
+    }
+
+    @Test
+    public void testEmptyCode() {
+        assertEquals(0, fingerprinter.fingerprint("").length);
+        assertEquals(0, fingerprinter.fingerprint("// only comment").length);
+        assertEquals(1, fingerprinter.fingerprint("int x;").length);
+    }
+}
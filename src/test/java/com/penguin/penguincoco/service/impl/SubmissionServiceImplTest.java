@@ -0,0 +1,86 @@
+package com.penguin.penguincoco.service.impl;
+
+import com.penguin.penguincoco.common.exception.JudgeRateLimitException;
+import com.penguin.penguincoco.dao.domain.submission.Submission;
+import com.penguin.penguincoco.dao.repository.SubmissionRepository;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Date;
+import java.util.List;
+
+import static org.junit.Assert.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+// FOR UPDATE SKIP LOCKED本身需要PostgreSQL才能驗證，這裡只驗證認領與排隊時的狀態轉換
+public class SubmissionServiceImplTest {
+
+    private SubmissionRepository submissionRepository = mock(SubmissionRepository.class);
+    private SubmissionServiceImpl submissionService = new SubmissionServiceImpl(submissionRepository);
+
+    @Test
+    public void testClaimSetsLeaseAndAttempts() {
+        Submission queued = submission("s1", 0);
+        Submission expired = submission("s2", 1);
+        expired.setStatus("RUNNING");
+        expired.setWorkerId("worker-old");
+        when(submissionRepository.findClaimable(any(Date.class), eq(2))).thenReturn(Arrays.asList(queued, expired));
+
+        long before = System.currentTimeMillis();
+        List<Submission> claimed = submissionService.claim("worker-1", 2, 60000, 3);
+        assertEquals(Arrays.asList(queued, expired), claimed);
+        for (Submission submission : claimed) {
+            assertEquals("COMPILING", submission.getStatus());
+            assertEquals("worker-1", submission.getWorkerId());
+            assertTrue(submission.getLeaseExpireTime().getTime() >= before + 60000);
+        }
+        assertEquals(1, queued.getAttempts());
+        assertEquals(2, expired.getAttempts());
+    }
+
+    // 超過重試次數的submission標記為錯誤，不會再交給任何節點
+    @Test
+    public void testClaimFailsSubmissionOverRetryLimit() {
+        Submission exhausted = submission("s1", 3);
+        exhausted.setStatus("RUNNING");
+        when(submissionRepository.findClaimable(any(Date.class), anyInt())).thenReturn(Arrays.asList(exhausted));
+
+        assertTrue(submissionService.claim("worker-1", 1, 60000, 3).isEmpty());
+        assertEquals("ERROR", exhausted.getStatus());
+        assertEquals(3, exhausted.getAttempts());
+        assertNotNull(exhausted.getFinishTime());
+    }
+
+    // 取代了排隊中的submission時不消耗token
+    @Test
+    public void testEnqueueReplacingDoesNotConsumeToken() throws JudgeRateLimitException {
+        Submission submission = submission("s2", 0);
+        when(submissionRepository.replaceQueued(eq("s001"), eq(1L), eq("s2"), any(Date.class))).thenReturn(1);
+
+        assertEquals(1, submissionService.enqueue(submission, () -> {
+            throw new AssertionError("should not acquire a token");
+        }));
+        verify(submissionRepository).save(submission);
+    }
+
+    @Test
+    public void testEnqueueRateLimited() {
+        Submission submission = submission("s1", 0);
+        when(submissionRepository.replaceQueued(anyString(), anyLong(), anyString(), any(Date.class))).thenReturn(0);
+
+        try {
+            submissionService.enqueue(submission, () -> false);
+            fail();
+        } catch (JudgeRateLimitException e) {
+            // expected
+        }
+        verify(submissionRepository, never()).save(any(Submission.class));
+    }
+
+    private Submission submission(String submissionId, int attempts) {
+        Submission submission = new Submission(submissionId, 1L, "s001", "print(1)", "PYTHON", "QUEUED", 0);
+        submission.setAttempts(attempts);
+        return submission;
+    }
+}